@@ -0,0 +1,240 @@
+package su.grinev.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.*;
+
+import static su.grinev.processor.SchemaProcessor.annotation;
+import static su.grinev.processor.SchemaProcessor.annotationValue;
+
+/**
+ * What {@link SchemaWriter} needs to know about one {@code @Tag} class: its bound fields in
+ * declaration order, how each one is read and written from generated code, and whether the
+ * class can be created with {@code new}.
+ */
+record SchemaModel(TypeElement type, String packageName, String className, String providerSimpleName,
+                   List<FieldModel> fields, boolean instantiable) {
+
+    private static final Set<String> LOMBOK_CONSTRUCTORS = Set.of(
+            "lombok.AllArgsConstructor", "lombok.RequiredArgsConstructor", "lombok.Builder", "lombok.Data", "lombok.Value");
+
+    /**
+     * @param getter     expression reading the field from {@code o}
+     * @param setter     statement format writing {@code %s} to the field of {@code o}, or null when read-only
+     * @param primitive  primitive name when the field is a primitive or its wrapper, otherwise null
+     */
+    record FieldModel(String name, int tag, int discriminator, String typeName, String genericType,
+                      String getter, String setter, String primitive) {}
+
+    String providerName() {
+        return packageName.isEmpty() ? providerSimpleName : packageName + "." + providerSimpleName;
+    }
+
+    /** Returns null and reports a diagnostic when the class cannot get a generated schema. */
+    static SchemaModel of(ProcessingEnvironment env, TypeElement type) {
+        Elements elements = env.getElementUtils();
+        Types types = env.getTypeUtils();
+
+        if (type.getKind() != ElementKind.CLASS || !isReachable(type)) {
+            note(env, type, "is not a top-level or static member class visible to its package");
+            return null;
+        }
+
+        List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+        List<FieldModel> fields = new ArrayList<>();
+        Set<Integer> tags = new HashSet<>();
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) || annotation(field, SchemaProcessor.TRANSIENT) != null) {
+                continue;
+            }
+            AnnotationMirror tag = annotation(field, SchemaProcessor.TAG);
+            if (tag == null) {
+                env.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Field '" + field.getSimpleName() + "' in class '" + type.getQualifiedName()
+                                + "' must be annotated with @Tag or @Transient", field);
+                return null;
+            }
+            int tagValue = (Integer) annotationValue(tag, "value");
+            if (tagValue < 0) {
+                env.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Tag value for field '" + field.getSimpleName() + "' must be non-negative, got " + tagValue, field);
+                return null;
+            }
+            if (!tags.add(tagValue)) {
+                env.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Duplicate tag value " + tagValue + " in class '" + type.getQualifiedName() + "'", field);
+                return null;
+            }
+
+            AnnotationMirror typed = annotation(field, SchemaProcessor.TYPE);
+            int discriminator = typed != null ? (Integer) annotationValue(typed, "discriminator") : -1;
+
+            String name = field.getSimpleName().toString();
+            boolean direct = !field.getModifiers().contains(Modifier.PRIVATE);
+            boolean primitiveBoolean = field.asType().getKind() == TypeKind.BOOLEAN;
+            String getterName = primitiveBoolean && name.startsWith("is") && name.length() > 2 && Character.isUpperCase(name.charAt(2))
+                    ? name
+                    : (primitiveBoolean ? "is" : "get") + capitalize(name);
+            String setterName = "set" + capitalize(primitiveBoolean && getterName.equals(name) ? name.substring(2) : name);
+
+            String getter;
+            if (direct) {
+                getter = "o." + name;
+            } else if (hasGetter(methods, getterName) || lombok(type, field, "lombok.Getter")) {
+                getter = "o." + getterName + "()";
+            } else {
+                note(env, type, "has private field '" + name + "' without a getter");
+                return null;
+            }
+
+            String setter;
+            if (field.getModifiers().contains(Modifier.FINAL)) {
+                setter = null;
+            } else if (direct) {
+                setter = "o." + name + " = %s";
+            } else if (hasSetter(types, methods, setterName, field.asType()) || lombok(type, field, "lombok.Setter")) {
+                setter = "o." + setterName + "(%s)";
+            } else {
+                note(env, type, "has private field '" + name + "' without a setter");
+                return null;
+            }
+
+            fields.add(new FieldModel(name, tagValue, discriminator, erasedName(types, field.asType()),
+                    genericType(types, field.asType()), getter, setter, primitiveName(types, field.asType())));
+        }
+
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String flatName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return new SchemaModel(type, packageName, type.getQualifiedName().toString(), flatName + SchemaProcessor.SUFFIX,
+                fields, isInstantiable(elements, type));
+    }
+
+    private static boolean isReachable(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement t; e = e.getEnclosingElement()) {
+            if (t.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isInstantiable(Elements elements, TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        AnnotationMirror noArgs = annotation(type, "lombok.NoArgsConstructor");
+        if (noArgs != null) {
+            return accessible(annotationValue(noArgs, "access"));
+        }
+        boolean lombokConstructors = type.getAnnotationMirrors().stream()
+                .anyMatch(m -> LOMBOK_CONSTRUCTORS.contains(((TypeElement) m.getAnnotationType().asElement()).getQualifiedName().toString()));
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!constructor.getParameters().isEmpty() || constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            // The implicit default constructor disappears once Lombok adds its own constructors
+            if (elements.getOrigin(constructor) != Elements.Origin.MANDATED || !lombokConstructors) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasGetter(List<ExecutableElement> methods, String name) {
+        return methods.stream().anyMatch(m -> m.getSimpleName().contentEquals(name)
+                && m.getParameters().isEmpty()
+                && !m.getModifiers().contains(Modifier.PRIVATE)
+                && !m.getModifiers().contains(Modifier.STATIC));
+    }
+
+    private static boolean hasSetter(Types types, List<ExecutableElement> methods, String name, TypeMirror fieldType) {
+        return methods.stream().anyMatch(m -> m.getSimpleName().contentEquals(name)
+                && m.getParameters().size() == 1
+                && types.isSameType(types.erasure(m.getParameters().get(0).asType()), types.erasure(fieldType))
+                && !m.getModifiers().contains(Modifier.PRIVATE)
+                && !m.getModifiers().contains(Modifier.STATIC));
+    }
+
+    /** Whether Lombok generates a non-private accessor of the given kind for the field. */
+    private static boolean lombok(TypeElement type, VariableElement field, String accessor) {
+        AnnotationMirror onField = annotation(field, accessor);
+        if (onField != null) {
+            return accessible(annotationValue(onField, "value"));
+        }
+        AnnotationMirror onClass = annotation(type, accessor);
+        if (onClass != null) {
+            return accessible(annotationValue(onClass, "value"));
+        }
+        if (annotation(type, "lombok.Data") != null) {
+            return true;
+        }
+        return accessor.equals("lombok.Getter") && annotation(type, "lombok.Value") != null;
+    }
+
+    private static boolean accessible(Object accessLevel) {
+        if (accessLevel instanceof VariableElement level) {
+            String name = level.getSimpleName().toString();
+            return !name.equals("PRIVATE") && !name.equals("NONE");
+        }
+        return true;
+    }
+
+    private static String erasedName(Types types, TypeMirror type) {
+        TypeMirror erased = types.erasure(type);
+        return switch (erased.getKind()) {
+            case DECLARED -> ((TypeElement) ((DeclaredType) erased).asElement()).getQualifiedName().toString();
+            case ARRAY -> erasedName(types, ((ArrayType) erased).getComponentType()) + "[]";
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE -> erased.getKind().name().toLowerCase(Locale.ROOT);
+            default -> "java.lang.Object";
+        };
+    }
+
+    /** Source expression for the field's {@code java.lang.reflect.Type}, used for collection item types. */
+    private static String genericType(Types types, TypeMirror type) {
+        if (type instanceof DeclaredType declared && !declared.getTypeArguments().isEmpty()) {
+            StringBuilder sb = new StringBuilder("su.grinev.Binder.parameterizedType(")
+                    .append(erasedName(types, type)).append(".class");
+            for (TypeMirror argument : declared.getTypeArguments()) {
+                sb.append(", ").append(genericType(types, argument));
+            }
+            return sb.append(')').toString();
+        }
+        if (type instanceof WildcardType wildcard) {
+            return wildcard.getExtendsBound() != null ? genericType(types, wildcard.getExtendsBound()) : "java.lang.Object.class";
+        }
+        return erasedName(types, type) + ".class";
+    }
+
+    private static String primitiveName(Types types, TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase(Locale.ROOT);
+        }
+        try {
+            return types.unboxedType(type).getKind().name().toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static void note(ProcessingEnvironment env, TypeElement type, String reason) {
+        env.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                type.getQualifiedName() + " " + reason + "; its schema will be built by reflection", type);
+    }
+}
@@ -0,0 +1,115 @@
+package su.grinev.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@code su.grinev.SchemaProvider} for every class with {@code @Tag} fields, so
+ * {@code Binder} gets its {@code ClassSchema} and field accessors without reflection at startup.
+ * <p>
+ * Fields are accessed directly when they are not private, otherwise through getters and setters
+ * that are either declared or implied by Lombok's {@code @Data}, {@code @Getter}, {@code @Setter}
+ * and {@code @Value}. Classes that offer neither are left to the reflective path.
+ * Providers are registered in {@code META-INF/services/su.grinev.SchemaProvider}.
+ */
+@SupportedAnnotationTypes(SchemaProcessor.TAG)
+public class SchemaProcessor extends AbstractProcessor {
+
+    static final String TAG = "annotation.Tag";
+    static final String TYPE = "annotation.Type";
+    static final String TRANSIENT = "annotation.Transient";
+    static final String SUFFIX = "$$JBsonSchema";
+    private static final String SERVICE = "META-INF/services/su.grinev.SchemaProvider";
+
+    private final Set<String> providers = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+
+        TypeElement tag = processingEnv.getElementUtils().getTypeElement(TAG);
+        if (tag == null) {
+            return false;
+        }
+
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element field : roundEnv.getElementsAnnotatedWith(tag)) {
+            if (field.getEnclosingElement() instanceof TypeElement type) {
+                types.add(type);
+            }
+        }
+        for (TypeElement type : types) {
+            SchemaModel model = SchemaModel.of(processingEnv, type);
+            if (model == null) {
+                continue;
+            }
+            try {
+                write(model);
+                providers.add(model.providerName());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to write schema for " + type.getQualifiedName() + ": " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    private void write(SchemaModel model) throws IOException {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(model.providerName(), model.type()).openWriter()) {
+            writer.write(new SchemaWriter(model).write());
+        }
+    }
+
+    private void writeServiceFile() {
+        if (providers.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+            try (Writer writer = file.openWriter()) {
+                for (String provider : providers) {
+                    writer.write(provider);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + SERVICE + ": " + e.getMessage());
+        }
+    }
+
+    /** Reads a field or class annotation by qualified name, since the processor does not depend on the runtime. */
+    static AnnotationMirror annotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    static Object annotationValue(AnnotationMirror mirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package su.grinev.processor;
+
+import java.util.List;
+
+/**
+ * Renders a {@link SchemaModel} as a class implementing both {@code SchemaProvider} and
+ * {@code FieldAccessor}: the schema lists the bindings in declaration order and every accessor
+ * method is a {@code switch} over slots with plain field, getter or setter access.
+ */
+final class SchemaWriter {
+
+    private static final String[][] PRIMITIVES = {
+            {"Int", "int"}, {"Long", "long"}, {"Double", "double"}, {"Float", "float"},
+            {"Boolean", "boolean"}, {"Short", "short"}, {"Byte", "byte"}, {"Char", "char"},
+    };
+
+    private final SchemaModel model;
+    private final StringBuilder out = new StringBuilder();
+
+    SchemaWriter(SchemaModel model) {
+        this.model = model;
+    }
+
+    String write() {
+        String type = model.className();
+        List<SchemaModel.FieldModel> fields = model.fields();
+
+        if (!model.packageName().isEmpty()) {
+            line("package " + model.packageName() + ";");
+            line("");
+        }
+        line("@javax.annotation.processing.Generated(\"" + SchemaProcessor.class.getName() + "\")");
+        line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        line("public final class " + model.providerSimpleName() + " implements su.grinev.SchemaProvider, su.grinev.FieldAccessor {");
+        line("");
+        line("    @Override");
+        line("    public Class<?> type() {");
+        line("        return " + type + ".class;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public su.grinev.Binder.ClassSchema createSchema() {");
+        line("        return su.grinev.Binder.ClassSchema.of(" + type + ".class" + (fields.isEmpty() ? ");" : ","));
+        for (int slot = 0; slot < fields.size(); slot++) {
+            SchemaModel.FieldModel field = fields.get(slot);
+            line("                su.grinev.Binder.FieldBinding.of(\"" + field.name() + "\", " + field.tag() + ", " + field.typeName() + ".class, "
+                    + field.genericType() + ", " + field.discriminator() + ", this, " + slot + ")"
+                    + (slot == fields.size() - 1 ? ");" : ","));
+        }
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public Object newInstance() {");
+        line("        return " + (model.instantiable() ? "new " + type + "()" : "null") + ";");
+        line("    }");
+
+        getter("Object", "get", null);
+        setter("Object", "set", null);
+        for (String[] primitive : PRIMITIVES) {
+            getter(primitive[1], "get" + primitive[0], primitive[1]);
+            setter(primitive[1], "set" + primitive[0], primitive[1]);
+        }
+        line("}");
+        return out.toString();
+    }
+
+    private void getter(String returnType, String method, String primitive) {
+        List<SchemaModel.FieldModel> fields = model.fields();
+        line("");
+        line("    @Override");
+        line("    public " + returnType + " " + method + "(Object target, int slot) {");
+        if (fields.stream().noneMatch(f -> matches(f, primitive))) {
+            line("        throw new IllegalArgumentException(\"No " + (primitive != null ? primitive + " " : "") + "field at slot \" + slot);");
+        } else {
+            line("        " + model.className() + " o = (" + model.className() + ") target;");
+            line("        return switch (slot) {");
+            for (int slot = 0; slot < fields.size(); slot++) {
+                if (matches(fields.get(slot), primitive)) {
+                    line("            case " + slot + " -> " + fields.get(slot).getter() + ";");
+                }
+            }
+            line("            default -> throw new IllegalArgumentException(\"No " + (primitive != null ? primitive + " " : "") + "field at slot \" + slot);");
+            line("        };");
+        }
+        line("    }");
+    }
+
+    private void setter(String valueType, String method, String primitive) {
+        List<SchemaModel.FieldModel> fields = model.fields();
+        line("");
+        line("    @Override");
+        line("    public void " + method + "(Object target, int slot, " + valueType + " value) {");
+        if (fields.stream().noneMatch(f -> f.setter() != null && matches(f, primitive))) {
+            line("        throw new IllegalArgumentException(\"No writable " + (primitive != null ? primitive + " " : "") + "field at slot \" + slot);");
+        } else {
+            line("        " + model.className() + " o = (" + model.className() + ") target;");
+            line("        switch (slot) {");
+            for (int slot = 0; slot < fields.size(); slot++) {
+                SchemaModel.FieldModel field = fields.get(slot);
+                if (field.setter() != null && matches(field, primitive)) {
+                    String value = primitive != null ? "value" : "(" + boxedName(field) + ") value";
+                    line("            case " + slot + " -> " + field.setter().formatted(value) + ";");
+                }
+            }
+            line("            default -> throw new IllegalArgumentException(\"No writable " + (primitive != null ? primitive + " " : "") + "field at slot \" + slot);");
+            line("        }");
+        }
+        line("    }");
+    }
+
+    private static boolean matches(SchemaModel.FieldModel field, String primitive) {
+        return primitive == null || primitive.equals(field.primitive());
+    }
+
+    /** Casts to the wrapper for primitive fields so {@code set(Object)} unboxes like a {@code VarHandle} would. */
+    private static String boxedName(SchemaModel.FieldModel field) {
+        return switch (field.typeName()) {
+            case "int" -> "java.lang.Integer";
+            case "long" -> "java.lang.Long";
+            case "double" -> "java.lang.Double";
+            case "float" -> "java.lang.Float";
+            case "boolean" -> "java.lang.Boolean";
+            case "short" -> "java.lang.Short";
+            case "byte" -> "java.lang.Byte";
+            case "char" -> "java.lang.Character";
+            default -> field.typeName();
+        };
+    }
+
+    private void line(String s) {
+        out.append(s).append('\n');
+    }
+}
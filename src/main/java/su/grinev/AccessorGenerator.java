@@ -0,0 +1,530 @@
+package su.grinev;
+
+import annotation.Tag;
+import annotation.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Emits a {@link FieldAccessor} and {@link ClassBinder} per bound class and defines it as a hidden
+ * nestmate of that class, so private fields are read and written with plain
+ * {@code getfield}/{@code putfield} instead of through {@code VarHandle}s.
+ * <p>
+ * The accessor methods switch on the slot and serve the direct binding readers and writers, which
+ * still reach them through a call site shared by every bound class. The {@link ClassBinder}
+ * methods serve {@link Binder#bind} and {@link Binder#unbind} with one straight-line block per
+ * field, so the document path has no per-field kind switch or accessor call at all.
+ * {@code AccessorBenchmark} compares both modes.
+ * <p>
+ * Class files are written at version 49 so no stack map frames are needed for the switch.
+ */
+final class AccessorGenerator {
+
+    private static final String ACCESSOR = "su/grinev/FieldAccessor";
+    private static final String CLASS_BINDER = "su/grinev/ClassBinder";
+    private static final String DOCUMENTS = "su/grinev/ClassBinder$Documents";
+    private static final String LAZY_UTF8 = "su/grinev/LazyUtf8";
+    private static final String MAP = "java/util/Map";
+    private static final String NUMBER = "java/lang/Number";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String EXCEPTION = "java/lang/IllegalArgumentException";
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ALOAD_0 = 0x2A, ALOAD_1 = 0x2B, ALOAD_2 = 0x2C, ALOAD_3 = 0x2D, ILOAD_2 = 0x1C;
+    private static final int ALOAD = 0x19, ASTORE = 0x3A, POP = 0x57, SIPUSH = 0x11, LDC_W = 0x13;
+    private static final int L2I = 0x88, D2F = 0x90, I2B = 0x91, I2S = 0x93;
+    private static final int IFEQ = 0x99, IFNULL = 0xC6, INSTANCEOF = 0xC1, INVOKEINTERFACE = 0xB9;
+    private static final int ILOAD_3 = 0x1D, LLOAD_3 = 0x21, FLOAD_3 = 0x25, DLOAD_3 = 0x29;
+    private static final int IRETURN = 0xAC, LRETURN = 0xAD, FRETURN = 0xAE, DRETURN = 0xAF, ARETURN = 0xB0, RETURN = 0xB1;
+    private static final int GETFIELD = 0xB4, PUTFIELD = 0xB5, INVOKEVIRTUAL = 0xB6, INVOKESPECIAL = 0xB7, INVOKESTATIC = 0xB8;
+    private static final int NEW = 0xBB, DUP = 0x59, ATHROW = 0xBF, CHECKCAST = 0xC0, TABLESWITCH = 0xAA;
+
+    /** Typed accessor methods: name suffix, primitive type and its load/return opcodes. */
+    private record Primitive(String name, Class<?> type, Class<?> wrapper, int load, int ret) {}
+
+    private static final Primitive[] PRIMITIVES = {
+            new Primitive("Int", int.class, Integer.class, ILOAD_3, IRETURN),
+            new Primitive("Long", long.class, Long.class, LLOAD_3, LRETURN),
+            new Primitive("Double", double.class, Double.class, DLOAD_3, DRETURN),
+            new Primitive("Float", float.class, Float.class, FLOAD_3, FRETURN),
+            new Primitive("Boolean", boolean.class, Boolean.class, ILOAD_3, IRETURN),
+            new Primitive("Short", short.class, Short.class, ILOAD_3, IRETURN),
+            new Primitive("Byte", byte.class, Byte.class, ILOAD_3, IRETURN),
+            new Primitive("Char", char.class, Character.class, ILOAD_3, IRETURN),
+    };
+
+    private final Field[] fields;
+    private final int[] tags;
+    private final Binder.FieldKind[] kinds;
+    private final String hostName;
+    private final ConstantPool pool = new ConstantPool();
+
+    private AccessorGenerator(Class<?> host, Field[] fields) {
+        this.fields = fields;
+        this.hostName = internalName(host);
+        tags = new int[fields.length];
+        kinds = new Binder.FieldKind[fields.length];
+        for (int slot = 0; slot < fields.length; slot++) {
+            tags[slot] = fields[slot].getAnnotation(Tag.class).value();
+            kinds[slot] = Binder.resolveKind(fields[slot].getType(), fields[slot].isAnnotationPresent(Type.class));
+        }
+    }
+
+    static FieldAccessor generate(MethodHandles.Lookup lookup, Class<?> host, Field[] fields) throws Throwable {
+        byte[] classFile = new AccessorGenerator(host, fields).toClassFile();
+        MethodHandles.Lookup accessorLookup = lookup.defineHiddenClass(classFile, true, MethodHandles.Lookup.ClassOption.NESTMATE);
+        return (FieldAccessor) accessorLookup.findConstructor(accessorLookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+    }
+
+    private byte[] toClassFile() {
+        int thisClass = pool.classRef(hostName + "$$Accessor");
+        int superClass = pool.classRef(OBJECT);
+        int accessorInterface = pool.classRef(ACCESSOR);
+        int binderInterface = pool.classRef(CLASS_BINDER);
+
+        Bytes methods = new Bytes();
+        int methodCount = 0;
+
+        Bytes init = new Bytes();
+        init.u1(ALOAD_0).u1(INVOKESPECIAL).u2(pool.methodRef(OBJECT, "<init>", "()V")).u1(RETURN);
+        writeMethod(methods, ACC_PUBLIC, "<init>", "()V", init, 1, 1);
+        methodCount++;
+
+        writeMethod(methods, ACC_PUBLIC | ACC_FINAL, "get", "(Ljava/lang/Object;I)Ljava/lang/Object;", getter(null), 3, 3);
+        writeMethod(methods, ACC_PUBLIC | ACC_FINAL, "set", "(Ljava/lang/Object;ILjava/lang/Object;)V", setter(null), 3, 4);
+        methodCount += 2;
+        for (Primitive primitive : PRIMITIVES) {
+            String descriptor = descriptor(primitive.type);
+            writeMethod(methods, ACC_PUBLIC | ACC_FINAL, "get" + primitive.name, "(Ljava/lang/Object;I)" + descriptor, getter(primitive), 3, 3);
+            writeMethod(methods, ACC_PUBLIC | ACC_FINAL, "set" + primitive.name, "(Ljava/lang/Object;I" + descriptor + ")V", setter(primitive), 4, 5);
+            methodCount += 2;
+        }
+        writeMethod(methods, ACC_PUBLIC | ACC_FINAL, "unbind", "(Ljava/lang/Object;Ljava/util/Map;L" + DOCUMENTS + ";)V", unbinder(), 6, 6);
+        writeMethod(methods, ACC_PUBLIC | ACC_FINAL, "bind", "(Ljava/lang/Object;Ljava/util/Map;L" + DOCUMENTS + ";)V", binder(), 6, 6);
+        methodCount += 2;
+
+        Bytes out = new Bytes();
+        out.u4(0xCAFEBABE).u2(0).u2(49);
+        pool.writeTo(out);
+        out.u2(ACC_PUBLIC | ACC_FINAL | ACC_SUPER).u2(thisClass).u2(superClass);
+        out.u2(2).u2(accessorInterface).u2(binderInterface);
+        out.u2(0); // fields
+        out.u2(methodCount).put(methods);
+        out.u2(0); // attributes
+        return out.toByteArray();
+    }
+
+    /**
+     * {@code get} when {@code primitive} is null, otherwise the typed getter. Typed getters
+     * match the primitive field and its wrapper, boxing or unboxing as needed.
+     */
+    private Bytes getter(Primitive primitive) {
+        Bytes code = new Bytes();
+        int[] cases = switchOnSlot(code);
+        for (int slot = 0; slot < fields.length; slot++) {
+            Class<?> type = fields[slot].getType();
+            if (primitive != null && type != primitive.type && type != primitive.wrapper) {
+                continue;
+            }
+            cases[slot] = code.size();
+            code.u1(ALOAD_1).u1(CHECKCAST).u2(pool.classRef(hostName)).u1(GETFIELD).u2(fieldRef(fields[slot]));
+            if (primitive == null) {
+                if (type.isPrimitive()) {
+                    box(code, type);
+                }
+                code.u1(ARETURN);
+            } else {
+                if (!type.isPrimitive()) {
+                    unbox(code, primitive.type);
+                }
+                code.u1(primitive.ret);
+            }
+        }
+        endSwitch(code, cases);
+        return code;
+    }
+
+    private Bytes setter(Primitive primitive) {
+        Bytes code = new Bytes();
+        int[] cases = switchOnSlot(code);
+        for (int slot = 0; slot < fields.length; slot++) {
+            Field field = fields[slot];
+            Class<?> type = field.getType();
+            if (Modifier.isFinal(field.getModifiers())
+                    || (primitive != null && type != primitive.type && type != primitive.wrapper)) {
+                continue;
+            }
+            cases[slot] = code.size();
+            code.u1(ALOAD_1).u1(CHECKCAST).u2(pool.classRef(hostName));
+            if (primitive == null) {
+                code.u1(ALOAD_3);
+                if (type.isPrimitive()) {
+                    code.u1(CHECKCAST).u2(pool.classRef(internalName(wrapper(type))));
+                    unbox(code, type);
+                } else if (type != Object.class) {
+                    code.u1(CHECKCAST).u2(pool.classRef(internalName(type)));
+                }
+            } else {
+                code.u1(primitive.load);
+                if (!type.isPrimitive()) {
+                    box(code, primitive.type);
+                }
+            }
+            code.u1(PUTFIELD).u2(fieldRef(field)).u1(RETURN);
+        }
+        endSwitch(code, cases);
+        return code;
+    }
+
+    /**
+     * {@code ClassBinder.unbind}: primitives are boxed and put under their tag, set scalars and
+     * enum names likewise, set document-valued fields go to {@code documents}.
+     * Locals: 1 source, 2 document, 3 documents, 4 the source as the bound class, 5 a field value.
+     */
+    private Bytes unbinder() {
+        Bytes code = new Bytes();
+        code.u1(ALOAD_1).u1(CHECKCAST).u2(pool.classRef(hostName)).u1(ASTORE).u1(4);
+        for (int slot = 0; slot < fields.length; slot++) {
+            Field field = fields[slot];
+            if (field.getType().isPrimitive()) {
+                code.u1(ALOAD_2);
+                pushKey(code, tags[slot]);
+                code.u1(ALOAD).u1(4).u1(GETFIELD).u2(fieldRef(field));
+                box(code, field.getType());
+                putIntoDocument(code);
+                continue;
+            }
+            code.u1(ALOAD).u1(4).u1(GETFIELD).u2(fieldRef(field)).u1(ASTORE).u1(5);
+            int skip = branch(code.u1(ALOAD).u1(5), IFNULL);
+            if (kinds[slot] == Binder.FieldKind.PRIMITIVE || kinds[slot] == Binder.FieldKind.ENUM) {
+                code.u1(ALOAD_2);
+                pushKey(code, tags[slot]);
+                code.u1(ALOAD).u1(5);
+                if (kinds[slot] == Binder.FieldKind.ENUM) {
+                    code.u1(INVOKEVIRTUAL).u2(pool.methodRef(OBJECT, "toString", "()Ljava/lang/String;"));
+                }
+                putIntoDocument(code);
+            } else {
+                callDocuments(code, "unbind", slot);
+            }
+            code.patchBranch(skip);
+        }
+        code.u1(RETURN);
+        return code;
+    }
+
+    /**
+     * {@code ClassBinder.bind}: each tag present in the document is converted the way
+     * {@link Binder#bind} converts it and stored with {@code putfield}; document-valued, final and
+     * {@code char}/{@code LocalDateTime} fields go to {@code documents}. Locals as in {@link #unbinder}.
+     */
+    private Bytes binder() {
+        Bytes code = new Bytes();
+        code.u1(ALOAD_1).u1(CHECKCAST).u2(pool.classRef(hostName)).u1(ASTORE).u1(4);
+        for (int slot = 0; slot < fields.length; slot++) {
+            Field field = fields[slot];
+            code.u1(ALOAD_2);
+            pushKey(code, tags[slot]);
+            code.u1(INVOKEINTERFACE).u2(pool.memberRef(11, MAP, "get", "(Ljava/lang/Object;)Ljava/lang/Object;")).u1(2).u1(0);
+            code.u1(ASTORE).u1(5);
+            int skip = branch(code.u1(ALOAD).u1(5), IFNULL);
+            if (Modifier.isFinal(field.getModifiers()) || !bindsInline(field.getType(), kinds[slot])) {
+                callDocuments(code, "bind", slot);
+            } else {
+                code.u1(ALOAD).u1(4);
+                convert(code, field.getType(), kinds[slot]);
+                code.u1(PUTFIELD).u2(fieldRef(field));
+            }
+            code.patchBranch(skip);
+        }
+        code.u1(RETURN);
+        return code;
+    }
+
+    private static boolean bindsInline(Class<?> type, Binder.FieldKind kind) {
+        return switch (kind) {
+            case INT, LONG, SHORT, BYTE, DOUBLE, FLOAT, BOOLEAN, ENUM -> true;
+            case PRIMITIVE -> type != LocalDateTime.class && type != Character.class && type != Enum.class;
+            default -> false;
+        };
+    }
+
+    /** Pushes the value in local 5 as the field type, see {@code Binder.bind} and {@code Binder.coerceNumeric}. */
+    private void convert(Bytes code, Class<?> type, Binder.FieldKind kind) {
+        if (kind == Binder.FieldKind.ENUM) {
+            code.u1(LDC_W).u2(pool.classRef(internalName(type))).u1(ALOAD).u1(5)
+                    .u1(INVOKEVIRTUAL).u2(pool.methodRef(OBJECT, "toString", "()Ljava/lang/String;"))
+                    .u1(INVOKESTATIC).u2(pool.methodRef("java/lang/Enum", "valueOf", "(Ljava/lang/Class;Ljava/lang/String;)Ljava/lang/Enum;"))
+                    .u1(CHECKCAST).u2(pool.classRef(internalName(type)));
+            return;
+        }
+        if (kind == Binder.FieldKind.PRIMITIVE && type == String.class) {
+            // A lazily decoded string is decoded now
+            int plain = branch(code.u1(ALOAD).u1(5).u1(INSTANCEOF).u2(pool.classRef(LAZY_UTF8)), IFEQ);
+            code.u1(ALOAD).u1(5).u1(INVOKEVIRTUAL).u2(pool.methodRef(OBJECT, "toString", "()Ljava/lang/String;")).u1(ASTORE).u1(5);
+            code.patchBranch(plain);
+        }
+        code.u1(ALOAD).u1(5);
+        switch (kind) {
+            case INT, SHORT, BYTE, LONG -> {
+                code.u1(CHECKCAST).u2(pool.classRef(NUMBER)).u1(INVOKEVIRTUAL).u2(pool.methodRef(NUMBER, "longValue", "()J"));
+                if (kind != Binder.FieldKind.LONG) {
+                    code.u1(L2I);
+                }
+                if (kind == Binder.FieldKind.SHORT) {
+                    code.u1(I2S);
+                } else if (kind == Binder.FieldKind.BYTE) {
+                    code.u1(I2B);
+                }
+            }
+            case DOUBLE, FLOAT -> {
+                code.u1(CHECKCAST).u2(pool.classRef(NUMBER)).u1(INVOKEVIRTUAL).u2(pool.methodRef(NUMBER, "doubleValue", "()D"));
+                if (kind == Binder.FieldKind.FLOAT) {
+                    code.u1(D2F);
+                }
+            }
+            case BOOLEAN -> {
+                code.u1(CHECKCAST).u2(pool.classRef("java/lang/Boolean"));
+                unbox(code, boolean.class);
+            }
+            default -> {
+                Class<?> primitive = primitiveOf(type);
+                if (primitive != null && primitive != boolean.class && primitive != char.class) {
+                    // Numbers are converted to the wrapper's type, like Binder.coerceNumeric does
+                    code.u1(CHECKCAST).u2(pool.classRef(NUMBER))
+                            .u1(INVOKEVIRTUAL).u2(pool.methodRef(NUMBER, primitive.getName() + "Value", "()" + descriptor(primitive)));
+                    box(code, primitive);
+                } else {
+                    code.u1(CHECKCAST).u2(pool.classRef(internalName(type)));
+                }
+            }
+        }
+    }
+
+    /** {@code documents.<method>(source or target, slot, value, document)}. */
+    private void callDocuments(Bytes code, String method, int slot) {
+        code.u1(ALOAD_3).u1(ALOAD_1);
+        pushInt(code, slot);
+        code.u1(ALOAD).u1(5).u1(ALOAD_2);
+        code.u1(INVOKEINTERFACE).u2(pool.memberRef(11, DOCUMENTS, method, "(Ljava/lang/Object;ILjava/lang/Object;Ljava/util/Map;)V")).u1(5).u1(0);
+    }
+
+    private void pushKey(Bytes code, int tag) {
+        pushInt(code, tag);
+        code.u1(INVOKESTATIC).u2(pool.methodRef("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"));
+    }
+
+    private void pushInt(Bytes code, int value) {
+        if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.u1(SIPUSH).u2(value);
+        } else {
+            code.u1(LDC_W).u2(pool.integer(value));
+        }
+    }
+
+    private void putIntoDocument(Bytes code) {
+        code.u1(INVOKEINTERFACE).u2(pool.memberRef(11, MAP, "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;")).u1(3).u1(0);
+        code.u1(POP);
+    }
+
+    /** Emits {@code opcode} with its offset left open for {@link Bytes#patchBranch}, and returns its position. */
+    private static int branch(Bytes code, int opcode) {
+        int position = code.size();
+        code.u1(opcode).u2(0);
+        return position;
+    }
+
+    /** Emits {@code tableswitch} on the slot argument; case offsets are patched by {@link #endSwitch}. */
+    private int[] switchOnSlot(Bytes code) {
+        int[] cases = new int[fields.length];
+        if (fields.length == 0) {
+            return cases;
+        }
+        code.u1(ILOAD_2).u1(TABLESWITCH);
+        while (code.size() % 4 != 0) {
+            code.u1(0);
+        }
+        code.u4(0).u4(0).u4(fields.length - 1);
+        for (int i = 0; i < fields.length; i++) {
+            code.u4(0);
+        }
+        return cases;
+    }
+
+    private void endSwitch(Bytes code, int[] cases) {
+        int defaultCase = code.size();
+        code.u1(NEW).u2(pool.classRef(EXCEPTION)).u1(DUP)
+                .u1(INVOKESPECIAL).u2(pool.methodRef(EXCEPTION, "<init>", "()V")).u1(ATHROW);
+        if (fields.length == 0) {
+            return;
+        }
+        int switchPos = 1;
+        int table = switchPos + 1;
+        while (table % 4 != 0) {
+            table++;
+        }
+        code.patch(table, defaultCase - switchPos);
+        for (int slot = 0; slot < cases.length; slot++) {
+            code.patch(table + 12 + slot * 4, (cases[slot] != 0 ? cases[slot] : defaultCase) - switchPos);
+        }
+    }
+
+    private void box(Bytes code, Class<?> primitive) {
+        String wrapper = internalName(wrapper(primitive));
+        code.u1(INVOKESTATIC).u2(pool.methodRef(wrapper, "valueOf", "(" + descriptor(primitive) + ")L" + wrapper + ";"));
+    }
+
+    private void unbox(Bytes code, Class<?> primitive) {
+        String wrapper = internalName(wrapper(primitive));
+        code.u1(INVOKEVIRTUAL).u2(pool.methodRef(wrapper, primitive.getName() + "Value", "()" + descriptor(primitive)));
+    }
+
+    private int fieldRef(Field field) {
+        return pool.memberRef(9, hostName, field.getName(), descriptor(field.getType()));
+    }
+
+    private void writeMethod(Bytes methods, int access, String name, String descriptor, Bytes code, int maxStack, int maxLocals) {
+        methods.u2(access).u2(pool.utf8(name)).u2(pool.utf8(descriptor)).u2(1);
+        methods.u2(pool.utf8("Code")).u4(2 + 2 + 4 + code.size() + 2 + 2);
+        methods.u2(maxStack).u2(maxLocals).u4(code.size()).put(code).u2(0).u2(0);
+    }
+
+    private static Class<?> primitiveOf(Class<?> wrapper) {
+        for (Primitive p : PRIMITIVES) {
+            if (p.wrapper == wrapper) {
+                return p.type;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        for (Primitive p : PRIMITIVES) {
+            if (p.type == primitive) {
+                return p.wrapper;
+            }
+        }
+        throw new IllegalArgumentException("Not a primitive: " + primitive);
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz.isArray() ? descriptor(clazz) : clazz.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> clazz) {
+        if (clazz == int.class) return "I";
+        if (clazz == long.class) return "J";
+        if (clazz == double.class) return "D";
+        if (clazz == float.class) return "F";
+        if (clazz == boolean.class) return "Z";
+        if (clazz == short.class) return "S";
+        if (clazz == byte.class) return "B";
+        if (clazz == char.class) return "C";
+        if (clazz.isArray()) return clazz.getName().replace('.', '/');
+        return "L" + clazz.getName().replace('.', '/') + ";";
+    }
+
+    private static final class ConstantPool {
+        private final Bytes bytes = new Bytes();
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            return entries.computeIfAbsent("U" + value, k -> {
+                bytes.u1(1).utf(value);
+                return count++;
+            });
+        }
+
+        int classRef(String internalName) {
+            int name = utf8(internalName);
+            return entries.computeIfAbsent("C" + internalName, k -> {
+                bytes.u1(7).u2(name);
+                return count++;
+            });
+        }
+
+        int integer(int value) {
+            return entries.computeIfAbsent("I" + value, k -> {
+                bytes.u1(3).u4(value);
+                return count++;
+            });
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        int memberRef(int tag, String owner, String name, String descriptor) {
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            int nameAndType = entries.computeIfAbsent("N" + name + ":" + descriptor, k -> {
+                bytes.u1(12).u2(nameIndex).u2(descriptorIndex);
+                return count++;
+            });
+            return entries.computeIfAbsent(tag + owner + "." + name + ":" + descriptor, k -> {
+                bytes.u1(tag).u2(ownerIndex).u2(nameAndType);
+                return count++;
+            });
+        }
+
+        void writeTo(Bytes out) {
+            out.u2(count).put(bytes);
+        }
+    }
+
+    private static final class Bytes extends ByteArrayOutputStream {
+
+        Bytes u1(int value) {
+            write(value);
+            return this;
+        }
+
+        Bytes u2(int value) {
+            write(value >>> 8);
+            write(value);
+            return this;
+        }
+
+        Bytes u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        Bytes utf(String value) {
+            byte[] encoded = value.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            u2(encoded.length);
+            write(encoded, 0, encoded.length);
+            return this;
+        }
+
+        Bytes put(Bytes other) {
+            write(other.buf, 0, other.count);
+            return this;
+        }
+
+        /** Points the branch at {@code position} to the end of the code written so far. */
+        void patchBranch(int position) {
+            int offset = count - position;
+            buf[position + 1] = (byte) (offset >>> 8);
+            buf[position + 2] = (byte) offset;
+        }
+
+        void patch(int position, int value) {
+            buf[position] = (byte) (value >>> 24);
+            buf[position + 1] = (byte) (value >>> 16);
+            buf[position + 2] = (byte) (value >>> 8);
+            buf[position + 3] = (byte) value;
+        }
+    }
+}
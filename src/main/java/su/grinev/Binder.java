@@ -3,6 +3,7 @@ package su.grinev;
 import annotation.Type;
 import annotation.Tag;
 import annotation.Transient;
+import lombok.extern.slf4j.Slf4j;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
@@ -18,52 +19,349 @@ import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+@Slf4j
 public class Binder {
 
     public enum ClassNameMode { FULL_NAME, SIMPLE_NAME }
 
     private final ClassNameMode classNameMode;
+    private final boolean generatedAccessors;
 
     public Binder(ClassNameMode classNameMode) {
+        this(classNameMode, false);
+    }
+
+    /**
+     * @param generatedAccessors access fields through a hidden class generated per bound class
+     *                           instead of {@link VarHandle}s, see {@link #schema}
+     */
+    public Binder(ClassNameMode classNameMode, boolean generatedAccessors) {
         this.classNameMode = classNameMode;
+        this.generatedAccessors = generatedAccessors;
     }
 
-    enum FieldKind { PRIMITIVE, ENUM, COLLECTION, MAP, TYPE, NESTED }
+    /**
+     * INT..CHAR are primitive fields read and written through typed accessors without boxing;
+     * PRIMITIVE covers the remaining scalars (wrappers, String, Instant, arrays, ...).
+     */
+    public enum FieldKind { INT, LONG, DOUBLE, FLOAT, BOOLEAN, SHORT, BYTE, CHAR, PRIMITIVE, ENUM, COLLECTION, MAP, TYPE, NESTED }
 
-    static final class FieldBinding {
-        final int tag;
+    public static final class FieldBinding {
+        public final int tag;
+        public final String name;             // field name, the key in text formats
         final VarHandle handle;
-        final FieldKind kind;
-        final Class<?> fieldType;
-        final java.lang.reflect.Type genericType;
-        final int discriminator; // -1 if not BSON_TYPE
-
-        FieldBinding(int tag, VarHandle handle, FieldKind kind, Class<?> fieldType, java.lang.reflect.Type genericType, int discriminator) {
+        public final FieldKind kind;
+        public final Class<?> fieldType;
+        public final java.lang.reflect.Type genericType;
+        public final int discriminator; // -1 if not BSON_TYPE
+        private final FieldAccessor accessor;
+        private final int slot;
+
+        FieldBinding(int tag, String name, VarHandle handle, FieldKind kind, Class<?> fieldType, java.lang.reflect.Type genericType, int discriminator,
+                     FieldAccessor accessor, int slot) {
             this.tag = tag;
+            this.name = name != null ? name : String.valueOf(tag);
             this.handle = handle;
             this.kind = kind;
             this.fieldType = fieldType;
             this.genericType = genericType;
             this.discriminator = discriminator;
+            this.accessor = accessor;
+            this.slot = slot;
+        }
+
+        /**
+         * Binding for generated schemas, which have no {@link VarHandle}; the kind is derived
+         * from the field type and a non-negative {@code discriminator} marks a {@code @Type} field.
+         */
+        public static FieldBinding of(String name, int tag, Class<?> fieldType, java.lang.reflect.Type genericType, int discriminator,
+                                      FieldAccessor accessor, int slot) {
+            return new FieldBinding(tag, name, null, resolveKind(fieldType, discriminator >= 0), fieldType, genericType, discriminator, accessor, slot);
+        }
+
+        /** Binding without a field name, for schemas generated before names were recorded; the tag stands in for it. */
+        public static FieldBinding of(int tag, Class<?> fieldType, java.lang.reflect.Type genericType, int discriminator,
+                                      FieldAccessor accessor, int slot) {
+            return of(null, tag, fieldType, genericType, discriminator, accessor, slot);
+        }
+
+        public Object get(Object target) {
+            return accessor.get(target, slot);
+        }
+
+        public int getInt(Object target) {
+            return accessor.getInt(target, slot);
+        }
+
+        public long getLong(Object target) {
+            return accessor.getLong(target, slot);
+        }
+
+        public double getDouble(Object target) {
+            return accessor.getDouble(target, slot);
+        }
+
+        public float getFloat(Object target) {
+            return accessor.getFloat(target, slot);
+        }
+
+        public boolean getBoolean(Object target) {
+            return accessor.getBoolean(target, slot);
+        }
+
+        public short getShort(Object target) {
+            return accessor.getShort(target, slot);
+        }
+
+        public byte getByte(Object target) {
+            return accessor.getByte(target, slot);
+        }
+
+        public void set(Object target, Object value) {
+            accessor.set(target, slot, value);
+        }
+
+        public char getChar(Object target) {
+            return accessor.getChar(target, slot);
+        }
+
+        public void setLong(Object target, long value) {
+            switch (kind) {
+                case LONG -> accessor.setLong(target, slot, value);
+                case INT -> accessor.setInt(target, slot, (int) value);
+                case DOUBLE -> accessor.setDouble(target, slot, value);
+                case FLOAT -> accessor.setFloat(target, slot, value);
+                case SHORT -> accessor.setShort(target, slot, (short) value);
+                case BYTE -> accessor.setByte(target, slot, (byte) value);
+                default -> {
+                    if (fieldType == Long.class) accessor.setLong(target, slot, value);
+                    else if (fieldType == Integer.class) accessor.setInt(target, slot, (int) value);
+                    else if (fieldType == Double.class) accessor.setDouble(target, slot, (double) value);
+                    else if (fieldType == Float.class) accessor.setFloat(target, slot, (float) value);
+                    else if (fieldType == Short.class) accessor.setShort(target, slot, (short) value);
+                    else if (fieldType == Byte.class) accessor.setByte(target, slot, (byte) value);
+                    else accessor.set(target, slot, value);
+                }
+            }
+        }
+
+        public void setDouble(Object target, double value) {
+            switch (kind) {
+                case DOUBLE -> accessor.setDouble(target, slot, value);
+                case FLOAT -> accessor.setFloat(target, slot, (float) value);
+                case LONG -> accessor.setLong(target, slot, (long) value);
+                case INT -> accessor.setInt(target, slot, (int) value);
+                case SHORT -> accessor.setShort(target, slot, (short) value);
+                case BYTE -> accessor.setByte(target, slot, (byte) value);
+                default -> {
+                    if (fieldType == Double.class) accessor.setDouble(target, slot, value);
+                    else if (fieldType == Float.class) accessor.setFloat(target, slot, (float) value);
+                    else if (fieldType == Long.class) accessor.setLong(target, slot, (long) value);
+                    else if (fieldType == Integer.class) accessor.setInt(target, slot, (int) value);
+                    else if (fieldType == Short.class) accessor.setShort(target, slot, (short) value);
+                    else if (fieldType == Byte.class) accessor.setByte(target, slot, (byte) value);
+                    else accessor.set(target, slot, value);
+                }
+            }
+        }
+
+        public void setBoolean(Object target, boolean value) {
+            if (kind == FieldKind.BOOLEAN || fieldType == Boolean.class) accessor.setBoolean(target, slot, value);
+            else accessor.set(target, slot, value);
+        }
+
+        public void setChar(Object target, char value) {
+            accessor.setChar(target, slot, value);
+        }
+
+        public void setInstant(Object target, Instant value) {
+            accessor.set(target, slot, fieldType == LocalDateTime.class ? LocalDateTime.ofInstant(value, ZoneOffset.UTC) : value);
+        }
+
+        /** Key that carries the class name of a {@code @Type} field in text formats. */
+        public String typeKey() {
+            return "@" + name;
         }
     }
 
-    static final class ClassSchema {
+    /**
+     * Bindings of one class. The arrays are shared by every reader and writer, so other packages
+     * see them only through the read methods below.
+     */
+    public static final class ClassSchema {
         final FieldBinding[] bindings;   // for iteration in unbind()
         final FieldBinding[] tagLookup;  // tag-indexed array for O(1) lookup in bind()
-
-        ClassSchema(FieldBinding[] bindings, FieldBinding[] tagLookup) {
+        // For text formats: field names map to their index in bindings, and the type key of the
+        // i-th @Type field maps to bindings.length + i, with typeKeyOwners[i] its binding index
+        final FieldNameIndex nameLookup;
+        final int[] typeKeyOwners;
+        // Slots (see names()) in the order unbind() puts them into a document, and that order
+        // as its HashMap root iterates them with 16, 32, ... buckets
+        final KeyOrder keyOrder;
+        final KeyOrder[] rootKeyOrders;
+        final ClassBinder classBinder; // generated bind()/unbind() of the class, or null
+
+        ClassSchema(FieldBinding[] bindings, FieldBinding[] tagLookup, ClassBinder classBinder) {
             this.bindings = bindings;
             this.tagLookup = tagLookup;
+            this.classBinder = classBinder;
+            List<String> names = new ArrayList<>();
+            List<Integer> owners = new ArrayList<>();
+            for (FieldBinding binding : bindings) {
+                names.add(binding.name);
+            }
+            for (int i = 0; i < bindings.length; i++) {
+                if (bindings[i].kind == FieldKind.TYPE) {
+                    names.add(bindings[i].typeKey());
+                    owners.add(i);
+                }
+            }
+            this.nameLookup = new FieldNameIndex(names.toArray(new String[0]));
+            this.typeKeyOwners = owners.stream().mapToInt(Integer::intValue).toArray();
+
+            int[] slots = new int[bindings.length + typeKeyOwners.length];
+            for (int i = 0, j = 0, k = 0; i < bindings.length; i++) {
+                if (bindings[i].kind == FieldKind.TYPE) {
+                    slots[k++] = bindings.length + j++;
+                }
+                slots[k++] = i;
+            }
+            this.keyOrder = new KeyOrder(slots);
+            this.rootKeyOrders = new KeyOrder[hashTable(slots.length) + 1];
+            for (int table = 0; table < rootKeyOrders.length; table++) {
+                int mask = (16 << table) - 1;
+                // HashMap iterates by bucket, and a bucket in insertion order; sorted() is stable
+                rootKeyOrders[table] = new KeyOrder(Arrays.stream(slots).boxed()
+                        .sorted(Comparator.comparingInt(slot -> {
+                            int h = slot < bindings.length ? bindings[slot].tag : bindings[typeKeyOwners[slot - bindings.length]].discriminator;
+                            return (h ^ (h >>> 16)) & mask;
+                        }))
+                        .mapToInt(Integer::intValue)
+                        .toArray());
+            }
+        }
+
+        /** Index of the table size, 16 << index, that a default {@link HashMap} grows to for {@code keys} entries. */
+        private static int hashTable(int keys) {
+            int table = 0;
+            while (keys > (16 << table) * 3 / 4) {
+                table++;
+            }
+            return table;
+        }
+
+        public static ClassSchema of(Class<?> clazz, FieldBinding... bindings) {
+            return of(clazz, null, bindings);
+        }
+
+        static ClassSchema of(Class<?> clazz, ClassBinder classBinder, FieldBinding... bindings) {
+            int maxTag = -1;
+            for (FieldBinding binding : bindings) {
+                maxTag = Math.max(maxTag, binding.tag);
+            }
+
+            // Check for duplicate tags
+            FieldBinding[] tagLookup = new FieldBinding[maxTag + 1];
+            for (FieldBinding binding : bindings) {
+                if (tagLookup[binding.tag] != null) {
+                    throw new IllegalArgumentException(
+                            "Duplicate tag value " + binding.tag + " in class '" + clazz.getName() + "'");
+                }
+                tagLookup[binding.tag] = binding;
+            }
+
+            return new ClassSchema(bindings, tagLookup, classBinder);
+        }
+
+        /** Number of bindings. */
+        public int size() {
+            return bindings.length;
+        }
+
+        /** Binding at {@code index} in declaration order. */
+        public FieldBinding binding(int index) {
+            return bindings[index];
+        }
+
+        /** Binding with the given tag, or {@code null} if the class has none. */
+        public FieldBinding byTag(int tag) {
+            return tag >= 0 && tag < tagLookup.length ? tagLookup[tag] : null;
+        }
+
+        /** Field names, then the type keys of the {@code @Type} fields from index {@link #size()} on. */
+        public FieldNameIndex names() {
+            return nameLookup;
+        }
+
+        /** Index of the binding that owns the type key at {@code size() + i} in {@link #names()}. */
+        public int typeKeyOwner(int i) {
+            return typeKeyOwners[i];
+        }
+
+        /** Slots in the order {@link Binder#unbind} writes a nested document: each type key right before its field. */
+        public KeyOrder keyOrder() {
+            return keyOrder;
+        }
+
+        /**
+         * Slots in the order {@link Binder#unbind} writes {@code o} as the root document, whose
+         * {@link HashMap} iterates by key hash. Direct writers follow it to produce the same bytes.
+         */
+        public KeyOrder rootKeyOrder(Object o) {
+            return rootKeyOrders.length == 1 ? rootKeyOrders[0] : rootKeyOrder(countKeys(o));
+        }
+
+        /** {@link #rootKeyOrder(Object)} of an object with {@code keys} keys, see {@link #countKeys}. */
+        public KeyOrder rootKeyOrder(int keys) {
+            return rootKeyOrders[Math.min(hashTable(keys), rootKeyOrders.length - 1)];
+        }
+
+        /** Keys {@link Binder#unbind} writes for {@code o}: every primitive and set field, and the type key of a set {@code @Type} field. */
+        public int countKeys(Object o) {
+            int count = 0;
+            for (FieldBinding binding : bindings) {
+                if (binding.fieldType.isPrimitive()) {
+                    count++;
+                } else if (binding.get(o) != null) {
+                    count += binding.kind == FieldKind.TYPE ? 2 : 1;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Key slots of a {@link ClassSchema} in write order. Slot {@code i < schema.size()} is the field
+     * of {@code schema.binding(i)}, slot {@code schema.size() + j} is the type key of
+     * {@code schema.binding(schema.typeKeyOwner(j))}.
+     */
+    public static final class KeyOrder {
+        private final int[] slots;
+
+        KeyOrder(int[] slots) {
+            this.slots = slots;
+        }
+
+        public int size() {
+            return slots.length;
+        }
+
+        public int slot(int i) {
+            return slots[i];
         }
     }
 
     private static final Map<Class<?>, ClassSchema> schemaCache = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ClassSchema> generatedSchemaCache = new ConcurrentHashMap<>();
     private static final Map<Class<?>, MethodHandle> ctorCache = new ConcurrentHashMap<>();
     private static final Map<String, Class<?>> classNameRegistry = new ConcurrentHashMap<>();
     private static final Set<String> knownPackages = ConcurrentHashMap.newKeySet();
     private static final Class<?> AMBIGUOUS = Binder.class;
 
+    public boolean isGeneratedAccessors() {
+        return generatedAccessors;
+    }
+
     public static void registerClass(Class<?>... classes) {
         for (Class<?> clazz : classes) {
             classNameRegistry.put(clazz.getName(), clazz);
@@ -76,7 +374,7 @@ public class Binder {
         }
     }
 
-    static Class<?> resolveClass(String name) throws ClassNotFoundException {
+    public static Class<?> resolveClass(String name) throws ClassNotFoundException {
         Class<?> cached = classNameRegistry.get(name);
         if (cached != null && cached != AMBIGUOUS) return cached;
         if (name.indexOf('.') >= 0) return Class.forName(name);
@@ -95,19 +393,22 @@ public class Binder {
         Object rootObject = instantiate(tClass);
         ArrayDeque<BinderContext> stack = new ArrayDeque<>();
         stack.addLast(new BinderContext(rootObject, document.getDocumentMap(), tClass));
+        StackDocuments documents = new StackDocuments(stack);
 
         while (!stack.isEmpty()) {
             BinderContext ctx = stack.removeLast();
 
             if (ctx.o instanceof Map targetMap && ctx.document instanceof Map<?, ?> docMap) {
-                targetMap.putAll(docMap);
+                docMap.forEach((k, v) -> targetMap.put(k, v instanceof LazyUtf8 lazy ? lazy.toString() : v));
                 continue;
             }
 
             if (ctx.o instanceof Collection<?> collection && ctx.document instanceof List<?> listData) {
                 java.lang.reflect.Type itemType = resolveListItemType(ctx.type);
                 for (Object rawItem : listData) {
-                    if (isPrimitiveOrWrapperOrString(rawItem.getClass())) {
+                    if (rawItem instanceof LazyUtf8 lazy) {
+                        ((Collection<Object>) collection).add(lazy.toString());
+                    } else if (isPrimitiveOrWrapperOrString(rawItem.getClass())) {
                         ((Collection<Object>) collection).add(rawItem);
                     } else if (rawItem instanceof Map<?, ?> mapItem) {
                         Class<?> itemClass = resolveClassFromType(itemType);
@@ -119,52 +420,20 @@ public class Binder {
                 continue;
             }
 
-            ClassSchema schema = getSchema(ctx.o.getClass());
-            Map<Integer, Object> documentMap = (Map<Integer, Object>) ctx.document;
+            ClassSchema schema = schema(ctx.o.getClass());
+            Map<Object, Object> documentMap = (Map<Object, Object>) ctx.document;
+            if (schema.classBinder != null) {
+                schema.classBinder.bind(ctx.o, documentMap, documents);
+                continue;
+            }
             FieldBinding[] tagLookup = schema.tagLookup;
 
-            for (Map.Entry<Integer, Object> entry : documentMap.entrySet()) {
-                int key = entry.getKey();
+            for (Map.Entry<Object, Object> entry : documentMap.entrySet()) {
+                int key = (Integer) entry.getKey();
                 if (key < 0 || key >= tagLookup.length) continue;
                 FieldBinding binding = tagLookup[key];
                 if (binding == null) continue;
-
-                Object value = entry.getValue();
-
-                try {
-                    switch (binding.kind) {
-                        case PRIMITIVE -> binding.handle.set(ctx.o, coerceNumeric(binding.fieldType, value));
-                        case ENUM -> {
-                            Enum<?> enumValue = Enum.valueOf((Class<Enum>) binding.fieldType, value.toString());
-                            binding.handle.set(ctx.o, enumValue);
-                        }
-                        case COLLECTION -> {
-                            Collection<Object> target = instantiateCollection(binding.fieldType);
-                            binding.handle.set(ctx.o, target);
-                            stack.addLast(new BinderContext(target, value, binding.genericType));
-                        }
-                        case MAP -> {
-                            Map<Object, Object> targetMap = new HashMap<>();
-                            binding.handle.set(ctx.o, targetMap);
-                            stack.addLast(new BinderContext(targetMap, value, binding.genericType));
-                        }
-                        case TYPE -> {
-                            String className = (String) documentMap.get(binding.discriminator);
-                            Class<?> targetCls = resolveClass(className);
-                            Object newObject = instantiate(targetCls);
-                            binding.handle.set(ctx.o, newObject);
-                            stack.addLast(new BinderContext(newObject, value, targetCls));
-                        }
-                        case NESTED -> {
-                            Class<?> targetCls = binding.fieldType;
-                            Object newObject = instantiate(targetCls);
-                            binding.handle.set(ctx.o, newObject);
-                            stack.addLast(new BinderContext(newObject, value, targetCls));
-                        }
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to bind tag: " + key, e);
-                }
+                bindField(ctx.o, binding, entry.getValue(), documentMap, stack);
             }
         }
 
@@ -175,55 +444,22 @@ public class Binder {
         Map<Object, Object> rootDocument = new HashMap<>();
         ArrayDeque<BinderContext> stack = new ArrayDeque<>();
         stack.addLast(new BinderContext(o, rootDocument, o.getClass()));
+        StackDocuments documents = new StackDocuments(stack);
 
         while (!stack.isEmpty()) {
             BinderContext ctx = stack.removeLast();
-            Map<Integer, Object> currentDocument = (Map<Integer, Object>) ctx.document;
-            ClassSchema schema = getSchema(ctx.o.getClass());
+            Map<Object, Object> currentDocument = (Map<Object, Object>) ctx.document;
+            ClassSchema schema = schema(ctx.o.getClass());
 
             try {
+                if (schema.classBinder != null) {
+                    schema.classBinder.unbind(ctx.o, currentDocument, documents);
+                    continue;
+                }
                 for (FieldBinding binding : schema.bindings) {
-                    Object fieldValue = binding.handle.get(ctx.o);
+                    Object fieldValue = binding.get(ctx.o);
                     if (fieldValue == null) continue;
-
-                    int tag = binding.tag;
-                    switch (binding.kind) {
-                        case PRIMITIVE -> currentDocument.put(tag, fieldValue);
-                        case ENUM -> currentDocument.put(tag, fieldValue.toString());
-                        case TYPE -> {
-                            Map<Integer, Object> nested = new LinkedHashMap<>();
-                            String className = classNameMode == ClassNameMode.SIMPLE_NAME
-                                    ? fieldValue.getClass().getSimpleName()
-                                    : fieldValue.getClass().getName();
-                            currentDocument.put(binding.discriminator, className);
-                            currentDocument.put(tag, nested);
-                            stack.addLast(new BinderContext(fieldValue, nested, fieldValue.getClass()));
-                        }
-                        case COLLECTION -> {
-                            List<Object> serialized = new ArrayList<>();
-                            currentDocument.put(tag, serialized);
-                            for (Object item : (Collection<?>) fieldValue) {
-                                if (isPrimitiveOrWrapperOrString(item.getClass()) || item.getClass().isEnum()) {
-                                    serialized.add(item.toString());
-                                } else {
-                                    Map<Integer, Object> nested = new LinkedHashMap<>();
-                                    serialized.add(nested);
-                                    stack.addLast(new BinderContext(item, nested, item.getClass()));
-                                }
-                            }
-                        }
-                        case MAP -> {
-                            Map<Integer, Object> nestedMap = new LinkedHashMap<>();
-                            currentDocument.put(tag, nestedMap);
-                            Map<?, ?> sourceMap = (Map<?, ?>) fieldValue;
-                            sourceMap.forEach((k, v) -> nestedMap.put(((Number) k).intValue(), v));
-                        }
-                        case NESTED -> {
-                            Map<Integer, Object> nested = new LinkedHashMap<>();
-                            currentDocument.put(tag, nested);
-                            stack.addLast(new BinderContext(fieldValue, nested, fieldValue.getClass()));
-                        }
-                    }
+                    unbindField(binding, fieldValue, currentDocument, stack);
                 }
             } catch (RuntimeException e) {
                 throw e;
@@ -235,7 +471,113 @@ public class Binder {
         return new BinaryDocument(rootDocument, 0);
     }
 
-    private static Object instantiate(Class<?> clazz) {
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void bindField(Object target, FieldBinding binding, Object value, Map<Object, Object> documentMap, ArrayDeque<BinderContext> stack) {
+        try {
+            switch (binding.kind) {
+                case INT, LONG, SHORT, BYTE -> binding.setLong(target, ((Number) value).longValue());
+                case DOUBLE, FLOAT -> binding.setDouble(target, ((Number) value).doubleValue());
+                case BOOLEAN -> binding.setBoolean(target, (Boolean) value);
+                case CHAR, PRIMITIVE -> binding.set(target, coerceNumeric(binding.fieldType, value));
+                case ENUM -> {
+                    Enum<?> enumValue = Enum.valueOf((Class<Enum>) binding.fieldType, value.toString());
+                    binding.set(target, enumValue);
+                }
+                case COLLECTION -> {
+                    Collection<Object> collection = instantiateCollection(binding.fieldType);
+                    binding.set(target, collection);
+                    stack.addLast(new BinderContext(collection, value, binding.genericType));
+                }
+                case MAP -> {
+                    Map<Object, Object> targetMap = new HashMap<>();
+                    binding.set(target, targetMap);
+                    stack.addLast(new BinderContext(targetMap, value, binding.genericType));
+                }
+                case TYPE -> {
+                    String className = documentMap.get(binding.discriminator).toString();
+                    Class<?> targetCls = resolveClass(className);
+                    Object newObject = instantiate(targetCls);
+                    binding.set(target, newObject);
+                    stack.addLast(new BinderContext(newObject, value, targetCls));
+                }
+                case NESTED -> {
+                    Class<?> targetCls = binding.fieldType;
+                    Object newObject = instantiate(targetCls);
+                    binding.set(target, newObject);
+                    stack.addLast(new BinderContext(newObject, value, targetCls));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to bind tag: " + binding.tag, e);
+        }
+    }
+
+    private void unbindField(FieldBinding binding, Object fieldValue, Map<Object, Object> document, ArrayDeque<BinderContext> stack) {
+        int tag = binding.tag;
+        switch (binding.kind) {
+            case INT, LONG, DOUBLE, FLOAT, BOOLEAN, SHORT, BYTE, CHAR, PRIMITIVE -> document.put(tag, fieldValue);
+            case ENUM -> document.put(tag, fieldValue.toString());
+            case TYPE -> {
+                Map<Integer, Object> nested = new LinkedHashMap<>();
+                String className = getClassName(fieldValue.getClass());
+                document.put(binding.discriminator, className);
+                document.put(tag, nested);
+                stack.addLast(new BinderContext(fieldValue, nested, fieldValue.getClass()));
+            }
+            case COLLECTION -> {
+                List<Object> serialized = new ArrayList<>();
+                document.put(tag, serialized);
+                for (Object item : (Collection<?>) fieldValue) {
+                    if (isPrimitiveOrWrapperOrString(item.getClass()) || item.getClass().isEnum()) {
+                        serialized.add(item.toString());
+                    } else {
+                        Map<Integer, Object> nested = new LinkedHashMap<>();
+                        serialized.add(nested);
+                        stack.addLast(new BinderContext(item, nested, item.getClass()));
+                    }
+                }
+            }
+            case MAP -> {
+                Map<Integer, Object> nestedMap = new LinkedHashMap<>();
+                document.put(tag, nestedMap);
+                Map<?, ?> sourceMap = (Map<?, ?>) fieldValue;
+                sourceMap.forEach((k, v) -> nestedMap.put(((Number) k).intValue(), v));
+            }
+            case NESTED -> {
+                Map<Integer, Object> nested = new LinkedHashMap<>();
+                document.put(tag, nested);
+                stack.addLast(new BinderContext(fieldValue, nested, fieldValue.getClass()));
+            }
+        }
+    }
+
+    /** Lets a generated {@link ClassBinder} push the documents of nested values onto the caller's stack. */
+    private final class StackDocuments implements ClassBinder.Documents {
+        private final ArrayDeque<BinderContext> stack;
+
+        StackDocuments(ArrayDeque<BinderContext> stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public void unbind(Object source, int slot, Object value, Map<Object, Object> document) {
+            unbindField(schema(source.getClass()).bindings[slot], value, document, stack);
+        }
+
+        @Override
+        public void bind(Object target, int slot, Object value, Map<Object, Object> document) {
+            bindField(target, schema(target.getClass()).bindings[slot], value, document, stack);
+        }
+    }
+
+    public static Object instantiate(Class<?> clazz) {
+        SchemaProvider provider = GeneratedSchemas.get(clazz);
+        if (provider != null) {
+            Object instance = provider.newInstance();
+            if (instance != null) {
+                return instance;
+            }
+        }
         try {
             MethodHandle ctor = ctorCache.computeIfAbsent(clazz, c -> {
                 try {
@@ -253,7 +595,7 @@ public class Binder {
         }
     }
 
-    private Collection<Object> instantiateCollection(Class<?> type) {
+    public static Collection<Object> instantiateCollection(Class<?> type) {
         if (type.isAssignableFrom(List.class) || type.isAssignableFrom(ArrayList.class)) {
             return new ArrayList<>();
         }
@@ -266,12 +608,26 @@ public class Binder {
         throw new UnsupportedOperationException("Unsupported collection type: " + type);
     }
 
-    private static ClassSchema getSchema(Class<?> clazz) {
-        return schemaCache.computeIfAbsent(clazz, Binder::buildSchema);
+    /** Schema with {@link VarHandle} field access, or the compile-time one when there is one. */
+    static ClassSchema getSchema(Class<?> clazz) {
+        return schemaCache.computeIfAbsent(clazz, c -> buildSchema(c, false));
+    }
+
+    /**
+     * Schema with the field access this binder was created with. Binders share their schemas,
+     * one set per kind of access; compile-time schemas are used by both.
+     */
+    public ClassSchema schema(Class<?> clazz) {
+        return generatedAccessors ? generatedSchemaCache.computeIfAbsent(clazz, c -> buildSchema(c, true)) : getSchema(clazz);
     }
 
-    private static ClassSchema buildSchema(Class<?> clazz) {
+    private static ClassSchema buildSchema(Class<?> clazz, boolean generatedAccessors) {
         registerClass(clazz);
+        SchemaProvider provider = GeneratedSchemas.get(clazz);
+        if (provider != null) {
+            return provider.createSchema();
+        }
+
         MethodHandles.Lookup lookup;
         try {
             lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
@@ -279,9 +635,7 @@ public class Binder {
             throw new RuntimeException(e);
         }
 
-        List<FieldBinding> bindingList = new ArrayList<>();
-        int maxTag = -1;
-
+        List<Field> fields = new ArrayList<>();
         for (Field field : clazz.getDeclaredFields()) {
             if (field.isAnnotationPresent(Transient.class)) {
                 continue;
@@ -297,52 +651,64 @@ public class Binder {
                         "Tag value for field '" + field.getName() + "' in class '" + clazz.getName()
                                 + "' must be non-negative, got " + tag.value());
             }
+            fields.add(field);
+        }
 
-            VarHandle handle;
+        VarHandle[] handles = new VarHandle[fields.size()];
+        for (int i = 0; i < handles.length; i++) {
+            Field field = fields.get(i);
             try {
-                handle = lookup.findVarHandle(clazz, field.getName(), field.getType());
+                handles[i] = lookup.findVarHandle(clazz, field.getName(), field.getType());
             } catch (NoSuchFieldException | IllegalAccessException e) {
                 throw new RuntimeException(e);
             }
+        }
+        FieldAccessor accessor = createAccessor(lookup, clazz, fields.toArray(new Field[0]), handles, generatedAccessors);
+
+        FieldBinding[] bindings = new FieldBinding[handles.length];
+        for (int i = 0; i < handles.length; i++) {
+            Field field = fields.get(i);
+            Type type = field.getAnnotation(Type.class);
+            bindings[i] = new FieldBinding(field.getAnnotation(Tag.class).value(), field.getName(), handles[i], resolveKind(field.getType(), type != null),
+                    field.getType(), field.getGenericType(), type != null ? type.discriminator() : -1, accessor, i);
+        }
 
-            FieldKind kind;
-            int bsonDiscriminator = -1;
-            Class<?> fieldType = field.getType();
-
-            if (isPrimitiveOrWrapperOrString(fieldType)) {
-                kind = FieldKind.PRIMITIVE;
-            } else if (fieldType.isEnum()) {
-                kind = FieldKind.ENUM;
-            } else if (Collection.class.isAssignableFrom(fieldType)) {
-                kind = FieldKind.COLLECTION;
-            } else if (Map.class.isAssignableFrom(fieldType)) {
-                kind = FieldKind.MAP;
-            } else if (field.isAnnotationPresent(Type.class)) {
-                kind = FieldKind.TYPE;
-                bsonDiscriminator = field.getAnnotation(Type.class).discriminator();
-            } else {
-                kind = FieldKind.NESTED;
-            }
-
-            FieldBinding binding = new FieldBinding(tag.value(), handle, kind, fieldType, field.getGenericType(), bsonDiscriminator);
-            bindingList.add(binding);
+        return ClassSchema.of(clazz, accessor instanceof ClassBinder classBinder ? classBinder : null, bindings);
+    }
 
-            if (tag.value() > maxTag) {
-                maxTag = tag.value();
-            }
+    static FieldKind resolveKind(Class<?> fieldType, boolean typed) {
+        if (fieldType.isPrimitive()) {
+            if (fieldType == int.class) return FieldKind.INT;
+            if (fieldType == long.class) return FieldKind.LONG;
+            if (fieldType == double.class) return FieldKind.DOUBLE;
+            if (fieldType == float.class) return FieldKind.FLOAT;
+            if (fieldType == boolean.class) return FieldKind.BOOLEAN;
+            if (fieldType == short.class) return FieldKind.SHORT;
+            if (fieldType == byte.class) return FieldKind.BYTE;
+            return FieldKind.CHAR;
+        } else if (isPrimitiveOrWrapperOrString(fieldType)) {
+            return FieldKind.PRIMITIVE;
+        } else if (fieldType.isEnum()) {
+            return FieldKind.ENUM;
+        } else if (Collection.class.isAssignableFrom(fieldType)) {
+            return FieldKind.COLLECTION;
+        } else if (Map.class.isAssignableFrom(fieldType)) {
+            return FieldKind.MAP;
+        } else if (typed) {
+            return FieldKind.TYPE;
         }
+        return FieldKind.NESTED;
+    }
 
-        // Check for duplicate tags
-        FieldBinding[] tagLookup = new FieldBinding[maxTag + 1];
-        for (FieldBinding binding : bindingList) {
-            if (tagLookup[binding.tag] != null) {
-                throw new IllegalArgumentException(
-                        "Duplicate tag value " + binding.tag + " in class '" + clazz.getName() + "'");
+    private static FieldAccessor createAccessor(MethodHandles.Lookup lookup, Class<?> clazz, Field[] fields, VarHandle[] handles, boolean generatedAccessors) {
+        if (generatedAccessors && !clazz.isHidden()) {
+            try {
+                return AccessorGenerator.generate(lookup, clazz, fields);
+            } catch (Throwable e) {
+                log.warn("Falling back to VarHandle access for {}: {}", clazz.getName(), e.toString());
             }
-            tagLookup[binding.tag] = binding;
         }
-
-        return new ClassSchema(bindingList.toArray(new FieldBinding[0]), tagLookup);
+        return new VarHandleAccessor(handles);
     }
 
     public static boolean isPrimitiveOrWrapperOrString(Class<?> type) {
@@ -392,21 +758,79 @@ public class Binder {
         if (value instanceof Instant inst && targetType == LocalDateTime.class) {
             return LocalDateTime.ofInstant(inst, ZoneOffset.UTC);
         }
+        if (value instanceof LazyUtf8 lazy) {
+            return lazy.toString();
+        }
         return value;
     }
 
-    private java.lang.reflect.Type resolveListItemType(java.lang.reflect.Type listType) {
+    public static java.lang.reflect.Type resolveListItemType(java.lang.reflect.Type listType) {
         if (listType instanceof ParameterizedType pt) {
             return pt.getActualTypeArguments()[0];
         }
         return Object.class;
     }
 
-    private Class<?> resolveClassFromType(java.lang.reflect.Type type) {
+    /**
+     * Minimal {@link ParameterizedType} so generated schemas can describe collection item types
+     * without reflecting on the field.
+     */
+    public static java.lang.reflect.Type parameterizedType(Class<?> rawType, java.lang.reflect.Type... arguments) {
+        return new GeneratedParameterizedType(rawType, arguments);
+    }
+
+    public static Class<?> resolveClassFromType(java.lang.reflect.Type type) {
         if (type instanceof Class<?> c) return c;
         if (type instanceof ParameterizedType pt) return (Class<?>) pt.getRawType();
         throw new IllegalArgumentException("Unknown type: " + type);
     }
 
+    public String getClassName(Class<?> clazz) {
+        return classNameMode == ClassNameMode.SIMPLE_NAME ? clazz.getSimpleName() : clazz.getName();
+    }
+
     private record BinderContext(Object o, Object document, java.lang.reflect.Type type) {}
+
+    private record GeneratedParameterizedType(Class<?> rawType, java.lang.reflect.Type[] arguments) implements ParameterizedType {
+        @Override
+        public java.lang.reflect.Type[] getActualTypeArguments() {
+            return arguments.clone();
+        }
+
+        @Override
+        public java.lang.reflect.Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public java.lang.reflect.Type getOwnerType() {
+            return rawType.getDeclaringClass();
+        }
+    }
+
+    /** Compile-time schemas registered as {@link SchemaProvider} services, loaded on first use. */
+    private static final class GeneratedSchemas {
+        private static final Map<Class<?>, SchemaProvider> providers = load();
+
+        static SchemaProvider get(Class<?> clazz) {
+            return providers.isEmpty() ? null : providers.get(clazz);
+        }
+
+        private static Map<Class<?>, SchemaProvider> load() {
+            Map<Class<?>, SchemaProvider> loaded = new HashMap<>();
+            Iterator<SchemaProvider> iterator = ServiceLoader.load(SchemaProvider.class).iterator();
+            while (true) {
+                try {
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    SchemaProvider provider = iterator.next();
+                    loaded.put(provider.type(), provider);
+                } catch (ServiceConfigurationError e) {
+                    log.warn("Skipping generated schema: {}", e.getMessage());
+                }
+            }
+            return loaded;
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package su.grinev;
+
+import java.util.Map;
+
+/**
+ * {@link Binder#unbind} and {@link Binder#bind} for one class as straight-line code, one block
+ * per field with the tag, conversion and {@code getfield}/{@code putfield} fixed at generation
+ * time. A {@link Binder} created with generated accessors gets one per class from
+ * {@link AccessorGenerator}; it is public only because the generated class lives in the bound
+ * class's package.
+ * <p>
+ * Fields whose value is a document of its own (nested objects, {@code @Type} fields, collections
+ * and maps) are handed back to the binder through {@link Documents}, which walks them on its
+ * stack like the generic path does.
+ */
+public interface ClassBinder {
+
+    /** Puts the set fields of {@code source} into {@code document} in declaration order. */
+    void unbind(Object source, Map<Object, Object> document, Documents documents);
+
+    /** Sets the fields of {@code target} that {@code document} has a value for. */
+    void bind(Object target, Map<Object, Object> document, Documents documents);
+
+    /** The binder's side of a generated {@link ClassBinder}; {@code slot} is the field's binding index. */
+    interface Documents {
+
+        void unbind(Object source, int slot, Object value, Map<Object, Object> document);
+
+        void bind(Object target, int slot, Object value, Map<Object, Object> document);
+    }
+}
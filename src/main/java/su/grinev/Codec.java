@@ -1,36 +1,63 @@
 package su.grinev;
 
 import lombok.Getter;
+import su.grinev.bson.BsonBindingReader;
+import su.grinev.bson.BsonBindingWriter;
 import su.grinev.bson.BsonObjectReader;
 import su.grinev.bson.BsonObjectWriter;
+import su.grinev.json.JsonBindingReader;
+import su.grinev.json.JsonBindingWriter;
+import su.grinev.messagepack.BindingReaderContext;
+import su.grinev.messagepack.BindingWriterContext;
+import su.grinev.messagepack.MessagePackBindingReader;
+import su.grinev.messagepack.MessagePackBindingWriter;
 import su.grinev.messagepack.MessagePackReader;
 import su.grinev.messagepack.MessagePackWriter;
 import su.grinev.messagepack.ReaderContext;
 import su.grinev.messagepack.WriterContext;
+import su.grinev.pool.BufferArena;
 import su.grinev.pool.DisposablePool;
 import su.grinev.pool.DynamicByteBuffer;
 import su.grinev.pool.Pool;
 import su.grinev.pool.PoolFactory;
+import su.grinev.pool.SegmentedByteBuffer;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayDeque;
 import java.util.function.Supplier;
 
 @Getter
 public class Codec {
+
+    /**
+     * DOCUMENT binds objects through an intermediate {@link BinaryDocument},
+     * DIRECT reads and writes object fields straight from/to the buffer.
+     */
+    public enum BindingMode { DOCUMENT, DIRECT }
+
     private final Binder binder;
     private final Serializer serializer;
     private final Deserializer deserializer;
+    private final ObjectSerializer objectSerializer;
+    private final ObjectDeserializer objectDeserializer;
     private final DisposablePool<DynamicByteBuffer> bufferPool;
 
     public Codec(Serializer serializer, Deserializer deserializer, DisposablePool<DynamicByteBuffer> bufferPool, Binder.ClassNameMode classNameMode) {
+        this(serializer, deserializer, null, null, bufferPool, new Binder(classNameMode));
+    }
+
+    public Codec(Serializer serializer, Deserializer deserializer, ObjectSerializer objectSerializer, ObjectDeserializer objectDeserializer, DisposablePool<DynamicByteBuffer> bufferPool, Binder binder) {
         this.serializer = serializer;
         this.deserializer = deserializer;
+        this.objectSerializer = objectSerializer;
+        this.objectDeserializer = objectDeserializer;
         this.bufferPool = bufferPool;
-        this.binder = new Binder(classNameMode);
+        this.binder = binder;
     }
 
     public static Codec bson(PoolFactory poolFactory, int documentSize, Supplier<ByteBuffer> byteBufferAllocator) {
@@ -42,11 +69,27 @@ public class Codec {
     }
 
     public static Codec bson(PoolFactory poolFactory, int documentSize, Supplier<ByteBuffer> byteBufferAllocator, boolean readBinaryAsByteArray, Binder.ClassNameMode classNameMode) {
+        return bson(poolFactory, documentSize, byteBufferAllocator, readBinaryAsByteArray, classNameMode, BindingMode.DOCUMENT);
+    }
+
+    public static Codec bson(PoolFactory poolFactory, int documentSize, Supplier<ByteBuffer> byteBufferAllocator, boolean readBinaryAsByteArray, Binder.ClassNameMode classNameMode, BindingMode bindingMode) {
+        return bson(poolFactory, documentSize, byteBufferAllocator, readBinaryAsByteArray, new Binder(classNameMode), bindingMode);
+    }
+
+    public static Codec bson(PoolFactory poolFactory, int documentSize, Supplier<ByteBuffer> byteBufferAllocator, boolean readBinaryAsByteArray, Binder binder, BindingMode bindingMode) {
         BsonObjectWriter writer = new BsonObjectWriter(poolFactory, documentSize, true);
         BsonObjectReader reader = new BsonObjectReader(poolFactory, documentSize, true, byteBufferAllocator);
         reader.setReadBinaryAsByteArray(readBinaryAsByteArray);
-        DisposablePool<DynamicByteBuffer> pool = poolFactory.getDisposablePool("codec-buffer-pool", () -> new DynamicByteBuffer(documentSize, true));
-        return new Codec(writer, reader, pool, classNameMode);
+        ObjectSerializer objectSerializer = null;
+        ObjectDeserializer objectDeserializer = null;
+        if (bindingMode == BindingMode.DIRECT) {
+            objectSerializer = new BsonBindingWriter(poolFactory, binder);
+            BsonBindingReader bindingReader = new BsonBindingReader(poolFactory, binder, documentSize, true, byteBufferAllocator);
+            bindingReader.setReadBinaryAsByteArray(readBinaryAsByteArray);
+            objectDeserializer = bindingReader;
+        }
+        DisposablePool<DynamicByteBuffer> pool = codecBufferPool(poolFactory, documentSize, poolFactory.getSegmentSize());
+        return new Codec(writer, reader, objectSerializer, objectDeserializer, pool, binder);
     }
 
     public static Codec messagePack(PoolFactory poolFactory, int documentSize) {
@@ -54,24 +97,76 @@ public class Codec {
     }
 
     public static Codec messagePack(PoolFactory poolFactory, int documentSize, Binder.ClassNameMode classNameMode) {
+        return messagePack(poolFactory, documentSize, classNameMode, BindingMode.DOCUMENT);
+    }
+
+    public static Codec messagePack(PoolFactory poolFactory, int documentSize, Binder.ClassNameMode classNameMode, BindingMode bindingMode) {
+        return messagePack(poolFactory, documentSize, new Binder(classNameMode), bindingMode);
+    }
+
+    public static Codec messagePack(PoolFactory poolFactory, int documentSize, Binder binder, BindingMode bindingMode) {
         Pool<WriterContext> writerContextPool = poolFactory.getPool("msgpack-writer-context-pool", WriterContext::new);
         Pool<ReaderContext> readerContextPool = poolFactory.getPool("msgpack-reader-context-pool", ReaderContext::new);
         Pool<ArrayDeque<ReaderContext>> readerStackPool = poolFactory.getPool("msgpack-reader-stack-pool", () -> new ArrayDeque<>(64));
         Pool<ArrayDeque<WriterContext>> writerStackPool = poolFactory.getPool("msgpack-writer-stack-pool", () -> new ArrayDeque<>(64));
         MessagePackWriter writer = new MessagePackWriter(writerContextPool, writerStackPool);
         MessagePackReader reader = new MessagePackReader(readerContextPool, readerStackPool, true, true);
-        DisposablePool<DynamicByteBuffer> pool = poolFactory.getDisposablePool("codec-buffer-pool", () -> new DynamicByteBuffer(documentSize, true));
-        return new Codec(writer, reader, pool, classNameMode);
+        reader.setScratchBuffers(poolFactory.getScratchBuffers());
+        ObjectSerializer objectSerializer = null;
+        ObjectDeserializer objectDeserializer = null;
+        if (bindingMode == BindingMode.DIRECT) {
+            Pool<BindingWriterContext> bindingWriterContextPool = poolFactory.getPool("msgpack-binding-writer-context-pool", BindingWriterContext::new);
+            Pool<ArrayDeque<BindingWriterContext>> bindingWriterStackPool = poolFactory.getPool("msgpack-binding-writer-stack-pool", () -> new ArrayDeque<>(64));
+            objectSerializer = new MessagePackBindingWriter(binder, bindingWriterContextPool, bindingWriterStackPool);
+            Pool<BindingReaderContext> bindingReaderContextPool = poolFactory.getPool("msgpack-binding-reader-context-pool", BindingReaderContext::new);
+            Pool<ArrayDeque<BindingReaderContext>> bindingReaderStackPool = poolFactory.getPool("msgpack-binding-reader-stack-pool", () -> new ArrayDeque<>(64));
+            MessagePackBindingReader bindingReader = new MessagePackBindingReader(binder, bindingReaderContextPool, bindingReaderStackPool, true, true);
+            bindingReader.setScratchBuffers(poolFactory.getScratchBuffers());
+            objectDeserializer = bindingReader;
+        }
+        // The MessagePack writers write into getBuffer() directly, so their buffers stay contiguous
+        DisposablePool<DynamicByteBuffer> pool = codecBufferPool(poolFactory, documentSize, 0);
+        return new Codec(writer, reader, objectSerializer, objectDeserializer, pool, binder);
+    }
+
+    public static Codec json(PoolFactory poolFactory, int documentSize) {
+        return json(poolFactory, documentSize, Binder.ClassNameMode.FULL_NAME);
+    }
+
+    /**
+     * JSON objects keyed by field name, bound straight to and from objects; there is no
+     * {@link Document} mode, so {@link #getSerializer()} and {@link #getDeserializer()} are null.
+     */
+    public static Codec json(PoolFactory poolFactory, int documentSize, Binder.ClassNameMode classNameMode) {
+        return json(poolFactory, documentSize, new Binder(classNameMode));
+    }
+
+    public static Codec json(PoolFactory poolFactory, int documentSize, Binder binder) {
+        // JsonBindingWriter formats numbers into getBuffer() directly, so its buffers stay contiguous
+        DisposablePool<DynamicByteBuffer> pool = codecBufferPool(poolFactory, documentSize, 0);
+        return new Codec(null, null, new JsonBindingWriter(binder), new JsonBindingReader(binder), pool, binder);
+    }
+
+    private static DisposablePool<DynamicByteBuffer> codecBufferPool(PoolFactory poolFactory, int documentSize, int segmentSize) {
+        BufferArena arena = poolFactory.getBufferArena();
+        if (segmentSize > 0) {
+            return poolFactory.getDisposablePool("codec-buffer-pool", () -> new SegmentedByteBuffer(arena, segmentSize));
+        }
+        return poolFactory.getDisposablePool("codec-buffer-pool", arena != null
+                ? () -> new DynamicByteBuffer(documentSize, arena)
+                : () -> new DynamicByteBuffer(documentSize, true));
     }
 
     public DynamicByteBuffer serialize(Object o) {
-        BinaryDocument document = binder.unbind(o);
         DynamicByteBuffer buffer = bufferPool.get();
-        serializer.serialize(buffer, document);
+        write(buffer, o);
         return buffer;
     }
 
     public <T> T deserialize(ByteBuffer buffer, Class<T> tClass) {
+        if (objectDeserializer != null) {
+            return objectDeserializer.deserialize(buffer, tClass);
+        }
         BinaryDocument document = new BinaryDocument(new java.util.HashMap<>());
         deserializer.deserialize(buffer, document);
         return binder.bind(tClass, document);
@@ -79,21 +174,53 @@ public class Codec {
 
     public void serialize(Object o, OutputStream outputStream) throws IOException {
         try (DynamicByteBuffer buffer = bufferPool.get()) {
-            BinaryDocument document = binder.unbind(o);
-            serializer.serialize(buffer, document);
-            ByteBuffer raw = buffer.getBuffer();
+            write(buffer, o);
             byte[] chunk = new byte[8192];
-            while (raw.hasRemaining()) {
-                int len = Math.min(chunk.length, raw.remaining());
-                raw.get(chunk, 0, len);
-                outputStream.write(chunk, 0, len);
+            for (ByteBuffer raw : content(buffer)) {
+                while (raw.hasRemaining()) {
+                    int len = Math.min(chunk.length, raw.remaining());
+                    raw.get(chunk, 0, len);
+                    outputStream.write(chunk, 0, len);
+                }
             }
         }
     }
 
+    /**
+     * Writes the encoded object to {@code channel}. Segmented buffers go out with one gathering
+     * write per call and are never joined into a single buffer.
+     */
+    public void serialize(Object o, WritableByteChannel channel) throws IOException {
+        try (DynamicByteBuffer buffer = bufferPool.get()) {
+            write(buffer, o);
+            if (buffer instanceof SegmentedByteBuffer segmented && channel instanceof GatheringByteChannel gathering) {
+                segmented.writeTo(gathering);
+                return;
+            }
+            for (ByteBuffer raw : content(buffer)) {
+                while (raw.hasRemaining()) {
+                    channel.write(raw);
+                }
+            }
+        }
+    }
+
+    /** The encoded bytes of {@code buffer}: its segments if it has them, otherwise the buffer itself. */
+    static ByteBuffer[] content(DynamicByteBuffer buffer) {
+        return buffer instanceof SegmentedByteBuffer segmented ? segmented.segments() : new ByteBuffer[]{buffer.getBuffer()};
+    }
+
     public <T> T deserialize(InputStream inputStream, Class<T> tClass) throws IOException {
         byte[] data = inputStream.readAllBytes();
         ByteBuffer buffer = ByteBuffer.wrap(data);
         return deserialize(buffer, tClass);
     }
+
+    private void write(DynamicByteBuffer buffer, Object o) {
+        if (objectSerializer != null) {
+            objectSerializer.serialize(buffer, o);
+        } else {
+            serializer.serialize(buffer, binder.unbind(o));
+        }
+    }
 }
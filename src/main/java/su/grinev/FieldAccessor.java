@@ -0,0 +1,49 @@
+package su.grinev;
+
+/**
+ * Reads and writes the bound fields of one class by slot, where the slot is the index of the
+ * field in {@link Binder.ClassSchema#binding}. Typed methods accept both the primitive field
+ * and its wrapper so callers never box on the primitive path.
+ * <p>
+ * The default implementation goes through {@link java.lang.invoke.VarHandle}s; a {@link Binder}
+ * created with generated accessors gives each class its own hidden class doing plain
+ * {@code getfield}/{@code putfield}.
+ */
+public interface FieldAccessor {
+
+    Object get(Object target, int slot);
+
+    int getInt(Object target, int slot);
+
+    long getLong(Object target, int slot);
+
+    double getDouble(Object target, int slot);
+
+    float getFloat(Object target, int slot);
+
+    boolean getBoolean(Object target, int slot);
+
+    short getShort(Object target, int slot);
+
+    byte getByte(Object target, int slot);
+
+    char getChar(Object target, int slot);
+
+    void set(Object target, int slot, Object value);
+
+    void setInt(Object target, int slot, int value);
+
+    void setLong(Object target, int slot, long value);
+
+    void setDouble(Object target, int slot, double value);
+
+    void setFloat(Object target, int slot, float value);
+
+    void setBoolean(Object target, int slot, boolean value);
+
+    void setShort(Object target, int slot, short value);
+
+    void setByte(Object target, int slot, byte value);
+
+    void setChar(Object target, int slot, char value);
+}
@@ -0,0 +1,111 @@
+package su.grinev;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Perfect hash from field names to their position in the list it was built from, matched
+ * against the raw UTF-8 bytes of a key so text decoders don't build a {@link String} per key.
+ * <p>
+ * The hash seed is searched when the schema is built until no two names share a slot, so a
+ * lookup hashes the key once and compares it with at most one name.
+ */
+public final class FieldNameIndex {
+
+    public static final int UNKNOWN = -1;
+
+    private static final int MAX_SEEDS_PER_SIZE = 64;
+
+    private final byte[][] names;
+    private final int[] table; // name index + 1, 0 for an empty slot
+    private final int mask;
+    private final int seed;
+
+    public FieldNameIndex(String[] names) {
+        this.names = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            this.names[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        int size = Integer.highestOneBit(Math.max(1, names.length * 2 - 1)) << 1;
+        int[] slots = null;
+        int found = 0;
+        while (slots == null) {
+            for (int candidate = 1; candidate <= MAX_SEEDS_PER_SIZE && slots == null; candidate++) {
+                slots = place(this.names, size, candidate);
+                found = candidate;
+            }
+            if (slots == null) {
+                size <<= 1;
+            }
+        }
+        this.table = slots;
+        this.mask = size - 1;
+        this.seed = found;
+    }
+
+    /** Index of the name stored as UTF-8 in {@code buffer[offset, offset + length)}, or {@link #UNKNOWN}. */
+    public int find(ByteBuffer buffer, int offset, int length) {
+        int hash = seed;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ buffer.get(i)) * 0x01000193;
+        }
+        int index = table[mix(hash, length) & mask] - 1;
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        byte[] name = names[index];
+        if (name.length != length) {
+            return UNKNOWN;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name[i] != buffer.get(offset + i)) {
+                return UNKNOWN;
+            }
+        }
+        return index;
+    }
+
+    public int find(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return find(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /** UTF-8 bytes of the name at {@code index}; callers must not modify them. */
+    public byte[] nameBytes(int index) {
+        return names[index];
+    }
+
+    private static int[] place(byte[][] names, int size, int seed) {
+        int[] slots = new int[size];
+        for (int i = 0; i < names.length; i++) {
+            int slot = mix(hash(names[i], seed), names[i].length) & (size - 1);
+            if (slots[slot] != 0) {
+                if (Arrays.equals(names[slots[slot] - 1], names[i])) {
+                    throw new IllegalArgumentException("Duplicate field name '" + new String(names[i], StandardCharsets.UTF_8) + "'");
+                }
+                return null;
+            }
+            slots[slot] = i + 1;
+        }
+        return slots;
+    }
+
+    private static int hash(byte[] name, int seed) {
+        int hash = seed;
+        for (byte b : name) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int mix(int hash, int length) {
+        hash ^= length;
+        return hash ^ (hash >>> 15);
+    }
+}
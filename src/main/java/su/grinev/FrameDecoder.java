@@ -0,0 +1,133 @@
+package su.grinev;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.Consumer;
+
+/**
+ * Turns a byte stream that arrives in arbitrary pieces, e.g. from a non-blocking
+ * {@code SocketChannel} or the completion handler of an {@code AsynchronousSocketChannel},
+ * into decoded objects. Frames that lie completely inside a chunk are decoded straight from it;
+ * only a frame split across chunks is collected in an internal buffer first.
+ * <p>
+ * A decoded object may still point into the frame bytes when the codec projects binaries or
+ * reads lazy strings. Those bytes are only valid during the {@code sink} call, so either use
+ * the object there or configure the codec to copy.
+ * <p>
+ * Keeps per-connection state and is not thread-safe; use one decoder per channel.
+ */
+public final class FrameDecoder<T> {
+
+    public static final int DEFAULT_READ_SIZE = 16 * 1024;
+
+    private final Codec codec;
+    private final Class<T> type;
+    private final FrameFormat format;
+    private final int maxFrameSize;
+    private final ByteBuffer readBuffer;
+    private ByteBuffer partial;
+
+    public FrameDecoder(Codec codec, Class<T> type, FrameFormat format, int maxFrameSize) {
+        this.codec = codec;
+        this.type = type;
+        this.format = format;
+        this.maxFrameSize = maxFrameSize;
+        this.readBuffer = ByteBuffer.allocateDirect(DEFAULT_READ_SIZE);
+        this.partial = ByteBuffer.allocate(Math.min(maxFrameSize, DEFAULT_READ_SIZE)).order(format.order());
+    }
+
+    /**
+     * Consumes all of {@code chunk} and passes every frame it completes to {@code sink}.
+     *
+     * @return number of objects decoded
+     */
+    public int feed(ByteBuffer chunk, Consumer<? super T> sink) throws IOException {
+        int decoded = 0;
+        while (chunk.hasRemaining()) {
+            if (partial.position() == 0) {
+                int start = chunk.position();
+                if (chunk.remaining() >= 4) {
+                    int length = checkLength(format.lengthAt(chunk, start));
+                    if (chunk.remaining() >= length) {
+                        ByteBuffer frame = chunk.slice(start, length).order(format.order());
+                        chunk.position(start + length);
+                        sink.accept(codec.deserialize(frame, type));
+                        decoded++;
+                        continue;
+                    }
+                    ensurePartialCapacity(length);
+                }
+                partial.put(chunk);
+                break;
+            }
+
+            if (partial.position() < 4) {
+                transfer(chunk, 4 - partial.position());
+                if (partial.position() < 4) {
+                    break;
+                }
+                ensurePartialCapacity(checkLength(partial.getInt(0)));
+            }
+            int length = partial.getInt(0);
+            transfer(chunk, length - partial.position());
+            if (partial.position() == length) {
+                ByteBuffer frame = partial.flip();
+                try {
+                    sink.accept(codec.deserialize(frame, type));
+                } finally {
+                    partial.clear();
+                }
+                decoded++;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Reads what {@code channel} has available, which for a non-blocking channel may be nothing,
+     * and decodes the frames completed by it.
+     *
+     * @return number of objects decoded, or -1 once the channel reached end of stream
+     * @throws EOFException if the stream ended in the middle of a frame
+     */
+    public int readFrom(ReadableByteChannel channel, Consumer<? super T> sink) throws IOException {
+        readBuffer.clear();
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            if (partial.position() > 0) {
+                throw new EOFException("Channel closed after " + partial.position() + " bytes of a frame");
+            }
+            return -1;
+        }
+        return feed(readBuffer.flip(), sink);
+    }
+
+    /** Whether part of a frame is buffered, waiting for the rest. */
+    public boolean hasPartialFrame() {
+        return partial.position() > 0;
+    }
+
+    private int checkLength(int length) throws StreamCorruptedException {
+        if (length < FrameFormat.MIN_LENGTH || length > maxFrameSize) {
+            throw new StreamCorruptedException("Invalid frame length: " + length + " (limit: " + maxFrameSize + ")");
+        }
+        return length;
+    }
+
+    private void transfer(ByteBuffer chunk, int count) {
+        int n = Math.min(count, chunk.remaining());
+        partial.put(partial.position(), chunk, chunk.position(), n);
+        partial.position(partial.position() + n);
+        chunk.position(chunk.position() + n);
+    }
+
+    private void ensurePartialCapacity(int length) {
+        if (partial.capacity() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.min(maxFrameSize, Math.max(partial.capacity() * 2, length))).order(format.order());
+            partial = grown.put(partial.flip());
+        }
+    }
+}
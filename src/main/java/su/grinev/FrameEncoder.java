@@ -0,0 +1,83 @@
+package su.grinev;
+
+import su.grinev.pool.DynamicByteBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Writes encoded objects to a non-blocking channel. {@link #enqueue} encodes into a pooled
+ * buffer right away; {@link #flush} writes as much as the channel takes and keeps the rest for
+ * the next call, typically when the selector reports the channel writable again. Every codec
+ * already writes the length prefix {@link FrameDecoder} reads on the other side.
+ * <p>
+ * Not thread-safe; use one encoder per channel.
+ */
+public final class FrameEncoder implements AutoCloseable {
+
+    private final Codec codec;
+    private final ArrayDeque<DynamicByteBuffer> pending = new ArrayDeque<>();
+    private ByteBuffer[] current;
+
+    public FrameEncoder(Codec codec) {
+        this.codec = codec;
+    }
+
+    public void enqueue(Object o) {
+        pending.addLast(codec.serialize(o));
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Writes queued frames in order until the channel stops accepting bytes.
+     *
+     * @return {@code true} when everything queued has been written
+     */
+    public boolean flush(WritableByteChannel channel) throws IOException {
+        while (!pending.isEmpty()) {
+            if (current == null) {
+                current = Codec.content(pending.getFirst());
+            }
+            if (!write(channel, current)) {
+                return false;
+            }
+            current = null;
+            pending.removeFirst().dispose();
+        }
+        return true;
+    }
+
+    private static boolean write(WritableByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel gathering) {
+            while (buffers[buffers.length - 1].hasRemaining()) {
+                if (gathering.write(buffers) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Returns the buffers of frames that were never written to their pool. */
+    @Override
+    public void close() {
+        current = null;
+        while (!pending.isEmpty()) {
+            pending.removeFirst().dispose();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package su.grinev;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Framing of a document stream: every document starts with an int32 length that counts the
+ * prefix itself. For BSON it is the document length, little-endian; for MessagePack it is the
+ * big-endian header {@code MessagePackWriter} writes with {@code writeLengthHeader}.
+ */
+public enum FrameFormat {
+    BSON(ByteOrder.LITTLE_ENDIAN),
+    MESSAGE_PACK(ByteOrder.BIG_ENDIAN);
+
+    /** Shortest frame: the prefix and one byte, the BSON terminator or a MessagePack fixmap. */
+    public static final int MIN_LENGTH = 5;
+
+    private final ByteOrder order;
+
+    FrameFormat(ByteOrder order) {
+        this.order = order;
+    }
+
+    public ByteOrder order() {
+        return order;
+    }
+
+    /** Reads the length prefix at {@code index}, whatever byte order {@code buffer} is set to. */
+    public int lengthAt(ByteBuffer buffer, int index) {
+        int length = buffer.getInt(index);
+        return buffer.order() == order ? length : Integer.reverseBytes(length);
+    }
+}
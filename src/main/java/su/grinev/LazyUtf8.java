@@ -0,0 +1,108 @@
+package su.grinev;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 string value that still points into the buffer it was decoded from. The {@link String}
+ * is built on first access and cached, so fields nobody reads cost no copy and no allocation
+ * beyond this holder.
+ * <p>
+ * The source buffer must not be reused or released until every value read from it has been
+ * materialized or dropped, which is why readers only produce these when asked to.
+ */
+public final class LazyUtf8 implements CharSequence {
+
+    private final ByteBuffer source;
+    private final int offset;
+    private final int byteLength;
+    private String value;
+
+    public LazyUtf8(ByteBuffer source, int offset, int byteLength) {
+        this.source = source;
+        this.offset = offset;
+        this.byteLength = byteLength;
+    }
+
+    public int byteLength() {
+        return byteLength;
+    }
+
+    /**
+     * Compares against {@code other} without materializing when it is ASCII, which covers
+     * the command names and versions routing code usually checks.
+     */
+    public boolean contentEquals(String other) {
+        if (value != null) {
+            return value.equals(other);
+        }
+        if (other.length() > byteLength) {
+            return false;
+        }
+        for (int i = 0; i < other.length(); i++) {
+            char c = other.charAt(i);
+            if (c >= 0x80) {
+                return toString().equals(other);
+            }
+            if (source.get(offset + i) != (byte) c) {
+                return false;
+            }
+        }
+        return other.length() == byteLength;
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String s = value;
+        if (s == null) {
+            s = decode();
+            value = s;
+        }
+        return s;
+    }
+
+    private String decode() {
+        byte[] bytes;
+        int from;
+        if (source.hasArray()) {
+            bytes = source.array();
+            from = source.arrayOffset() + offset;
+        } else {
+            bytes = new byte[byteLength];
+            source.get(offset, bytes);
+            from = 0;
+        }
+        for (int i = from; i < from + byteLength; i++) {
+            if (bytes[i] < 0) {
+                return new String(bytes, from, byteLength, StandardCharsets.UTF_8);
+            }
+        }
+        // ASCII is a subset of Latin-1, which String stores as-is without decoding
+        return new String(bytes, from, byteLength, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LazyUtf8 other && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+}
@@ -0,0 +1,137 @@
+package su.grinev;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only view of a file of concatenated documents framed as described by {@link FrameFormat}.
+ * The file is memory-mapped and every document is
+ * returned as a slice of the mapping, so decoding reads the page cache without copying.
+ * <p>
+ * A single mapping is limited to 2 GB, so larger files are mapped in windows of
+ * {@code windowSize} bytes. A document is always inside one window; when it crosses the end
+ * of the current one, a new window is mapped from the document's start. Documents must
+ * therefore be smaller than the window, and slices stay valid after the window moves on.
+ * <p>
+ * Not thread-safe: share the file between threads by opening it once per thread.
+ */
+public final class MappedDocumentFile implements Closeable, Iterable<MappedDocumentFile.Entry> {
+
+    /** A document and the file offset it starts at, usable later with {@link #documentAt}. */
+    public record Entry(long offset, ByteBuffer document) {}
+
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final FrameFormat format;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    private MappedDocumentFile(FileChannel channel, FrameFormat format, int windowSize) throws IOException {
+        this.channel = channel;
+        this.format = format;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    public static MappedDocumentFile open(Path path, FrameFormat format) throws IOException {
+        return open(path, format, DEFAULT_WINDOW_SIZE);
+    }
+
+    public static MappedDocumentFile open(Path path, FrameFormat format, int windowSize) throws IOException {
+        if (windowSize < 5) {
+            throw new IllegalArgumentException("Window size is too small: " + windowSize);
+        }
+        return new MappedDocumentFile(FileChannel.open(path, StandardOpenOption.READ), format, windowSize);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * The document starting at {@code offset}, as a read-only slice positioned at its length
+     * prefix, in the format's byte order. Pass it to {@link Codec#deserialize(ByteBuffer, Class)}.
+     */
+    public ByteBuffer documentAt(long offset) throws IOException {
+        int length = lengthAt(offset);
+        ByteBuffer mapped = map(offset, length);
+        return mapped.slice((int) (offset - windowStart), length).order(format.order());
+    }
+
+    /** Offset of the document that follows the one at {@code offset}, {@link #size()} at the end. */
+    public long nextOffset(long offset) throws IOException {
+        return offset + lengthAt(offset);
+    }
+
+    public <T> T read(Codec codec, long offset, Class<T> tClass) throws IOException {
+        return codec.deserialize(documentAt(offset), tClass);
+    }
+
+    /** Documents from the start of the file; mapping errors surface as {@link UncheckedIOException}. */
+    @Override
+    public Iterator<Entry> iterator() {
+        return new Iterator<>() {
+            private long offset;
+
+            @Override
+            public boolean hasNext() {
+                return offset < size;
+            }
+
+            @Override
+            public Entry next() {
+                if (offset >= size) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    ByteBuffer document = documentAt(offset);
+                    Entry entry = new Entry(offset, document);
+                    offset += document.remaining();
+                    return entry;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    private int lengthAt(long offset) throws IOException {
+        if (offset < 0 || offset + 4 > size) {
+            throw new IOException("No document at offset " + offset + " (file size: " + size + ")");
+        }
+        ByteBuffer mapped = map(offset, 4);
+        int length = format.lengthAt(mapped, (int) (offset - windowStart));
+        if (length < FrameFormat.MIN_LENGTH || offset + length > size) {
+            throw new IOException("Invalid document length " + length + " at offset " + offset);
+        }
+        if (length > windowSize) {
+            throw new IOException("Document at offset " + offset + " is larger than the mapping window: " + length);
+        }
+        return length;
+    }
+
+    private ByteBuffer map(long offset, int length) throws IOException {
+        if (window == null || offset < windowStart || offset + length > windowStart + window.capacity()) {
+            windowStart = offset;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, size - offset));
+        }
+        return window;
+    }
+}
@@ -0,0 +1,7 @@
+package su.grinev;
+
+import java.nio.ByteBuffer;
+
+public interface ObjectDeserializer {
+    <T> T deserialize(ByteBuffer buffer, Class<T> tClass);
+}
@@ -0,0 +1,7 @@
+package su.grinev;
+
+import su.grinev.pool.DynamicByteBuffer;
+
+public interface ObjectSerializer {
+    void serialize(DynamicByteBuffer buffer, Object o);
+}
@@ -0,0 +1,20 @@
+package su.grinev;
+
+/**
+ * Schema for one {@code @Tag} class generated at compile time by {@code su.grinev.processor.SchemaProcessor}.
+ * Providers are found through {@link java.util.ServiceLoader} and take precedence over the
+ * reflective schema built by {@link Binder#getSchema}, so no {@code getDeclaredFields},
+ * {@code privateLookupIn} or {@code findVarHandle} runs for these classes.
+ */
+public interface SchemaProvider {
+
+    Class<?> type();
+
+    Binder.ClassSchema createSchema();
+
+    /**
+     * Creates an instance through the no-arg constructor, or returns {@code null} when the class
+     * has no accessible one and {@link Binder#instantiate} has to use reflection.
+     */
+    Object newInstance();
+}
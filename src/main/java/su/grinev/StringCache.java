@@ -0,0 +1,80 @@
+package su.grinev;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bounded decode-side cache that returns one canonical {@link String} per short UTF-8 byte
+ * sequence, so repeated values like versions, command and encoding names are not allocated
+ * again for every message.
+ * <p>
+ * The table is direct-mapped: a slot holds the last string that hashed to it and a colliding
+ * value simply replaces it, so memory stays fixed and lookups need no locking. Entries are
+ * immutable, which makes the unsynchronized slot reads and writes safe to race.
+ */
+public final class StringCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int DEFAULT_MAX_LENGTH = 32;
+
+    private static final StringCache SHARED = new StringCache(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+
+    private final Entry[] entries;
+    private final int mask;
+    private final int maxLength;
+
+    private record Entry(int hash, byte[] bytes, String value) {}
+
+    public StringCache(int capacity, int maxLength) {
+        if (capacity <= 0 || maxLength < 0) {
+            throw new IllegalArgumentException("Invalid string cache size: capacity=" + capacity + ", maxLength=" + maxLength);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /** Cache used by the readers unless they are given another one. */
+    public static StringCache shared() {
+        return SHARED;
+    }
+
+    /** Whether strings of this many bytes are cached; longer ones should be decoded directly. */
+    public boolean accepts(int length) {
+        return length <= maxLength;
+    }
+
+    public String get(ByteBuffer buffer, int offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ buffer.get(i)) * 0x01000193;
+        }
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        Entry entry = entries[index];
+        if (entry != null && entry.hash == hash && matches(entry.bytes, buffer, offset, length)) {
+            return entry.value;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        entries[index] = new Entry(hash, bytes, value);
+        return value;
+    }
+
+    private static boolean matches(byte[] bytes, ByteBuffer buffer, int offset, int length) {
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != buffer.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
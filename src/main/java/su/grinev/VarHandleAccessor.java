@@ -0,0 +1,105 @@
+package su.grinev;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * {@link FieldAccessor} backed by one {@link VarHandle} per slot. Used when generated
+ * accessors are disabled or cannot be defined for a class.
+ */
+final class VarHandleAccessor implements FieldAccessor {
+    private final VarHandle[] handles;
+
+    VarHandleAccessor(VarHandle[] handles) {
+        this.handles = handles;
+    }
+
+    @Override
+    public Object get(Object target, int slot) {
+        return handles[slot].get(target);
+    }
+
+    @Override
+    public int getInt(Object target, int slot) {
+        return (int) handles[slot].get(target);
+    }
+
+    @Override
+    public long getLong(Object target, int slot) {
+        return (long) handles[slot].get(target);
+    }
+
+    @Override
+    public double getDouble(Object target, int slot) {
+        return (double) handles[slot].get(target);
+    }
+
+    @Override
+    public float getFloat(Object target, int slot) {
+        return (float) handles[slot].get(target);
+    }
+
+    @Override
+    public boolean getBoolean(Object target, int slot) {
+        return (boolean) handles[slot].get(target);
+    }
+
+    @Override
+    public short getShort(Object target, int slot) {
+        return (short) handles[slot].get(target);
+    }
+
+    @Override
+    public byte getByte(Object target, int slot) {
+        return (byte) handles[slot].get(target);
+    }
+
+    @Override
+    public char getChar(Object target, int slot) {
+        return (char) handles[slot].get(target);
+    }
+
+    @Override
+    public void set(Object target, int slot, Object value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setInt(Object target, int slot, int value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setLong(Object target, int slot, long value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setDouble(Object target, int slot, double value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setFloat(Object target, int slot, float value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setBoolean(Object target, int slot, boolean value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setShort(Object target, int slot, short value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setByte(Object target, int slot, byte value) {
+        handles[slot].set(target, value);
+    }
+
+    @Override
+    public void setChar(Object target, int slot, char value) {
+        handles[slot].set(target, value);
+    }
+}
@@ -0,0 +1,64 @@
+package su.grinev.bson;
+
+import su.grinev.Binder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public final class BindingReaderContext {
+
+    enum Kind { OBJECT, COLLECTION, DOCUMENT, ARRAY }
+
+    Kind kind;
+    int length;
+    int startPos; // position of the first element, used to look up discriminators
+
+    Object object;
+    Binder.ClassSchema schema;
+    Collection<Object> collection;
+    java.lang.reflect.Type collectionType;
+    Map<Object, Object> map;
+    List<Object> list;
+
+    public BindingReaderContext initObject(int length, int startPos, Object object, Binder.ClassSchema schema) {
+        init(Kind.OBJECT, length, startPos);
+        this.object = object;
+        this.schema = schema;
+        return this;
+    }
+
+    public BindingReaderContext initCollection(int length, int startPos, Collection<Object> collection, java.lang.reflect.Type collectionType) {
+        init(Kind.COLLECTION, length, startPos);
+        this.collection = collection;
+        this.collectionType = collectionType;
+        return this;
+    }
+
+    public BindingReaderContext initDocument(int length, int startPos, Map<Object, Object> map) {
+        init(Kind.DOCUMENT, length, startPos);
+        this.map = map;
+        return this;
+    }
+
+    public BindingReaderContext initArray(int length, int startPos, List<Object> list) {
+        init(Kind.ARRAY, length, startPos);
+        this.list = list;
+        return this;
+    }
+
+    private void init(Kind kind, int length, int startPos) {
+        this.kind = kind;
+        this.length = length;
+        this.startPos = startPos;
+    }
+
+    public void reset() {
+        object = null;
+        schema = null;
+        collection = null;
+        collectionType = null;
+        map = null;
+        list = null;
+    }
+}
@@ -0,0 +1,61 @@
+package su.grinev.bson;
+
+import su.grinev.Binder;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public final class BindingWriterContext {
+
+    enum Kind { OBJECT, COLLECTION, DOCUMENT, ARRAY }
+
+    Kind kind;
+    int startPos;
+
+    // OBJECT: POJO, its schema and key order, COLLECTION/DOCUMENT/ARRAY: element iterator
+    Object object;
+    Binder.ClassSchema schema;
+    Binder.KeyOrder order;
+    Iterator<?> iterator;
+    int index;
+
+    public BindingWriterContext initObject(int startPos, Object object, Binder.ClassSchema schema, Binder.KeyOrder order) {
+        this.order = order;
+        return init(Kind.OBJECT, startPos, object, schema, null);
+    }
+
+    public BindingWriterContext initCollection(int startPos, Iterable<?> collection) {
+        return init(Kind.COLLECTION, startPos, null, null, collection.iterator());
+    }
+
+    public BindingWriterContext initDocument(int startPos, Map<?, ?> map) {
+        return init(Kind.DOCUMENT, startPos, null, null, map.entrySet().iterator());
+    }
+
+    public BindingWriterContext initArray(int startPos, List<?> list) {
+        return init(Kind.ARRAY, startPos, null, null, list.iterator());
+    }
+
+    private BindingWriterContext init(Kind kind, int startPos, Object object, Binder.ClassSchema schema, Iterator<?> iterator) {
+        this.kind = kind;
+        this.startPos = startPos;
+        this.object = object;
+        this.schema = schema;
+        this.iterator = iterator;
+        this.index = 0;
+        return this;
+    }
+
+    public boolean hasNext() {
+        return kind == Kind.OBJECT ? index < order.size() : iterator.hasNext();
+    }
+
+    public void reset() {
+        object = null;
+        schema = null;
+        order = null;
+        iterator = null;
+        index = 0;
+    }
+}
@@ -0,0 +1,293 @@
+package su.grinev.bson;
+
+import lombok.Setter;
+import su.grinev.Binder;
+import su.grinev.ObjectDeserializer;
+import su.grinev.StringCache;
+import su.grinev.exception.BsonException;
+import su.grinev.pool.Pool;
+import su.grinev.pool.PoolFactory;
+import su.grinev.pool.ScratchBuffers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static su.grinev.bson.Utility.DOUBLE_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT32_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT64_ARRAY_SUBTYPE;
+
+/**
+ * Reads BSON straight into POJOs: each element key is resolved through
+ * {@link Binder.ClassSchema#byTag} as it is decoded and the field is set immediately.
+ * Nested documents push the target object instead of an intermediate map.
+ */
+public class BsonBindingReader implements ObjectDeserializer {
+    private final Pool<BindingReaderContext> contextPool;
+    private final Pool<ArrayDeque<BindingReaderContext>> stackPool;
+    private Pool<ByteBuffer> binaryPacketPool;
+    private final Binder binder;
+    private final int documentSizeLimit;
+    @Setter
+    private boolean readBinaryAsByteArray = true;
+    /** Canonicalizes short string values; {@code null} decodes every string afresh. */
+    @Setter
+    private StringCache stringCache = StringCache.shared();
+    private final boolean enableBufferProjection;
+    private final ScratchBuffers scratchBuffers;
+
+    public BsonBindingReader(
+            PoolFactory poolFactory,
+            Binder binder,
+            int documentSizeLimit,
+            boolean enableBufferProjection,
+            Supplier<ByteBuffer> byteBufferAllocator
+    ) {
+        this.binder = binder;
+        this.documentSizeLimit = documentSizeLimit;
+        this.enableBufferProjection = enableBufferProjection;
+        contextPool = poolFactory.getPool("bson-binding-reader-context-pool", BindingReaderContext::new);
+        scratchBuffers = poolFactory.getScratchBuffers();
+        stackPool = poolFactory.getPool("bson-binding-reader-stack-pool", () -> new ArrayDeque<>(64));
+        if (!enableBufferProjection) {
+            binaryPacketPool = poolFactory.getPool("bson-binding-reader-packet-pool", byteBufferAllocator);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(ByteBuffer buffer, Class<T> tClass) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        BsonReader bsonReader = new BsonByteBufferReader(buffer, binaryPacketPool, stringCache, scratchBuffers);
+        ArrayDeque<BindingReaderContext> stack = stackPool.get();
+        Object root = Binder.instantiate(tClass);
+
+        try {
+            int rootDocumentLength = bsonReader.readInt();
+            if (rootDocumentLength > documentSizeLimit) {
+                throw new BsonException("Document is too big");
+            }
+            stack.addFirst(contextPool.get().initObject(rootDocumentLength, bsonReader.position(), root, binder.schema(tClass)));
+
+            while (!stack.isEmpty()) {
+                BindingReaderContext ctx = stack.getFirst();
+                int stackSizeBefore = stack.size();
+
+                while (stack.size() == stackSizeBefore) {
+                    int type = bsonReader.readByte();
+                    if (type == 0) {
+                        break;
+                    }
+                    switch (ctx.kind) {
+                        case OBJECT -> readField(bsonReader, ctx, stack, type);
+                        case COLLECTION -> readCollectionItem(bsonReader, ctx, stack, type);
+                        case DOCUMENT -> {
+                            int key = bsonReader.readCStringAsInt();
+                            ctx.map.put(key, readValue(bsonReader, ctx, stack, type));
+                        }
+                        case ARRAY -> {
+                            bsonReader.skipCString();
+                            ctx.list.add(readValue(bsonReader, ctx, stack, type));
+                        }
+                    }
+                }
+
+                if (stack.size() == stackSizeBefore) {
+                    stack.removeFirst();
+                    ctx.reset();
+                    contextPool.release(ctx);
+                }
+            }
+        } finally {
+            stack.clear();
+            stackPool.release(stack);
+        }
+
+        return (T) root;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void readField(BsonReader bsonReader, BindingReaderContext ctx, Deque<BindingReaderContext> stack, int type) {
+        int key = bsonReader.readCStringAsInt();
+        Binder.FieldBinding binding = ctx.schema.byTag(key);
+        if (binding == null) {
+            skipValue(bsonReader, type);
+            return;
+        }
+
+        Object target = ctx.object;
+        try {
+            switch (binding.kind) {
+                case INT, LONG, DOUBLE, FLOAT, BOOLEAN, SHORT, BYTE, CHAR, PRIMITIVE -> readPrimitive(bsonReader, binding, target, type);
+                case ENUM -> binding.set(target, Enum.valueOf((Class<Enum>) binding.fieldType, readScalar(bsonReader, type).toString()));
+                case NESTED -> {
+                    int len = readNestedLength(bsonReader, ctx, type, 0x03);
+                    Object nested = Binder.instantiate(binding.fieldType);
+                    binding.set(target, nested);
+                    stack.addFirst(contextPool.get().initObject(len, bsonReader.position(), nested, binder.schema(nested.getClass())));
+                }
+                case TYPE -> {
+                    int len = readNestedLength(bsonReader, ctx, type, 0x03);
+                    Class<?> targetCls = Binder.resolveClass(findDiscriminator(bsonReader, ctx, binding.discriminator));
+                    Object nested = Binder.instantiate(targetCls);
+                    binding.set(target, nested);
+                    stack.addFirst(contextPool.get().initObject(len, bsonReader.position(), nested, binder.schema(nested.getClass())));
+                }
+                case MAP -> {
+                    int len = readNestedLength(bsonReader, ctx, type, 0x03);
+                    Map<Object, Object> map = new HashMap<>();
+                    binding.set(target, map);
+                    stack.addFirst(contextPool.get().initDocument(len, bsonReader.position(), map));
+                }
+                case COLLECTION -> {
+                    int len = readNestedLength(bsonReader, ctx, type, 0x04);
+                    Collection<Object> collection = Binder.instantiateCollection(binding.fieldType);
+                    binding.set(target, collection);
+                    stack.addFirst(contextPool.get().initCollection(len, bsonReader.position(), collection, binding.genericType));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to bind tag: " + key, e);
+        }
+    }
+
+    private void readPrimitive(BsonReader bsonReader, Binder.FieldBinding binding, Object target, int type) {
+        switch (type) {
+            case 0x01 -> binding.setDouble(target, bsonReader.readDouble());
+            case 0x08 -> binding.setBoolean(target, bsonReader.readBoolean());
+            case 0x09 -> binding.setInstant(target, bsonReader.readDateTime());
+            case 0x10 -> binding.setLong(target, bsonReader.readInt());
+            case 0x12 -> binding.setLong(target, bsonReader.readLong());
+            case 0x02 -> {
+                String s = bsonReader.readString();
+                if (binding.kind == Binder.FieldKind.CHAR) {
+                    binding.setChar(target, s.charAt(0));
+                } else {
+                    binding.set(target, s);
+                }
+            }
+            case 0x05 -> binding.set(target, readBinary(bsonReader, binding.fieldType));
+            default -> binding.set(target, readScalar(bsonReader, type));
+        }
+    }
+
+    private void readCollectionItem(BsonReader bsonReader, BindingReaderContext ctx, Deque<BindingReaderContext> stack, int type) {
+        bsonReader.skipCString();
+        switch (type) {
+            case 0x03 -> {
+                int len = readNestedLength(bsonReader, ctx, type, 0x03);
+                Class<?> itemClass = Binder.resolveClassFromType(Binder.resolveListItemType(ctx.collectionType));
+                Object item = Binder.instantiate(itemClass);
+                ctx.collection.add(item);
+                stack.addFirst(contextPool.get().initObject(len, bsonReader.position(), item, binder.schema(itemClass)));
+            }
+            case 0x04 -> skipValue(bsonReader, type);
+            default -> ctx.collection.add(readScalar(bsonReader, type));
+        }
+    }
+
+    private Object readValue(BsonReader bsonReader, BindingReaderContext ctx, Deque<BindingReaderContext> stack, int type) {
+        return switch (type) {
+            case 0x03 -> {
+                int len = readNestedLength(bsonReader, ctx, type, 0x03);
+                Map<Object, Object> map = new HashMap<>(8);
+                stack.addFirst(contextPool.get().initDocument(len, bsonReader.position(), map));
+                yield map;
+            }
+            case 0x04 -> {
+                int len = readNestedLength(bsonReader, ctx, type, 0x04);
+                List<Object> list = new ArrayList<>(8);
+                stack.addFirst(contextPool.get().initArray(len, bsonReader.position(), list));
+                yield list;
+            }
+            default -> readScalar(bsonReader, type);
+        };
+    }
+
+    private Object readScalar(BsonReader bsonReader, int type) {
+        return switch (type) {
+            case 0x01 -> bsonReader.readDouble();
+            case 0x02 -> bsonReader.readString();
+            case 0x05 -> readBinary(bsonReader, null);
+            case 0x07 -> bsonReader.readObjectId();
+            case 0x08 -> bsonReader.readBoolean();
+            case 0x09 -> bsonReader.readDateTime();
+            case 0x0A -> null;
+            case 0x10 -> bsonReader.readInt();
+            case 0x12 -> bsonReader.readLong();
+            case 0x13 -> bsonReader.readDecimal128();
+            default -> throw new BsonException("Unexpected BSON type: 0x" + Integer.toHexString(type));
+        };
+    }
+
+    /**
+     * Packed subtypes become arrays only for a field of the matching array type; other producers
+     * use the user-defined subtypes for their own data, which stays raw binary.
+     */
+    private Object readBinary(BsonReader bsonReader, Class<?> fieldType) {
+        int subtype = bsonReader.peekBinarySubtype();
+        if (subtype == INT32_ARRAY_SUBTYPE && fieldType == int[].class) {
+            return bsonReader.readIntArray();
+        } else if (subtype == INT64_ARRAY_SUBTYPE && fieldType == long[].class) {
+            return bsonReader.readLongArray();
+        } else if (subtype == DOUBLE_ARRAY_SUBTYPE && fieldType == double[].class) {
+            return bsonReader.readDoubleArray();
+        }
+        return readBinaryAsByteArray
+                ? bsonReader.readBinaryAsArray()
+                : bsonReader.readBinary(enableBufferProjection);
+    }
+
+    private static int readNestedLength(BsonReader bsonReader, BindingReaderContext ctx, int type, int expectedType) {
+        if (type != expectedType) {
+            throw new BsonException("Expected BSON type 0x" + Integer.toHexString(expectedType) + " but got 0x" + Integer.toHexString(type));
+        }
+        int len = bsonReader.readInt();
+        if (len > ctx.length) {
+            throw new BsonException("Nested document cannot have more than " + ctx.length + " bytes");
+        }
+        return len;
+    }
+
+    /**
+     * Scans the current document for the discriminator string without decoding the other
+     * elements, so the class name may appear before or after the typed field.
+     */
+    private static String findDiscriminator(BsonReader bsonReader, BindingReaderContext ctx, int discriminator) {
+        int position = bsonReader.position();
+        try {
+            bsonReader.position(ctx.startPos);
+            while (true) {
+                int type = bsonReader.readByte();
+                if (type == 0) {
+                    throw new BsonException("Discriminator " + discriminator + " not found");
+                }
+                int key = bsonReader.readCStringAsInt();
+                if (key == discriminator && type == 0x02) {
+                    return bsonReader.readString();
+                }
+                skipValue(bsonReader, type);
+            }
+        } finally {
+            bsonReader.position(position);
+        }
+    }
+
+    private static void skipValue(BsonReader bsonReader, int type) {
+        int skip = switch (type) {
+            case 0x01, 0x09, 0x12 -> 8;
+            case 0x02 -> bsonReader.readInt();
+            case 0x03, 0x04 -> bsonReader.readInt() - 4;
+            case 0x05 -> bsonReader.readInt() + 1;
+            case 0x07 -> 12;
+            case 0x08 -> 1;
+            case 0x0A -> 0;
+            case 0x10 -> 4;
+            case 0x13 -> 16;
+            default -> throw new BsonException("Unsupported BSON type: 0x" + Integer.toHexString(type));
+        };
+        bsonReader.position(bsonReader.position() + skip);
+    }
+}
@@ -0,0 +1,526 @@
+package su.grinev.bson;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.grinev.Binder;
+import su.grinev.ObjectSerializer;
+import su.grinev.pool.DynamicByteBuffer;
+import su.grinev.pool.Pool;
+import su.grinev.pool.PoolFactory;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static su.grinev.bson.BsonObjectWriter.getIndexBytes;
+import static su.grinev.bson.Utility.DOUBLE_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT32_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT64_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.encodeDecimal128;
+
+/**
+ * Writes POJOs straight into BSON by walking {@link Binder.ClassSchema} bindings,
+ * without building the intermediate {@link su.grinev.BinaryDocument} tree.
+ * Output is byte-identical to {@code Binder.unbind} followed by {@link BsonObjectWriter}.
+ */
+public class BsonBindingWriter implements ObjectSerializer {
+
+    private final Binder binder;
+    private final Pool<BindingWriterContext> contextPool;
+    private final Pool<ArrayDeque<BindingWriterContext>> stackPool;
+    private final Map<String, byte[]> keyBytesCache = new ConcurrentHashMap<>();
+    /**
+     * Measures the object before writing it: the buffer is grown once to the exact size, the
+     * writes after that skip their capacity checks, and every document length is written up
+     * front instead of being patched in afterwards.
+     */
+    @Setter
+    @Getter
+    private boolean presize;
+
+    public BsonBindingWriter(PoolFactory poolFactory, Binder binder) {
+        this.binder = binder;
+        contextPool = poolFactory.getPool("bson-binding-writer-context-pool", BindingWriterContext::new);
+        stackPool = poolFactory.getPool("bson-binding-writer-stack-pool", () -> new ArrayDeque<>(64));
+    }
+
+    @Override
+    public void serialize(DynamicByteBuffer buffer, Object o) {
+        buffer.initBuffer();
+        DocumentLengths lengths = null;
+        if (presize) {
+            lengths = new DocumentLengths();
+            buffer.ensureCapacity(measureObject(o, lengths));
+        }
+        ArrayDeque<BindingWriterContext> stack = stackPool.get();
+        try {
+            stack.addFirst(rootContext(reserveLength(buffer, lengths), o));
+            serializeLoop(buffer, stack, lengths);
+        } finally {
+            stack.clear();
+            stackPool.release(stack);
+        }
+        buffer.flip();
+    }
+
+    private void serializeLoop(DynamicByteBuffer buffer, Deque<BindingWriterContext> stack, DocumentLengths lengths) {
+        while (!stack.isEmpty()) {
+            BindingWriterContext ctx = stack.getFirst();
+            int stackSize = stack.size();
+
+            while (ctx.hasNext() && stack.size() == stackSize) {
+                switch (ctx.kind) {
+                    case OBJECT -> writeSlot(buffer, stack, ctx, ctx.order.slot(ctx.index++), lengths);
+                    case COLLECTION -> writeCollectionItem(buffer, stack, ctx.iterator.next(), getIndexBytes(ctx.index++), lengths);
+                    case ARRAY -> writeValue(buffer, stack, ctx.iterator.next(), getIndexBytes(ctx.index++), lengths);
+                    case DOCUMENT -> {
+                        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) ctx.iterator.next();
+                        writeValue(buffer, stack, entry.getValue(), getKeyBytes(entry.getKey()), lengths);
+                    }
+                }
+            }
+
+            if (stack.size() == stackSize) {
+                if (lengths == null) {
+                    buffer.ensureCapacity(1);
+                }
+                buffer.put((byte) 0x00);
+                if (lengths == null) {
+                    buffer.putInt(ctx.startPos, buffer.position() - ctx.startPos);
+                }
+                stack.removeFirst();
+                ctx.reset();
+                contextPool.release(ctx);
+            }
+        }
+    }
+
+    /** Writes the field at {@code slot}, or the type key of its {@code @Type} field past {@code schema.size()}. */
+    private void writeSlot(DynamicByteBuffer buffer, Deque<BindingWriterContext> stack, BindingWriterContext ctx, int slot, DocumentLengths lengths) {
+        Binder.ClassSchema schema = ctx.schema;
+        if (slot < schema.size()) {
+            writeField(buffer, stack, ctx, schema.binding(slot), lengths);
+            return;
+        }
+        Binder.FieldBinding binding = schema.binding(schema.typeKeyOwner(slot - schema.size()));
+        Object value = binding.get(ctx.object);
+        if (value != null) {
+            writeString(buffer, binder.getClassName(value.getClass()), getIndexBytes(binding.discriminator), lengths);
+        }
+    }
+
+    private void writeField(DynamicByteBuffer buffer, Deque<BindingWriterContext> stack, BindingWriterContext ctx, Binder.FieldBinding binding, DocumentLengths lengths) {
+        Object target = ctx.object;
+        byte[] keyBytes = getIndexBytes(binding.tag);
+        switch (binding.kind) {
+            case INT -> {
+                writeHeader(buffer, (byte) 0x10, keyBytes, 4, lengths);
+                buffer.putInt(binding.getInt(target));
+                return;
+            }
+            case SHORT -> {
+                writeHeader(buffer, (byte) 0x10, keyBytes, 4, lengths);
+                buffer.putInt(binding.getShort(target));
+                return;
+            }
+            case BYTE -> {
+                writeHeader(buffer, (byte) 0x10, keyBytes, 4, lengths);
+                buffer.putInt(binding.getByte(target));
+                return;
+            }
+            case LONG -> {
+                writeHeader(buffer, (byte) 0x12, keyBytes, 8, lengths);
+                buffer.putLong(binding.getLong(target));
+                return;
+            }
+            case DOUBLE -> {
+                writeHeader(buffer, (byte) 0x01, keyBytes, 8, lengths);
+                buffer.putDouble(binding.getDouble(target));
+                return;
+            }
+            case FLOAT -> {
+                writeHeader(buffer, (byte) 0x01, keyBytes, 8, lengths);
+                buffer.putDouble(binding.getFloat(target));
+                return;
+            }
+            case BOOLEAN -> {
+                writeHeader(buffer, (byte) 0x08, keyBytes, 1, lengths);
+                buffer.put((byte) (binding.getBoolean(target) ? 1 : 0));
+                return;
+            }
+            case CHAR -> {
+                writeString(buffer, String.valueOf(binding.getChar(target)), keyBytes, lengths);
+                return;
+            }
+        }
+
+        Object value = binding.get(target);
+        if (value == null) {
+            return;
+        }
+
+        switch (binding.kind) {
+            case PRIMITIVE -> writeScalar(buffer, value, keyBytes, lengths);
+            case ENUM -> writeString(buffer, value.toString(), keyBytes, lengths);
+            case TYPE, NESTED -> {
+                writeHeader(buffer, (byte) 0x03, keyBytes, lengths);
+                stack.addFirst(objectContext(reserveLength(buffer, lengths), value));
+            }
+            case COLLECTION -> {
+                writeHeader(buffer, (byte) 0x04, keyBytes, lengths);
+                stack.addFirst(contextPool.get().initCollection(reserveLength(buffer, lengths), (Collection<?>) value));
+            }
+            case MAP -> {
+                writeHeader(buffer, (byte) 0x03, keyBytes, lengths);
+                stack.addFirst(contextPool.get().initDocument(reserveLength(buffer, lengths), (Map<?, ?>) value));
+            }
+        }
+    }
+
+    private void writeCollectionItem(DynamicByteBuffer buffer, Deque<BindingWriterContext> stack, Object item, byte[] keyBytes, DocumentLengths lengths) {
+        if (item == null) {
+            writeHeader(buffer, (byte) 0x0A, keyBytes, lengths);
+        } else if (Binder.isPrimitiveOrWrapperOrString(item.getClass()) || item.getClass().isEnum()) {
+            writeString(buffer, item.toString(), keyBytes, lengths);
+        } else {
+            writeHeader(buffer, (byte) 0x03, keyBytes, lengths);
+            stack.addFirst(objectContext(reserveLength(buffer, lengths), item));
+        }
+    }
+
+    private void writeValue(DynamicByteBuffer buffer, Deque<BindingWriterContext> stack, Object value, byte[] keyBytes, DocumentLengths lengths) {
+        switch (value) {
+            case null -> writeHeader(buffer, (byte) 0x0A, keyBytes, lengths);
+            case Map<?, ?> map -> {
+                writeHeader(buffer, (byte) 0x03, keyBytes, lengths);
+                stack.addFirst(contextPool.get().initDocument(reserveLength(buffer, lengths), map));
+            }
+            case List<?> list -> {
+                writeHeader(buffer, (byte) 0x04, keyBytes, lengths);
+                stack.addFirst(contextPool.get().initArray(reserveLength(buffer, lengths), list));
+            }
+            default -> writeScalar(buffer, value, keyBytes, lengths);
+        }
+    }
+
+    private void writeScalar(DynamicByteBuffer buffer, Object value, byte[] keyBytes, DocumentLengths lengths) {
+        switch (value) {
+            case String s -> writeString(buffer, s, keyBytes, lengths);
+            case Integer i -> {
+                writeHeader(buffer, (byte) 0x10, keyBytes, 4, lengths);
+                buffer.putInt(i);
+            }
+            case Long l -> {
+                writeHeader(buffer, (byte) 0x12, keyBytes, 8, lengths);
+                buffer.putLong(l);
+            }
+            case Double d -> {
+                writeHeader(buffer, (byte) 0x01, keyBytes, 8, lengths);
+                buffer.putDouble(d);
+            }
+            case BigDecimal bigDecimal -> {
+                writeHeader(buffer, (byte) 0x13, keyBytes, 16, lengths);
+                long[] encoded = encodeDecimal128(bigDecimal);
+                buffer.putLong(encoded[0]);
+                buffer.putLong(encoded[1]);
+            }
+            case Boolean b -> {
+                writeHeader(buffer, (byte) 0x08, keyBytes, 1, lengths);
+                buffer.put((byte) (b ? 1 : 0));
+            }
+            case byte[] bytes -> {
+                writeHeader(buffer, (byte) 0x05, keyBytes, 4 + 1 + bytes.length, lengths);
+                buffer.putInt(bytes.length)
+                        .put((byte) 0x00)
+                        .put(bytes);
+            }
+            case int[] ints -> {
+                writeHeader(buffer, (byte) 0x05, keyBytes, 4 + 1 + ints.length * Integer.BYTES, lengths);
+                buffer.putInt(ints.length * Integer.BYTES)
+                        .put(INT32_ARRAY_SUBTYPE)
+                        .putInts(ints);
+            }
+            case long[] longs -> {
+                writeHeader(buffer, (byte) 0x05, keyBytes, 4 + 1 + longs.length * Long.BYTES, lengths);
+                buffer.putInt(longs.length * Long.BYTES)
+                        .put(INT64_ARRAY_SUBTYPE)
+                        .putLongs(longs);
+            }
+            case double[] doubles -> {
+                writeHeader(buffer, (byte) 0x05, keyBytes, 4 + 1 + doubles.length * Double.BYTES, lengths);
+                buffer.putInt(doubles.length * Double.BYTES)
+                        .put(DOUBLE_ARRAY_SUBTYPE)
+                        .putDoubles(doubles);
+            }
+            case ByteBuffer byteBuffer -> {
+                writeHeader(buffer, (byte) 0x05, keyBytes, 4 + 1 + byteBuffer.limit(), lengths);
+                buffer.putInt(byteBuffer.limit())
+                        .put((byte) 0x00)
+                        .putByteBuffer(byteBuffer);
+                byteBuffer.position(0);
+            }
+            case Instant instant -> {
+                writeHeader(buffer, (byte) 0x09, keyBytes, 8, lengths);
+                buffer.putLong(instant.toEpochMilli());
+            }
+            default -> throw new IllegalArgumentException("Unsupported type: " + value.getClass());
+        }
+    }
+
+    private static void writeString(DynamicByteBuffer buffer, String s, byte[] keyBytes, DocumentLengths lengths) {
+        byte[] strBytes = s.getBytes(StandardCharsets.UTF_8);
+        writeHeader(buffer, (byte) 0x02, keyBytes, 4 + strBytes.length + 1, lengths);
+        buffer.putInt(strBytes.length + 1);
+        buffer.put(strBytes).put((byte) 0x00);
+    }
+
+    private static void writeHeader(DynamicByteBuffer buffer, byte type, byte[] keyBytes, DocumentLengths lengths) {
+        writeHeader(buffer, type, keyBytes, 0, lengths);
+    }
+
+    /**
+     * Element type and key; room for them and the {@code valueSize} bytes after them is made here,
+     * unless the object was measured ({@code lengths} is set) and the buffer already holds all of it.
+     */
+    private static void writeHeader(DynamicByteBuffer buffer, byte type, byte[] keyBytes, int valueSize, DocumentLengths lengths) {
+        if (lengths == null) {
+            buffer.ensureCapacity(1 + keyBytes.length + 1 + valueSize);
+        }
+        buffer.put(type);
+        buffer.put(keyBytes).put((byte) 0x00);
+    }
+
+    /** Context of the document {@code Binder.unbind} puts into a {@code HashMap}, with its keys in that order. */
+    private BindingWriterContext rootContext(int startPos, Object o) {
+        Binder.ClassSchema schema = binder.schema(o.getClass());
+        return contextPool.get().initObject(startPos, o, schema, schema.rootKeyOrder(o));
+    }
+
+    private BindingWriterContext objectContext(int startPos, Object o) {
+        Binder.ClassSchema schema = binder.schema(o.getClass());
+        return contextPool.get().initObject(startPos, o, schema, schema.keyOrder());
+    }
+
+    private static int reserveLength(DynamicByteBuffer buffer, DocumentLengths lengths) {
+        int startPos = buffer.position();
+        if (lengths != null) {
+            buffer.putInt(lengths.next());
+        } else {
+            buffer.ensureCapacity(4);
+            buffer.position(startPos + 4);
+        }
+        return startPos;
+    }
+
+    /** Exact number of bytes {@link #serialize} writes for {@code o}. */
+    public int measure(Object o) {
+        return measureObject(o, new DocumentLengths());
+    }
+
+    // The measuring pass walks the same stack as the write pass, so documents are opened in the
+    // same depth-first order and the write pass takes the recorded lengths in that order. A
+    // context's startPos is its slot in the lengths; a document's size is added to its parent's
+    // slot when it is closed.
+
+    private int measureObject(Object o, DocumentLengths lengths) {
+        ArrayDeque<BindingWriterContext> stack = stackPool.get();
+        try {
+            stack.addFirst(rootContext(lengths.open(), o));
+            while (true) {
+                BindingWriterContext ctx = stack.getFirst();
+                int stackSize = stack.size();
+
+                while (ctx.hasNext() && stack.size() == stackSize) {
+                    int size = switch (ctx.kind) {
+                        case OBJECT -> measureSlot(stack, ctx, ctx.order.slot(ctx.index++), lengths);
+                        case COLLECTION -> measureCollectionItem(stack, ctx.iterator.next(), getIndexBytes(ctx.index++), lengths);
+                        case ARRAY -> measureValue(stack, ctx.iterator.next(), getIndexBytes(ctx.index++), lengths);
+                        case DOCUMENT -> {
+                            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) ctx.iterator.next();
+                            yield measureValue(stack, entry.getValue(), getKeyBytes(entry.getKey()), lengths);
+                        }
+                    };
+                    lengths.add(ctx.startPos, size);
+                }
+
+                if (stack.size() == stackSize) {
+                    int size = lengths.get(ctx.startPos);
+                    stack.removeFirst();
+                    ctx.reset();
+                    contextPool.release(ctx);
+                    if (stack.isEmpty()) {
+                        return size;
+                    }
+                    lengths.add(stack.getFirst().startPos, size);
+                }
+            }
+        } finally {
+            stack.clear();
+            stackPool.release(stack);
+        }
+    }
+
+    /** Bytes of the field or type key at {@code slot}, see {@link #writeSlot}. */
+    private int measureSlot(Deque<BindingWriterContext> stack, BindingWriterContext ctx, int slot, DocumentLengths lengths) {
+        Binder.ClassSchema schema = ctx.schema;
+        if (slot < schema.size()) {
+            return measureField(stack, ctx.object, schema.binding(slot), lengths);
+        }
+        Binder.FieldBinding binding = schema.binding(schema.typeKeyOwner(slot - schema.size()));
+        Object value = binding.get(ctx.object);
+        if (value == null) {
+            return 0;
+        }
+        return 1 + getIndexBytes(binding.discriminator).length + 1 + stringSize(binder.getClassName(value.getClass()));
+    }
+
+    /** Bytes of the field, without the body of a document it opens; that one is pushed. */
+    private int measureField(Deque<BindingWriterContext> stack, Object target, Binder.FieldBinding binding, DocumentLengths lengths) {
+        int header = 1 + getIndexBytes(binding.tag).length + 1;
+        switch (binding.kind) {
+            case INT, SHORT, BYTE -> {
+                return header + 4;
+            }
+            case LONG, DOUBLE, FLOAT -> {
+                return header + 8;
+            }
+            case BOOLEAN -> {
+                return header + 1;
+            }
+            case CHAR -> {
+                return header + stringSize(String.valueOf(binding.getChar(target)));
+            }
+        }
+
+        Object value = binding.get(target);
+        if (value == null) {
+            return 0;
+        }
+
+        switch (binding.kind) {
+            case PRIMITIVE -> {
+                return header + scalarSize(value);
+            }
+            case ENUM -> {
+                return header + stringSize(value.toString());
+            }
+            case TYPE, NESTED -> stack.addFirst(objectContext(lengths.open(), value));
+            case COLLECTION -> stack.addFirst(contextPool.get().initCollection(lengths.open(), (Collection<?>) value));
+            case MAP -> stack.addFirst(contextPool.get().initDocument(lengths.open(), (Map<?, ?>) value));
+        }
+        return header;
+    }
+
+    private int measureCollectionItem(Deque<BindingWriterContext> stack, Object item, byte[] keyBytes, DocumentLengths lengths) {
+        int header = 1 + keyBytes.length + 1;
+        if (item == null) {
+            return header;
+        }
+        if (Binder.isPrimitiveOrWrapperOrString(item.getClass()) || item.getClass().isEnum()) {
+            return header + stringSize(item.toString());
+        }
+        stack.addFirst(objectContext(lengths.open(), item));
+        return header;
+    }
+
+    private int measureValue(Deque<BindingWriterContext> stack, Object value, byte[] keyBytes, DocumentLengths lengths) {
+        int header = 1 + keyBytes.length + 1;
+        switch (value) {
+            case null -> {
+                return header;
+            }
+            case Map<?, ?> map -> stack.addFirst(contextPool.get().initDocument(lengths.open(), map));
+            case List<?> list -> stack.addFirst(contextPool.get().initArray(lengths.open(), list));
+            default -> {
+                return header + scalarSize(value);
+            }
+        }
+        return header;
+    }
+
+    private static int scalarSize(Object value) {
+        return switch (value) {
+            case String s -> stringSize(s);
+            case Integer i -> 4;
+            case Long l -> 8;
+            case Double d -> 8;
+            case BigDecimal bigDecimal -> 16;
+            case Boolean b -> 1;
+            case byte[] bytes -> 4 + 1 + bytes.length;
+            case int[] ints -> 4 + 1 + ints.length * Integer.BYTES;
+            case long[] longs -> 4 + 1 + longs.length * Long.BYTES;
+            case double[] doubles -> 4 + 1 + doubles.length * Double.BYTES;
+            case ByteBuffer byteBuffer -> 4 + 1 + byteBuffer.limit();
+            case Instant instant -> 8;
+            default -> throw new IllegalArgumentException("Unsupported type: " + value.getClass());
+        };
+    }
+
+    private static int stringSize(String s) {
+        return 4 + utf8Length(s) + 1;
+    }
+
+    /** Length of {@code s.getBytes(UTF_8)} without encoding it; an unpaired surrogate becomes '?'. */
+    static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /** Document lengths in the order the documents are opened, filled in by the measuring pass. */
+    private static final class DocumentLengths {
+        private int[] values = new int[16];
+        private int size;
+        private int next;
+
+        /** Slot of a new document, starting at its length prefix and terminator. */
+        int open() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = 4 + 1;
+            return size++;
+        }
+
+        void add(int slot, int bytes) {
+            values[slot] += bytes;
+        }
+
+        int get(int slot) {
+            return values[slot];
+        }
+
+        int next() {
+            return values[next++];
+        }
+    }
+
+    private byte[] getKeyBytes(Object key) {
+        if (key instanceof Number n) {
+            return getIndexBytes(n.intValue());
+        }
+        return keyBytesCache.computeIfAbsent(key.toString(), k -> k.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,12 +1,15 @@
 package su.grinev.bson;
 
 import lombok.extern.slf4j.Slf4j;
+import su.grinev.LazyUtf8;
+import su.grinev.StringCache;
 import su.grinev.exception.BsonException;
-import su.grinev.pool.FastPool;
 import su.grinev.pool.Pool;
+import su.grinev.pool.ScratchBuffers;
 
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 
@@ -15,27 +18,48 @@ import static su.grinev.bson.Utility.decodeDecimal128;
 @Slf4j
 public class BsonByteBufferReader implements BsonReader {
 
-    private static final int STRING_BUFFER_SIZE = 256;
-    private static final ThreadLocal<byte[]> stringBuffer = ThreadLocal.withInitial(() -> new byte[STRING_BUFFER_SIZE]);
     private final ByteBuffer buffer;
     private final Pool<ByteBuffer> byteBufferPool;
+    private final StringCache stringCache;
+    private final ScratchBuffers scratchBuffers;
 
     public BsonByteBufferReader(ByteBuffer buffer, Pool<ByteBuffer> binaryPacketPool) {
+        this(buffer, binaryPacketPool, null);
+    }
+
+    public BsonByteBufferReader(ByteBuffer buffer, Pool<ByteBuffer> binaryPacketPool, StringCache stringCache) {
+        this(buffer, binaryPacketPool, stringCache, ScratchBuffers.threadLocal());
+    }
+
+    public BsonByteBufferReader(ByteBuffer buffer, Pool<ByteBuffer> binaryPacketPool, StringCache stringCache, ScratchBuffers scratchBuffers) {
         this.buffer = buffer;
         this.byteBufferPool = binaryPacketPool;
+        this.stringCache = stringCache;
+        this.scratchBuffers = scratchBuffers;
     }
 
     @Override
     public String readString() {
         int len = buffer.getInt() - 1;
-        byte[] bytes = stringBuffer.get();
-        if (bytes.length < len) {
-            bytes = new byte[Math.max(len, STRING_BUFFER_SIZE * 2)];
-            stringBuffer.set(bytes);
+        if (stringCache != null && stringCache.accepts(len)) {
+            String value = stringCache.get(buffer, buffer.position(), len);
+            buffer.position(buffer.position() + len + 1);
+            return value;
         }
+        byte[] bytes = scratchBuffers.acquire(len);
         buffer.get(bytes, 0, len);
         buffer.position(buffer.position() + 1);
-        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+        String value = new String(bytes, 0, len, StandardCharsets.UTF_8);
+        scratchBuffers.release(bytes);
+        return value;
+    }
+
+    @Override
+    public LazyUtf8 readLazyString() {
+        int len = buffer.getInt() - 1;
+        LazyUtf8 value = new LazyUtf8(buffer, buffer.position(), len);
+        buffer.position(buffer.position() + len + 1);
+        return value;
     }
 
     @Override
@@ -43,14 +67,49 @@ public class BsonByteBufferReader implements BsonReader {
         int len = 0;
         for (int i = buffer.position(); buffer.get(i++) != 0; len++) {}
 
-        byte[] bytes = stringBuffer.get();
-        if (bytes.length < len) {
-            bytes = new byte[Math.max(len, STRING_BUFFER_SIZE * 2)];
-            stringBuffer.set(bytes);
-        }
+        byte[] bytes = scratchBuffers.acquire(len);
         buffer.get(bytes, 0, len);
         buffer.position(buffer.position() + 1);
-        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+        String value = new String(bytes, 0, len, StandardCharsets.UTF_8);
+        scratchBuffers.release(bytes);
+        return value;
+    }
+
+    @Override
+    public int readCStringAsInt() {
+        int start = buffer.position();
+        byte b = buffer.get();
+        boolean negative = b == '-';
+        if (negative) {
+            b = buffer.get();
+        }
+
+        // the range Integer.parseInt accepts, one more on the negative side
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        int digits = 0;
+        for (; b != 0; b = buffer.get(), digits++) {
+            if (b < '0' || b > '9') {
+                throw new BsonException("Non-numeric key at position " + start);
+            }
+            value = value * 10 + (b - '0');
+            if (value > limit) {
+                throw new BsonException("Key out of int range at position " + start);
+            }
+        }
+        if (digits == 0) {
+            throw new BsonException("Empty key at position " + start);
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    @Override
+    public void skipCString() {
+        int i = buffer.position();
+        while (buffer.get(i) != 0) {
+            i++;
+        }
+        buffer.position(i + 1);
     }
 
     @Override
@@ -97,7 +156,8 @@ public class BsonByteBufferReader implements BsonReader {
             buffer1 = buffer.slice(buffer.position(), len);
             buffer.position(buffer.position() + len);
         } else {
-            buffer1 = byteBufferPool.get().clear();
+            // without a pool the copy goes to a heap buffer of its own
+            buffer1 = byteBufferPool != null ? byteBufferPool.get().clear() : ByteBuffer.allocate(len);
 
             if (len > buffer1.capacity()) {
                 buffer1 = ByteBuffer.allocateDirect(len);
@@ -113,6 +173,50 @@ public class BsonByteBufferReader implements BsonReader {
         return buffer1;
     }
 
+    @Override
+    public byte peekBinarySubtype() {
+        return buffer.get(buffer.position() + 4);
+    }
+
+    @Override
+    public int[] readIntArray() {
+        int len = readPackedLength(Integer.BYTES);
+        int[] values = new int[len / Integer.BYTES];
+        buffer.slice(buffer.position(), len).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+        buffer.position(buffer.position() + len);
+        return values;
+    }
+
+    @Override
+    public long[] readLongArray() {
+        int len = readPackedLength(Long.BYTES);
+        long[] values = new long[len / Long.BYTES];
+        buffer.slice(buffer.position(), len).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(values);
+        buffer.position(buffer.position() + len);
+        return values;
+    }
+
+    @Override
+    public double[] readDoubleArray() {
+        int len = readPackedLength(Double.BYTES);
+        double[] values = new double[len / Double.BYTES];
+        buffer.slice(buffer.position(), len).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + len);
+        return values;
+    }
+
+    private int readPackedLength(int elementSize) {
+        int len = buffer.getInt();
+        buffer.get(); // subtype, already dispatched on by the caller
+        if (len < 0 || len % elementSize != 0) {
+            throw new BsonException("Invalid packed array length: " + len);
+        }
+        if (len > buffer.remaining()) {
+            throw new BsonException("Packed array truncated: len=" + len + ", remaining=" + buffer.remaining());
+        }
+        return len;
+    }
+
     @Override
     public String readObjectId() {
         byte[] oid = new byte[12];
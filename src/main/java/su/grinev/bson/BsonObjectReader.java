@@ -4,9 +4,12 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import su.grinev.BinaryDocument;
 import su.grinev.Deserializer;
+import su.grinev.LazyUtf8;
+import su.grinev.StringCache;
 import su.grinev.exception.BsonException;
 import su.grinev.pool.Pool;
 import su.grinev.pool.PoolFactory;
+import su.grinev.pool.ScratchBuffers;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -16,6 +19,10 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static su.grinev.bson.Utility.DOUBLE_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT32_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT64_ARRAY_SUBTYPE;
+
 @Slf4j
 public class BsonObjectReader implements Deserializer {
     private final Pool<ReaderContext> contextPool;
@@ -25,7 +32,24 @@ public class BsonObjectReader implements Deserializer {
     private final int documentSizeLimit;
     @Setter
     private boolean readBinaryAsByteArray = true;
+    /** Canonicalizes short string values; {@code null} decodes every string afresh. */
+    @Setter
+    private StringCache stringCache = StringCache.shared();
+    /**
+     * Decode string values as {@link LazyUtf8} views into the input buffer instead of copying them.
+     * The buffer has to outlive the document until the strings that are used have been read.
+     */
+    @Setter
+    private boolean lazyStrings;
+    /**
+     * Decode binaries with the user-defined subtypes 0x80, 0x81 and 0x82 as the packed
+     * {@code int[]}, {@code long[]} and {@code double[]} this library writes. Off by default,
+     * since other producers use these subtypes for their own data, which then stays raw binary.
+     */
+    @Setter
+    private boolean packedArrays;
     private final boolean enableBufferProjection;
+    private final ScratchBuffers scratchBuffers;
     private final Map<Integer, Function<ByteBuffer, Object>> customDeserializer = new HashMap<>();
 
     public BsonObjectReader(
@@ -37,6 +61,7 @@ public class BsonObjectReader implements Deserializer {
         this.documentSizeLimit = documentSizeLimit;
         this.enableBufferProjection = enableBufferProjection;
         contextPool = poolFactory.getPool("bson-reader-context-pool", ReaderContext::new);
+        scratchBuffers = poolFactory.getScratchBuffers();
         packetPool = poolFactory.getPool("bson-reader-input-steam-pool", () -> new byte[documentSizeLimit]);
         stackPool = poolFactory.getPool("bson-reader-stack-pool", () -> new ArrayDeque<>(64));
         if (!enableBufferProjection) {
@@ -48,7 +73,7 @@ public class BsonObjectReader implements Deserializer {
         buffer.order(ByteOrder.LITTLE_ENDIAN);
 
         Map<Object, Object> rootDocument = binaryDocument.getDocumentMap();
-        BsonReader bsonReader = new BsonByteBufferReader(buffer, binaryPacketPool);
+        BsonReader bsonReader = new BsonByteBufferReader(buffer, binaryPacketPool, stringCache, scratchBuffers);
         ArrayDeque<ReaderContext> stack = stackPool.get();
 
         try {
@@ -139,10 +164,19 @@ public class BsonObjectReader implements Deserializer {
         }
     }
 
+    /**
+     * A {@link BsonPushParser} with this reader's size limit, string cache and binary settings,
+     * for documents that arrive in chunks.
+     */
+    public BsonPushParser pushParser() {
+        BsonPushParser parser = new BsonPushParser(documentSizeLimit, stringCache, scratchBuffers, customDeserializer);
+        parser.setReadBinaryAsByteArray(readBinaryAsByteArray);
+        parser.setPackedArrays(packedArrays);
+        return parser;
+    }
+
     private Object doReadValue(BsonReader objectReader, ReaderContext ctx, Deque<ReaderContext> stack, int type) {
         return switch (type) {
-            case 0x01 -> objectReader.readDouble();
-            case 0x02 -> objectReader.readString(); // UTF-8 String
             case 0x03 -> { // Embedded document
                 int len = objectReader.readInt();
                 if (len > ctx.getLength()) {
@@ -169,13 +203,28 @@ public class BsonObjectReader implements Deserializer {
                 stack.addFirst(readerContext);
                 yield value;
             }
-            case 0x05 -> {
-                if (readBinaryAsByteArray) {
-                    yield objectReader.readBinaryAsArray();
-                } else {
-                    yield objectReader.readBinary(enableBufferProjection);
-                }
-            }
+            default -> readScalar(objectReader, type, lazyStrings, readBinaryAsByteArray, packedArrays, enableBufferProjection, customDeserializer);
+        };
+    }
+
+    /**
+     * Decodes an element that is neither a document nor an array; shared with {@link BsonPushParser}.
+     * Without {@code bufferProjection}, generic binaries are copied into the reader's buffer pool,
+     * or into a heap buffer when it has none.
+     */
+    static Object readScalar(BsonReader objectReader, int type, boolean lazyStrings, boolean readBinaryAsByteArray, boolean packedArrays, boolean bufferProjection,
+                             Map<Integer, Function<ByteBuffer, Object>> customDeserializer) {
+        return switch (type) {
+            case 0x01 -> objectReader.readDouble();
+            case 0x02 -> lazyStrings ? objectReader.readLazyString() : objectReader.readString(); // UTF-8 String
+            case 0x05 -> switch (packedArrays ? objectReader.peekBinarySubtype() : -1) {
+                case INT32_ARRAY_SUBTYPE -> objectReader.readIntArray();
+                case INT64_ARRAY_SUBTYPE -> objectReader.readLongArray();
+                case DOUBLE_ARRAY_SUBTYPE -> objectReader.readDoubleArray();
+                default -> readBinaryAsByteArray
+                        ? objectReader.readBinaryAsArray()
+                        : objectReader.readBinary(bufferProjection);
+            };
             case 0x07 -> objectReader.readObjectId();
             case 0x08 -> objectReader.readBoolean();
             case 0x09 -> objectReader.readDateTime();
@@ -2,6 +2,7 @@ package su.grinev.bson;
 
 import su.grinev.BinaryDocument;
 import su.grinev.Serializer;
+import su.grinev.pool.BufferArena;
 import su.grinev.pool.DisposablePool;
 import su.grinev.pool.DynamicByteBuffer;
 import su.grinev.pool.Pool;
@@ -19,6 +20,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static su.grinev.bson.Utility.DOUBLE_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT32_ARRAY_SUBTYPE;
+import static su.grinev.bson.Utility.INT64_ARRAY_SUBTYPE;
 import static su.grinev.bson.Utility.encodeDecimal128;
 import static su.grinev.bson.WriterContext.fillForArray;
 import static su.grinev.bson.WriterContext.fillForDocument;
@@ -44,7 +48,10 @@ public class BsonObjectWriter implements Serializer {
             boolean directBuffers
     ) {
         writerContextPool = poolFactory.getPool("bson-writer-context-pool", WriterContext::new);
-        dynamicByteBufferPool = poolFactory.getDisposablePool("bson-write-buffer-pool", () -> new DynamicByteBuffer(documentSize, directBuffers));
+        BufferArena arena = directBuffers ? poolFactory.getBufferArena() : null;
+        dynamicByteBufferPool = poolFactory.getDisposablePool("bson-write-buffer-pool", arena != null
+                ? () -> new DynamicByteBuffer(documentSize, arena)
+                : () -> new DynamicByteBuffer(documentSize, directBuffers));
         bufferPool = poolFactory.getPool("bson-writer-nested-buffer-pool", () -> new byte[documentSize]);
         stackPool = poolFactory.getPool("bson-writer-stack-pool", () -> new ArrayDeque<>(64));
     }
@@ -54,7 +61,7 @@ public class BsonObjectWriter implements Serializer {
     }
 
     static byte[] getIndexBytes(int index) {
-        return index < INDEX_BYTES.length ? INDEX_BYTES[index] : Integer.toString(index).getBytes(StandardCharsets.UTF_8);
+        return index >= 0 && index < INDEX_BYTES.length ? INDEX_BYTES[index] : Integer.toString(index).getBytes(StandardCharsets.UTF_8);
     }
 
     public void serialize(DynamicByteBuffer buffer, BinaryDocument document) {
@@ -165,13 +172,37 @@ public class BsonObjectWriter implements Serializer {
                         .put((byte) 0x00)
                         .put(bytes);
             }
+            case int[] ints -> {
+                buffer.ensureCapacity(1 + keyBytes.length + 1 + 4 + 1 + ints.length * Integer.BYTES);
+                buffer.put((byte) 0x05);
+                writeCString(buffer, keyBytes);
+                buffer.putInt(ints.length * Integer.BYTES)
+                        .put(INT32_ARRAY_SUBTYPE)
+                        .putInts(ints);
+            }
+            case long[] longs -> {
+                buffer.ensureCapacity(1 + keyBytes.length + 1 + 4 + 1 + longs.length * Long.BYTES);
+                buffer.put((byte) 0x05);
+                writeCString(buffer, keyBytes);
+                buffer.putInt(longs.length * Long.BYTES)
+                        .put(INT64_ARRAY_SUBTYPE)
+                        .putLongs(longs);
+            }
+            case double[] doubles -> {
+                buffer.ensureCapacity(1 + keyBytes.length + 1 + 4 + 1 + doubles.length * Double.BYTES);
+                buffer.put((byte) 0x05);
+                writeCString(buffer, keyBytes);
+                buffer.putInt(doubles.length * Double.BYTES)
+                        .put(DOUBLE_ARRAY_SUBTYPE)
+                        .putDoubles(doubles);
+            }
             case ByteBuffer byteBuffer -> {
                 buffer.ensureCapacity(1 + keyBytes.length + 1 + 4 + 1 + byteBuffer.limit());
                 buffer.put((byte) 0x05);
                 writeCString(buffer, keyBytes);
                 buffer.putInt(byteBuffer.limit())
                         .put((byte) 0x00)
-                        .getBuffer().put(byteBuffer);
+                        .putByteBuffer(byteBuffer);
                 byteBuffer.position(0);
             }
             case Instant instant -> {
@@ -255,13 +286,37 @@ public class BsonObjectWriter implements Serializer {
                         .put((byte) 0x00)
                         .put(bytes);
             }
+            case int[] ints -> {
+                buffer.ensureCapacity(1 + indexBytes.length + 1 + 4 + 1 + ints.length * Integer.BYTES);
+                buffer.put((byte) 0x05);
+                buffer.put(indexBytes).put((byte) 0x00);
+                buffer.putInt(ints.length * Integer.BYTES)
+                        .put(INT32_ARRAY_SUBTYPE)
+                        .putInts(ints);
+            }
+            case long[] longs -> {
+                buffer.ensureCapacity(1 + indexBytes.length + 1 + 4 + 1 + longs.length * Long.BYTES);
+                buffer.put((byte) 0x05);
+                buffer.put(indexBytes).put((byte) 0x00);
+                buffer.putInt(longs.length * Long.BYTES)
+                        .put(INT64_ARRAY_SUBTYPE)
+                        .putLongs(longs);
+            }
+            case double[] doubles -> {
+                buffer.ensureCapacity(1 + indexBytes.length + 1 + 4 + 1 + doubles.length * Double.BYTES);
+                buffer.put((byte) 0x05);
+                buffer.put(indexBytes).put((byte) 0x00);
+                buffer.putInt(doubles.length * Double.BYTES)
+                        .put(DOUBLE_ARRAY_SUBTYPE)
+                        .putDoubles(doubles);
+            }
             case ByteBuffer byteBuffer -> {
                 buffer.ensureCapacity(1 + indexBytes.length + 1 + 4 + 1 + byteBuffer.limit());
                 buffer.put((byte) 0x05);
                 buffer.put(indexBytes).put((byte) 0x00);
                 buffer.putInt(byteBuffer.limit())
                         .put((byte) 0x00)
-                        .getBuffer().put(byteBuffer);
+                        .putByteBuffer(byteBuffer);
                 byteBuffer.position(0);
             }
             case Instant instant -> {
@@ -0,0 +1,276 @@
+package su.grinev.bson;
+
+import lombok.Setter;
+import su.grinev.BinaryDocument;
+import su.grinev.StringCache;
+import su.grinev.exception.BsonException;
+import su.grinev.pool.ScratchBuffers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Push-style BSON parser for input that arrives in chunks, e.g. from a non-blocking channel.
+ * {@link #feed} parses every element that is complete in the chunk and returns
+ * {@link Status#NEED_MORE_INPUT} when the chunk ends in the middle of one. The open documents
+ * stay on the parser's stack and only the bytes of the unfinished element are kept, so the
+ * next chunk continues from there and nothing is parsed twice.
+ * <p>
+ * Chunks are not referenced after {@code feed} returns, so strings are always decoded and
+ * binaries always copied. Bytes after the end of the document are left in the chunk.
+ * A parser is not thread safe; {@link #reset()} prepares it for the next document.
+ */
+public class BsonPushParser {
+
+    public enum Status {
+        NEED_MORE_INPUT,
+        DONE
+    }
+
+    private static final int ROOT_HEADER = 4;
+
+    private final int documentSizeLimit;
+    private final ScratchBuffers scratchBuffers;
+    private final Map<Integer, Function<ByteBuffer, Object>> customDeserializer;
+    @Setter
+    private boolean readBinaryAsByteArray = true;
+    /** See {@link BsonObjectReader#setPackedArrays}. */
+    @Setter
+    private boolean packedArrays;
+    /** Canonicalizes short string values; {@code null} decodes every string afresh. */
+    @Setter
+    private StringCache stringCache;
+
+    private final ArrayDeque<Frame> stack = new ArrayDeque<>(64);
+    private ByteBuffer carry = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    private Map<Object, Object> root;
+    private int rootLength;
+    private int consumed;
+    private boolean done;
+
+    /** An open document or array and the offset from the document start where it ends. */
+    private static final class Frame {
+        final Map<Object, Object> document; // null for an array
+        final List<Object> array;
+        final int end;
+
+        Frame(Map<Object, Object> document, List<Object> array, int end) {
+            this.document = document;
+            this.array = array;
+            this.end = end;
+        }
+
+        void add(Object key, Object value) {
+            if (document != null) {
+                document.put(key, value);
+            } else {
+                array.add(value);
+            }
+        }
+    }
+
+    public BsonPushParser(int documentSizeLimit, StringCache stringCache, ScratchBuffers scratchBuffers) {
+        this(documentSizeLimit, stringCache, scratchBuffers, Map.of());
+    }
+
+    /** {@code customDeserializer} decodes element types BSON doesn't define, as in {@link BsonObjectReader}. */
+    public BsonPushParser(int documentSizeLimit, StringCache stringCache, ScratchBuffers scratchBuffers,
+                          Map<Integer, Function<ByteBuffer, Object>> customDeserializer) {
+        this.documentSizeLimit = documentSizeLimit;
+        this.stringCache = stringCache;
+        this.scratchBuffers = scratchBuffers;
+        this.customDeserializer = customDeserializer;
+        reset();
+    }
+
+    /**
+     * Parses as much of {@code chunk} as possible. Returns {@link Status#DONE} once the document
+     * is complete, with the chunk positioned right after it.
+     */
+    public Status feed(ByteBuffer chunk) {
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        BsonReader reader = null;
+
+        while (!done) {
+            if (carry.position() > 0) {
+                int need = required(carry, 0, carry.position());
+                if (need > carry.position()) {
+                    if (!chunk.hasRemaining()) {
+                        return Status.NEED_MORE_INPUT;
+                    }
+                    // never copy past the element, the rest of the chunk is parsed in place
+                    append(chunk, Math.min(need - carry.position(), chunk.remaining()));
+                    continue;
+                }
+                carry.flip();
+                parse(new BsonByteBufferReader(carry, null, stringCache, scratchBuffers));
+                carry.clear();
+                continue;
+            }
+
+            int need = required(chunk, chunk.position(), chunk.remaining());
+            if (need > chunk.remaining()) {
+                append(chunk, chunk.remaining());
+                return Status.NEED_MORE_INPUT;
+            }
+            if (reader == null) {
+                reader = new BsonByteBufferReader(chunk, null, stringCache, scratchBuffers);
+            }
+            parse(reader);
+        }
+        return Status.DONE;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /** The parsed document; only available after {@link #feed} returned {@link Status#DONE}. */
+    public BinaryDocument getDocument() {
+        if (!done) {
+            throw new IllegalStateException("Document is not complete yet");
+        }
+        return new BinaryDocument(root, rootLength);
+    }
+
+    /** Drops any partial state so the parser can take the next document. */
+    public void reset() {
+        stack.clear();
+        carry.clear();
+        root = new HashMap<>(8);
+        rootLength = 0;
+        consumed = 0;
+        done = false;
+    }
+
+    /**
+     * Bytes the next element needs, counted from {@code from}. When the visible bytes are not
+     * enough to tell, returns a lower bound larger than {@code available}.
+     */
+    private int required(ByteBuffer buffer, int from, int available) {
+        if (stack.isEmpty()) {
+            return ROOT_HEADER;
+        }
+        if (available < 1) {
+            return 1;
+        }
+        byte type = buffer.get(from);
+        if (type == 0) {
+            return 1;
+        }
+
+        int i = from + 1;
+        while (i < from + available && buffer.get(i) != 0) {
+            i++;
+        }
+        long need;
+        if (i == from + available) {
+            need = available + 1;
+        } else {
+            int header = i + 1 - from;
+            need = switch (type) {
+                case 0x01, 0x09, 0x12 -> header + 8;
+                case 0x03, 0x04, 0x10 -> header + 4;
+                case 0x07 -> header + 12;
+                case 0x08 -> header + 1;
+                case 0x0A -> header;
+                case 0x13 -> header + 16;
+                case 0x02, 0x05 -> {
+                    if (available < header + 4) {
+                        yield header + 4;
+                    }
+                    int len = buffer.getInt(from + header);
+                    if (len < (type == 0x02 ? 1 : 0)) {
+                        throw new BsonException("Negative length " + len + " at offset " + (consumed + header));
+                    }
+                    yield header + 4L + (type == 0x05 ? 1 : 0) + len;
+                }
+                // a custom type takes no value bytes, BsonObjectReader.readScalar reads none for it
+                default -> {
+                    if (customDeserializer.containsKey((int) type)) {
+                        yield header;
+                    }
+                    throw new IllegalArgumentException("Unsupported BSON type: 0x" + Integer.toHexString(type));
+                }
+            };
+        }
+
+        // an element can't run past the terminator of its document, which also bounds the carry
+        if (need > stack.getFirst().end - 1 - consumed) {
+            throw new BsonException("Element at offset " + consumed + " overruns its document");
+        }
+        return (int) need;
+    }
+
+    private void append(ByteBuffer chunk, int count) {
+        if (carry.remaining() < count) {
+            int capacity = Math.max(carry.capacity() * 2, carry.position() + count);
+            ByteBuffer grown = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            carry.flip();
+            grown.put(carry);
+            carry = grown;
+        }
+        carry.put(carry.position(), chunk, chunk.position(), count);
+        carry.position(carry.position() + count);
+        chunk.position(chunk.position() + count);
+    }
+
+    /** Parses one complete element, or the root header, that {@link #required} has measured. */
+    private void parse(BsonReader reader) {
+        int start = reader.position();
+
+        if (stack.isEmpty()) {
+            rootLength = reader.readInt();
+            if (rootLength > documentSizeLimit) {
+                throw new BsonException("Document is too big");
+            }
+            if (rootLength < 5) {
+                throw new BsonException("Invalid document length: " + rootLength);
+            }
+            consumed = ROOT_HEADER;
+            stack.addFirst(new Frame(root, null, rootLength));
+            return;
+        }
+
+        Frame frame = stack.getFirst();
+        int type = reader.readByte();
+        if (type == 0) {
+            consumed++;
+            if (consumed != frame.end) {
+                throw new BsonException("Document terminator at offset " + (consumed - 1) + ", expected at " + (frame.end - 1));
+            }
+            stack.removeFirst();
+            done = stack.isEmpty();
+            return;
+        }
+
+        Object key = null;
+        if (frame.document != null) {
+            key = reader.readCStringAsInt();
+        } else {
+            reader.skipCString(); // Skip array index key
+        }
+
+        Object value;
+        if (type == 0x03 || type == 0x04) {
+            int lengthOffset = consumed + reader.position() - start;
+            int len = reader.readInt();
+            if (len < 5 || lengthOffset + len > frame.end - 1) {
+                throw new BsonException("Nested document cannot have more than " + (frame.end - 1 - lengthOffset) + " bytes");
+            }
+            Frame nested = type == 0x03
+                    ? new Frame(new HashMap<>(8), null, lengthOffset + len)
+                    : new Frame(null, new ArrayList<>(8), lengthOffset + len);
+            stack.addFirst(nested);
+            value = type == 0x03 ? nested.document : nested.array;
+        } else {
+            // the chunk isn't kept, so strings are decoded and binaries copied
+            value = BsonObjectReader.readScalar(reader, type, false, readBinaryAsByteArray, packedArrays, false, customDeserializer);
+        }
+
+        frame.add(key, value);
+        consumed += reader.position() - start;
+    }
+}
@@ -1,11 +1,14 @@
 package su.grinev.bson;
 
+import su.grinev.LazyUtf8;
+
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.time.Instant;
 
 public interface BsonReader extends Position {
     String readString();
+    LazyUtf8 readLazyString();
     float readFloat();
     double readDouble();
     int readInt();
@@ -14,9 +17,15 @@ public interface BsonReader extends Position {
     boolean readBoolean();
     byte[] readBinaryAsArray();
     ByteBuffer readBinary(boolean readBinaryWithoutCopy);
+    byte peekBinarySubtype();
+    int[] readIntArray();
+    long[] readLongArray();
+    double[] readDoubleArray();
     byte readByte();
     String readObjectId();
     Instant readDateTime();
     BigDecimal readDecimal128();
     String readCString();
+    int readCStringAsInt();
+    void skipCString();
 }
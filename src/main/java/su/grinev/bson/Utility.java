@@ -12,6 +12,14 @@ public final class Utility {
 
     private static final int EXPONENT_BIAS = 6176;
 
+    /*
+     * User-defined binary subtypes (0x80-0xFF) for packed primitive arrays. The payload is the
+     * elements back to back in little-endian order, so the length is a multiple of the element size.
+     */
+    public static final byte INT32_ARRAY_SUBTYPE = (byte) 0x80;
+    public static final byte INT64_ARRAY_SUBTYPE = (byte) 0x81;
+    public static final byte DOUBLE_ARRAY_SUBTYPE = (byte) 0x82;
+
     public static BigDecimal decodeDecimal128(long low, long high) {
         boolean isNegative = (high & 0x8000000000000000L) != 0;
         int combination = (int)((high >>> 61) & 0x7); // bits 126–124
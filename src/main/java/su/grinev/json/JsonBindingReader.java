@@ -0,0 +1,323 @@
+package su.grinev.json;
+
+import su.grinev.Binder;
+import su.grinev.FieldNameIndex;
+import su.grinev.ObjectDeserializer;
+import su.grinev.json.token.TokenType;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static su.grinev.json.token.TokenType.*;
+
+/**
+ * Binds JSON straight into objects: keys are matched to fields by name through the schema's
+ * {@link FieldNameIndex} and every value is set on the field as soon as it is parsed, without
+ * an intermediate document.
+ * <p>
+ * {@code @Type} fields carry their class name under the key {@code "@" + field name}
+ * ({@link Binder.FieldBinding#typeKey}). When that key comes after the value, the value is
+ * skipped and read again once the object is complete. Unknown keys are skipped.
+ */
+public class JsonBindingReader implements ObjectDeserializer {
+
+    private final Binder binder;
+
+    public JsonBindingReader(Binder binder) {
+        this.binder = binder;
+    }
+
+    @Override
+    public <T> T deserialize(ByteBuffer buffer, Class<T> tClass) {
+        JsonPullParser parser = new JsonPullParser(buffer);
+        if (parser.next() != CURLY_OPEN) {
+            throw new IllegalArgumentException("Expected '{'");
+        }
+        T result = tClass.cast(readObject(parser, tClass));
+        parser.expectEnd();
+        return result;
+    }
+
+    /** Reads the members of an object whose opening brace has been consumed. */
+    private Object readObject(JsonPullParser parser, Class<?> type) {
+        Object target = Binder.instantiate(type);
+        Binder.ClassSchema schema = binder.schema(type);
+        FieldNameIndex names = schema.names();
+
+        String[] typeNames = null;
+        int[] deferred = null;
+
+        int field = parser.nextField(names);
+        while (field != JsonPullParser.END_OBJECT) {
+            if (field == FieldNameIndex.UNKNOWN) {
+                parser.skipValue();
+            } else if (field >= schema.size()) {
+                if (typeNames == null) {
+                    typeNames = new String[schema.size()];
+                }
+                typeNames[schema.typeKeyOwner(field - schema.size())] = expect(parser, parser.next(), STRING).getString();
+            } else {
+                Binder.FieldBinding binding = schema.binding(field);
+                if (binding.kind == Binder.FieldKind.TYPE && (typeNames == null || typeNames[field] == null)) {
+                    if (deferred == null) {
+                        deferred = new int[schema.size()];
+                    }
+                    deferred[field] = parser.getPos() + 1;
+                    parser.skipValue();
+                } else {
+                    try {
+                        readField(parser, target, binding, typeNames != null ? typeNames[field] : null);
+                    } catch (RuntimeException e) {
+                        throw new IllegalArgumentException("Failed to bind field: " + binding.name, e);
+                    }
+                }
+            }
+
+            TokenType token = parser.next();
+            if (token == CURLY_CLOSE) {
+                break;
+            } else if (token != COMMA) {
+                throw new IllegalArgumentException("Expected ',' or '}' at position " + parser.getPos());
+            }
+            field = parser.nextField(names);
+            if (field == JsonPullParser.END_OBJECT) {
+                throw new IllegalArgumentException("Expected string key at position " + parser.getPos());
+            }
+        }
+
+        if (deferred != null) {
+            int end = parser.getPos();
+            for (int i = 0; i < deferred.length; i++) {
+                if (deferred[i] == 0) {
+                    continue;
+                }
+                Binder.FieldBinding binding = schema.binding(i);
+                if (typeNames == null || typeNames[i] == null) {
+                    throw new IllegalArgumentException("Missing class name '" + binding.typeKey() + "'");
+                }
+                parser.seek(deferred[i] - 1);
+                readField(parser, target, binding, typeNames[i]);
+            }
+            parser.seek(end);
+        }
+        return target;
+    }
+
+    private void readField(JsonPullParser parser, Object target, Binder.FieldBinding binding, String typeName) {
+        TokenType token = parser.next();
+        if (token == NULL) {
+            if (!binding.fieldType.isPrimitive()) {
+                binding.set(target, null);
+            }
+            return;
+        }
+
+        switch (binding.kind) {
+            case INT -> binding.setLong(target, integral(parser, token, Integer.MIN_VALUE, Integer.MAX_VALUE, binding.name));
+            case LONG -> binding.setLong(target, integral(parser, token, Long.MIN_VALUE, Long.MAX_VALUE, binding.name));
+            case SHORT -> binding.setLong(target, integral(parser, token, Short.MIN_VALUE, Short.MAX_VALUE, binding.name));
+            case BYTE -> binding.setLong(target, integral(parser, token, Byte.MIN_VALUE, Byte.MAX_VALUE, binding.name));
+            case DOUBLE, FLOAT -> binding.setDouble(target, expect(parser, token, NUMBER).getNumber().doubleValue());
+            case BOOLEAN -> binding.setBoolean(target, bool(token));
+            case CHAR -> binding.setChar(target, expect(parser, token, STRING).getString().charAt(0));
+            case PRIMITIVE -> binding.set(target, readScalar(parser, token, binding.fieldType, binding.name));
+            case ENUM -> binding.set(target, readEnum(parser, token, binding.fieldType));
+            case NESTED -> binding.set(target, readObject(expect(parser, token, CURLY_OPEN), binding.fieldType));
+            case TYPE -> {
+                try {
+                    binding.set(target, readObject(expect(parser, token, CURLY_OPEN), Binder.resolveClass(typeName)));
+                } catch (ClassNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            case COLLECTION -> {
+                Collection<Object> collection = Binder.instantiateCollection(binding.fieldType);
+                readCollection(expect(parser, token, SQUARE_OPEN), collection, Binder.resolveListItemType(binding.genericType), binding.name);
+                binding.set(target, collection);
+            }
+            case MAP -> binding.set(target, readMap(expect(parser, token, CURLY_OPEN), binding.genericType));
+        }
+    }
+
+    private void readCollection(JsonPullParser parser, Collection<Object> collection, java.lang.reflect.Type itemType, String field) {
+        Class<?> itemClass = itemType == Object.class ? Object.class : Binder.resolveClassFromType(itemType);
+        TokenType token = parser.next();
+        if (token == SQUARE_CLOSE) {
+            return;
+        }
+        while (true) {
+            collection.add(readItem(parser, token, itemClass, field));
+            token = parser.next();
+            if (token == SQUARE_CLOSE) {
+                return;
+            } else if (token != COMMA) {
+                throw new IllegalArgumentException("Expected ',' or ']' at position " + parser.getPos());
+            }
+            token = parser.next();
+        }
+    }
+
+    private Object readItem(JsonPullParser parser, TokenType token, Class<?> itemClass, String field) {
+        if (token == NULL) {
+            return null;
+        }
+        if (itemClass == Object.class) {
+            return readAny(parser, token);
+        }
+        if (itemClass.isEnum()) {
+            return readEnum(parser, token, itemClass);
+        }
+        if (Binder.isPrimitiveOrWrapperOrString(itemClass)) {
+            return readScalar(parser, token, itemClass, field);
+        }
+        return readObject(expect(parser, token, CURLY_OPEN), itemClass);
+    }
+
+    private Map<Object, Object> readMap(JsonPullParser parser, java.lang.reflect.Type mapType) {
+        Class<?> keyType = String.class;
+        if (mapType instanceof java.lang.reflect.ParameterizedType pt && pt.getActualTypeArguments()[0] instanceof Class<?> c) {
+            keyType = c;
+        }
+        Map<Object, Object> map = new HashMap<>();
+        TokenType token = parser.next();
+        if (token == CURLY_CLOSE) {
+            return map;
+        }
+        while (true) {
+            String key = expect(parser, token, STRING).getString();
+            if (parser.next() != COLON) {
+                throw new IllegalArgumentException("Expected ':' at position " + parser.getPos());
+            }
+            Object value = readAny(parser, parser.next());
+            map.put(keyType == Integer.class ? (Object) Integer.valueOf(key)
+                    : keyType == Long.class ? (Object) Long.valueOf(key) : key, value);
+
+            token = parser.next();
+            if (token == CURLY_CLOSE) {
+                return map;
+            } else if (token != COMMA) {
+                throw new IllegalArgumentException("Expected ',' or '}' at position " + parser.getPos());
+            }
+            token = parser.next();
+        }
+    }
+
+    /** A value of unknown type: strings, numbers, booleans, maps and lists. */
+    private Object readAny(JsonPullParser parser, TokenType token) {
+        return switch (token) {
+            case STRING -> parser.getString();
+            case NUMBER -> parser.getNumber();
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case NULL -> null;
+            case CURLY_OPEN -> readMap(parser, Object.class);
+            case SQUARE_OPEN -> {
+                List<Object> list = new ArrayList<>();
+                readCollection(parser, list, Object.class, null);
+                yield list;
+            }
+            default -> throw new IllegalArgumentException("Unexpected token: " + token);
+        };
+    }
+
+    private static Object readEnum(JsonPullParser parser, TokenType token, Class<?> enumType) {
+        return Enum.valueOf(enumType.asSubclass(Enum.class), expect(parser, token, STRING).getString());
+    }
+
+    /** Strings, numbers, booleans, time values and arrays, as {@link Binder#isPrimitiveOrWrapperOrString} lists them. */
+    private Object readScalar(JsonPullParser parser, TokenType token, Class<?> type, String field) {
+        if (token == NULL) {
+            return null;
+        }
+        if (type == String.class) {
+            return expect(parser, token, STRING).getString();
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return bool(token);
+        }
+        if (type == Character.class || type == char.class) {
+            return expect(parser, token, STRING).getString().charAt(0);
+        }
+        if (type == Instant.class) {
+            return token == NUMBER ? Instant.ofEpochMilli(parser.getNumber().longValue()) : Instant.parse(expect(parser, token, STRING).getString());
+        }
+        if (type == LocalDateTime.class) {
+            return token == NUMBER
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(parser.getNumber().longValue()), ZoneOffset.UTC)
+                    : LocalDateTime.parse(expect(parser, token, STRING).getString());
+        }
+        if (type == byte[].class) {
+            return Base64.getDecoder().decode(expect(parser, token, STRING).getString());
+        }
+        if (type == ByteBuffer.class) {
+            return ByteBuffer.wrap(Base64.getDecoder().decode(expect(parser, token, STRING).getString()));
+        }
+        if (type == char[].class) {
+            return expect(parser, token, STRING).getString().toCharArray();
+        }
+        if (type.isArray()) {
+            List<Object> items = new ArrayList<>();
+            readCollection(expect(parser, token, SQUARE_OPEN), items, type.getComponentType(), field);
+            Object array = Array.newInstance(type.getComponentType(), items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Array.set(array, i, items.get(i));
+            }
+            return array;
+        }
+        if (type == Enum.class) {
+            return expect(parser, token, STRING).getString();
+        }
+
+        if (type == Integer.class || type == int.class) return (int) integral(parser, token, Integer.MIN_VALUE, Integer.MAX_VALUE, field);
+        if (type == Long.class || type == long.class) return integral(parser, token, Long.MIN_VALUE, Long.MAX_VALUE, field);
+        if (type == Short.class || type == short.class) return (short) integral(parser, token, Short.MIN_VALUE, Short.MAX_VALUE, field);
+        if (type == Byte.class || type == byte.class) return (byte) integral(parser, token, Byte.MIN_VALUE, Byte.MAX_VALUE, field);
+        Number number = expect(parser, token, NUMBER).getNumber();
+        if (type == Double.class || type == double.class) return number.doubleValue();
+        if (type == Float.class || type == float.class) return number.floatValue();
+        if (type == BigDecimal.class) return new BigDecimal(parser.getNumberText());
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    /**
+     * A whole number within {@code [min, max]}. Fractions and values out of range are rejected
+     * instead of being truncated or wrapped into the field.
+     */
+    private static long integral(JsonPullParser parser, TokenType token, long min, long max, String field) {
+        Number number = expect(parser, token, NUMBER).getNumber();
+        if (number instanceof Integer || number instanceof Long) {
+            long value = number.longValue();
+            if (value < min || value > max) {
+                throw new IllegalArgumentException("Field '" + field + "': " + value + " is out of range [" + min + ", " + max + "]");
+            }
+            return value;
+        }
+        // doubles and integers beyond long, checked on the exact text
+        BigDecimal exact = new BigDecimal(parser.getNumberText());
+        if (exact.stripTrailingZeros().scale() > 0) {
+            throw new IllegalArgumentException("Field '" + field + "': " + exact + " is not an integer");
+        }
+        if (exact.compareTo(BigDecimal.valueOf(min)) < 0 || exact.compareTo(BigDecimal.valueOf(max)) > 0) {
+            throw new IllegalArgumentException("Field '" + field + "': " + exact + " is out of range [" + min + ", " + max + "]");
+        }
+        return exact.longValueExact();
+    }
+
+    private static boolean bool(TokenType token) {
+        if (token == TRUE) return true;
+        if (token == FALSE) return false;
+        throw new IllegalArgumentException("Expected a boolean, got " + token);
+    }
+
+    private static JsonPullParser expect(JsonPullParser parser, TokenType actual, TokenType expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + ", got " + actual + " at position " + parser.getPos());
+        }
+        return parser;
+    }
+}
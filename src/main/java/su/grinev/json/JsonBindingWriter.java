@@ -0,0 +1,221 @@
+package su.grinev.json;
+
+import su.grinev.Binder;
+import su.grinev.ObjectSerializer;
+import su.grinev.pool.DynamicByteBuffer;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static su.grinev.json.JsonWriter.writeBoolean;
+import static su.grinev.json.JsonWriter.writeNull;
+import static su.grinev.json.JsonWriter.writeNumber;
+import static su.grinev.json.JsonWriter.writeString;
+
+/**
+ * Writes POJOs as JSON objects keyed by field name, the format {@link JsonBindingReader} reads.
+ * Null fields are left out and the class name of a {@code @Type} field is written under
+ * {@link Binder.FieldBinding#typeKey} just before the field.
+ * <p>
+ * The {@code ,"name":} prefix of every field is escaped once per class and copied as bytes, and
+ * ints, longs and doubles are formatted straight into the buffer by {@link NumberWriter}.
+ * Doubles that JSON can't represent, NaN and the infinities, are written as {@code null}.
+ */
+public class JsonBindingWriter implements ObjectSerializer {
+
+    private final Binder binder;
+    // per class: the prefix of each binding, then the prefix of its type key at bindings.length + i
+    private final Map<Class<?>, byte[][]> prefixCache = new ConcurrentHashMap<>();
+
+    public JsonBindingWriter(Binder binder) {
+        this.binder = binder;
+    }
+
+    @Override
+    public void serialize(DynamicByteBuffer buffer, Object o) {
+        buffer.initBuffer();
+        writeObject(buffer, o);
+        buffer.flip();
+    }
+
+    private void writeObject(DynamicByteBuffer buffer, Object o) {
+        Binder.ClassSchema schema = binder.schema(o.getClass());
+        byte[][] prefixes = prefixCache.computeIfAbsent(o.getClass(), c -> prefixes(schema));
+        buffer.ensureCapacity(1);
+        buffer.put((byte) '{');
+        boolean first = true;
+        for (int i = 0; i < schema.size(); i++) {
+            first = writeField(buffer, o, schema.binding(i), prefixes, i, first) && first;
+        }
+        buffer.ensureCapacity(1);
+        buffer.put((byte) '}');
+    }
+
+    /** Writes the field unless it is null; returns whether nothing was written. */
+    private boolean writeField(DynamicByteBuffer buffer, Object target, Binder.FieldBinding binding, byte[][] prefixes, int index, boolean first) {
+        byte[] prefix = prefixes[index];
+        switch (binding.kind) {
+            case INT -> NumberWriter.writeLong(key(buffer, prefix, first), binding.getInt(target));
+            case LONG -> NumberWriter.writeLong(key(buffer, prefix, first), binding.getLong(target));
+            case DOUBLE -> writeDouble(key(buffer, prefix, first), binding.getDouble(target));
+            case FLOAT -> writeNumber(key(buffer, prefix, first), binding.getFloat(target));
+            case SHORT -> NumberWriter.writeLong(key(buffer, prefix, first), binding.getShort(target));
+            case BYTE -> NumberWriter.writeLong(key(buffer, prefix, first), binding.getByte(target));
+            case BOOLEAN -> writeBoolean(key(buffer, prefix, first), binding.getBoolean(target));
+            case CHAR -> writeString(key(buffer, prefix, first), String.valueOf(binding.getChar(target)));
+            default -> {
+                Object value = binding.get(target);
+                if (value == null) {
+                    return true;
+                }
+                switch (binding.kind) {
+                    case PRIMITIVE -> writeScalar(key(buffer, prefix, first), value);
+                    case ENUM -> writeString(key(buffer, prefix, first), value.toString());
+                    case NESTED -> writeObject(key(buffer, prefix, first), value);
+                    case TYPE -> {
+                        writeString(key(buffer, prefixes[prefixes.length / 2 + index], first), binder.getClassName(value.getClass()));
+                        writeObject(key(buffer, prefix, false), value);
+                    }
+                    case COLLECTION -> writeCollection(key(buffer, prefix, first), (Collection<?>) value);
+                    case MAP -> writeMap(key(buffer, prefix, first), (Map<?, ?>) value);
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[][] prefixes(Binder.ClassSchema schema) {
+        byte[][] prefixes = new byte[schema.size() * 2][];
+        for (int i = 0; i < schema.size(); i++) {
+            Binder.FieldBinding binding = schema.binding(i);
+            prefixes[i] = prefix(binding.name);
+            if (binding.kind == Binder.FieldKind.TYPE) {
+                prefixes[schema.size() + i] = prefix(binding.typeKey());
+            }
+        }
+        return prefixes;
+    }
+
+    /** {@code ,"name":} with the name escaped. */
+    private static byte[] prefix(String name) {
+        DynamicByteBuffer scratch = new DynamicByteBuffer(name.length() * 6 + 4, false);
+        key(scratch, name, false);
+        ByteBuffer bytes = scratch.flip().getBuffer();
+        byte[] prefix = new byte[bytes.remaining()];
+        bytes.get(prefix);
+        return prefix;
+    }
+
+    private static DynamicByteBuffer key(DynamicByteBuffer buffer, byte[] prefix, boolean first) {
+        int skip = first ? 1 : 0;
+        buffer.ensureCapacity(prefix.length - skip);
+        buffer.put(prefix, skip, prefix.length - skip);
+        return buffer;
+    }
+
+    private static DynamicByteBuffer key(DynamicByteBuffer buffer, String name, boolean first) {
+        if (!first) {
+            buffer.ensureCapacity(1);
+            buffer.put((byte) ',');
+        }
+        writeString(buffer, name);
+        buffer.ensureCapacity(1);
+        buffer.put((byte) ':');
+        return buffer;
+    }
+
+    private void writeCollection(DynamicByteBuffer buffer, Collection<?> collection) {
+        buffer.ensureCapacity(1);
+        buffer.put((byte) '[');
+        boolean first = true;
+        for (Object item : collection) {
+            if (!first) {
+                buffer.ensureCapacity(1);
+                buffer.put((byte) ',');
+            }
+            first = false;
+            writeValue(buffer, item);
+        }
+        buffer.ensureCapacity(1);
+        buffer.put((byte) ']');
+    }
+
+    private void writeMap(DynamicByteBuffer buffer, Map<?, ?> map) {
+        buffer.ensureCapacity(1);
+        buffer.put((byte) '{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            writeValue(key(buffer, entry.getKey().toString(), first), entry.getValue());
+            first = false;
+        }
+        buffer.ensureCapacity(1);
+        buffer.put((byte) '}');
+    }
+
+    private void writeValue(DynamicByteBuffer buffer, Object value) {
+        switch (value) {
+            case null -> writeNull(buffer);
+            case Map<?, ?> map -> writeMap(buffer, map);
+            case Collection<?> collection -> writeCollection(buffer, collection);
+            case Enum<?> e -> writeString(buffer, e.name());
+            default -> {
+                if (Binder.isPrimitiveOrWrapperOrString(value.getClass())) {
+                    writeScalar(buffer, value);
+                } else {
+                    writeObject(buffer, value);
+                }
+            }
+        }
+    }
+
+    /** Mirrors {@code JsonBindingReader.readScalar}. */
+    private void writeScalar(DynamicByteBuffer buffer, Object value) {
+        switch (value) {
+            case Integer i -> NumberWriter.writeLong(buffer, i);
+            case Long l -> NumberWriter.writeLong(buffer, l);
+            case Short sh -> NumberWriter.writeLong(buffer, sh);
+            case Byte b -> NumberWriter.writeLong(buffer, b);
+            case Double d -> writeDouble(buffer, d);
+            case Number number -> writeNumber(buffer, number);
+            case Boolean b -> writeBoolean(buffer, b);
+            case byte[] bytes -> writeString(buffer, Base64.getEncoder().encodeToString(bytes));
+            case ByteBuffer byteBuffer -> {
+                ByteBuffer duplicate = byteBuffer.duplicate().position(0);
+                byte[] bytes = new byte[duplicate.limit()];
+                duplicate.get(bytes);
+                writeString(buffer, Base64.getEncoder().encodeToString(bytes));
+            }
+            case char[] chars -> writeString(buffer, new String(chars));
+            default -> {
+                if (value.getClass().isArray()) {
+                    buffer.ensureCapacity(1);
+                    buffer.put((byte) '[');
+                    for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                        if (i > 0) {
+                            buffer.ensureCapacity(1);
+                            buffer.put((byte) ',');
+                        }
+                        writeValue(buffer, Array.get(value, i));
+                    }
+                    buffer.ensureCapacity(1);
+                    buffer.put((byte) ']');
+                } else {
+                    // String, Character, Instant and LocalDateTime (ISO-8601)
+                    writeString(buffer, value.toString());
+                }
+            }
+        }
+    }
+
+    private static void writeDouble(DynamicByteBuffer buffer, double value) {
+        if (Double.isFinite(value)) {
+            NumberWriter.writeDouble(buffer, value);
+        } else {
+            writeNull(buffer);
+        }
+    }
+}
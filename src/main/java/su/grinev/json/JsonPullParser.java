@@ -0,0 +1,339 @@
+package su.grinev.json;
+
+import su.grinev.Document;
+import su.grinev.FieldNameIndex;
+import su.grinev.json.token.Buffer;
+import su.grinev.json.token.NumberParser;
+import su.grinev.json.token.StringParser;
+import su.grinev.json.token.StructuralIndex;
+import su.grinev.json.token.TokenType;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static su.grinev.json.token.TokenType.*;
+
+/**
+ * Single-pass JSON parser over the input bytes. {@link #next()} moves to the next lexeme and
+ * returns its type; the value of a string or number is then available from
+ * {@link #getString()} or {@link #getNumber()}. No token objects are created, and
+ * {@link #readObject()} builds the document maps directly while pulling.
+ * <p>
+ * Given a {@link StructuralIndex}, the parser jumps straight to the next indexed position
+ * instead of scanning whitespace byte by byte.
+ * <p>
+ * A parser reads one input and is not thread safe.
+ */
+public class JsonPullParser {
+    /** Returned by {@link #nextField} at the closing brace of the object. */
+    public static final int END_OBJECT = -2;
+
+    private static final char[] TRUE_LITERAL = "true".toCharArray();
+    private static final char[] FALSE_LITERAL = "false".toCharArray();
+    private static final char[] NULL_LITERAL = "null".toCharArray();
+
+    private final Buffer buffer;
+    private final StringParser stringParser;
+    private final NumberParser numberParser;
+    private final StructuralIndex index;
+    private int cursor;
+    private String string;
+    private Number number;
+    private int numberStart;
+
+    public JsonPullParser(byte[] json) {
+        this(json, null);
+    }
+
+    public JsonPullParser(byte[] json, StructuralIndex index) {
+        this(ByteBuffer.wrap(json), index);
+    }
+
+    /** Parses the remaining bytes of {@code json}, heap or direct, without changing its position. */
+    public JsonPullParser(ByteBuffer json) {
+        this(json, null);
+    }
+
+    private JsonPullParser(ByteBuffer json, StructuralIndex index) {
+        this.buffer = new Buffer(json.slice());
+        this.stringParser = new StringParser(buffer);
+        this.numberParser = new NumberParser(buffer);
+        this.index = index;
+    }
+
+    /** A parser that first builds the {@link StructuralIndex} of {@code json}. */
+    public static JsonPullParser indexed(byte[] json) {
+        return new JsonPullParser(json, StructuralIndex.build(json));
+    }
+
+    /** Whether anything but whitespace is left. */
+    public boolean hasNext() {
+        if (index != null) {
+            return cursor < index.size();
+        }
+        skipWhitespace();
+        return buffer.hasNext();
+    }
+
+    public TokenType next() {
+        char c = advance();
+        return switch (c) {
+            case '{' -> { buffer.next(); yield CURLY_OPEN; }
+            case '}' -> { buffer.next(); yield CURLY_CLOSE; }
+            case '[' -> { buffer.next(); yield SQUARE_OPEN; }
+            case ']' -> { buffer.next(); yield SQUARE_CLOSE; }
+            case ':' -> { buffer.next(); yield COLON; }
+            case ',' -> { buffer.next(); yield COMMA; }
+            case 't' -> literal(TRUE_LITERAL, TRUE);
+            case 'f' -> literal(FALSE_LITERAL, FALSE);
+            case 'n' -> literal(NULL_LITERAL, NULL);
+            case '"' -> {
+                string = stringParser.parse();
+                yield STRING;
+            }
+            default -> {
+                if ((c == '-') || (c >= '0' && c <= '9')) {
+                    numberStart = buffer.getPos();
+                    number = numberParser.parse();
+                    expectDelimiter();
+                    yield NUMBER;
+                }
+                throw new IllegalArgumentException("Unexpected character at pos: %s character: '%s'".formatted(buffer.getPos(), c));
+            }
+        };
+    }
+
+    /** Value of the last {@link TokenType#STRING}. */
+    public String getString() {
+        return string;
+    }
+
+    /** Value of the last {@link TokenType#NUMBER}. */
+    public Number getNumber() {
+        return number;
+    }
+
+    /** Source text of the last {@link TokenType#NUMBER}, for targets that need every digit. */
+    public String getNumberText() {
+        return buffer.getString(numberStart, buffer.getPos() - numberStart);
+    }
+
+    /**
+     * Reads the next key of an object together with its colon and returns its index in
+     * {@code names}, {@link FieldNameIndex#UNKNOWN} for a key that isn't there, or
+     * {@link #END_OBJECT} at the closing brace. Keys without escapes are matched on their bytes.
+     */
+    public int nextField(FieldNameIndex names) {
+        char c = advance();
+        if (c == '}') {
+            buffer.next();
+            return END_OBJECT;
+        }
+        if (c != '"') {
+            throw new IllegalArgumentException("Expected string key at position " + buffer.getPos());
+        }
+        int start = buffer.getPos() + 1;
+        int length = stringParser.scan();
+        int field;
+        if (length >= 0) {
+            field = names.find(buffer.getByteBuffer(), start, length);
+        } else {
+            // parse() starts at the opening quote, scan() left the buffer just after it
+            buffer.setPost(start - 1);
+            field = names.find(stringParser.parse());
+        }
+        if (next() != COLON) {
+            throw new IllegalArgumentException("Expected ':' at position " + buffer.getPos());
+        }
+        return field;
+    }
+
+    /** Skips the next value, including everything nested in it, without building it. */
+    public void skipValue() {
+        int depth = 0;
+        do {
+            char c = advance();
+            switch (c) {
+                case '{', '[' -> {
+                    buffer.next();
+                    depth++;
+                }
+                case '}', ']' -> {
+                    buffer.next();
+                    depth--;
+                }
+                case '"' -> stringParser.skip();
+                default -> next();
+            }
+        } while (depth > 0);
+        if (depth < 0) {
+            throw new IllegalArgumentException("Unexpected end of container at pos: " + (buffer.getPos() - 1));
+        }
+    }
+
+    public int getPos() {
+        return buffer.getPos();
+    }
+
+    public Document readDocument() {
+        return new Document(readObject());
+    }
+
+    /** Reads a whole object, which has to be the only value in the input. */
+    public Map<String, Object> readObject() {
+        if (next() != CURLY_OPEN) {
+            throw new IllegalArgumentException("Expected '{'");
+        }
+        Map<String, Object> object = readObjectContent();
+        expectEnd();
+        return object;
+    }
+
+    /** Reads a whole array, which has to be the only value in the input. */
+    public List<Object> readArray() {
+        if (next() != SQUARE_OPEN) {
+            throw new IllegalArgumentException("Expected '['");
+        }
+        List<Object> array = readArrayContent();
+        expectEnd();
+        return array;
+    }
+
+    private Map<String, Object> readObjectContent() {
+        Map<String, Object> object = new HashMap<>();
+
+        TokenType token = next();
+        if (token == CURLY_CLOSE) {
+            return object;
+        }
+
+        while (true) {
+            if (token != STRING) {
+                throw new IllegalArgumentException("Expected string key at position " + buffer.getPos());
+            }
+            String key = string;
+
+            if (next() != COLON) {
+                throw new IllegalArgumentException("Expected ':' at position " + buffer.getPos());
+            }
+            object.put(key, readValue(next()));
+
+            token = next();
+            if (token == CURLY_CLOSE) {
+                return object;
+            } else if (token != COMMA) {
+                throw new IllegalArgumentException("Expected ',' or '}' at position " + buffer.getPos());
+            }
+            token = next();
+        }
+    }
+
+    private List<Object> readArrayContent() {
+        List<Object> array = new ArrayList<>();
+
+        TokenType token = next();
+        if (token == SQUARE_CLOSE) {
+            return array;
+        }
+
+        while (true) {
+            array.add(readValue(token));
+
+            token = next();
+            if (token == SQUARE_CLOSE) {
+                return array;
+            } else if (token != COMMA) {
+                throw new IllegalArgumentException("Expected ',' or ']' at position " + buffer.getPos());
+            }
+            token = next();
+        }
+    }
+
+    private Object readValue(TokenType token) {
+        return switch (token) {
+            case STRING -> string;
+            case NUMBER -> number;
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case NULL -> null;
+            case CURLY_OPEN -> readObjectContent();
+            case SQUARE_OPEN -> readArrayContent();
+            default -> throw new IllegalArgumentException("Unexpected token: " + token);
+        };
+    }
+
+    /** Fails unless only whitespace is left. */
+    public void expectEnd() {
+        if (hasNext()) {
+            throw new IllegalArgumentException("Unexpected data after the document at pos: " + buffer.getPos());
+        }
+    }
+
+    /** Moves to the start of the next lexeme and returns its first character. */
+    private char advance() {
+        if (index != null) {
+            if (cursor == index.size()) {
+                throw new IllegalArgumentException("Unexpected end of input");
+            }
+            buffer.setPost(index.get(cursor++));
+        } else {
+            skipWhitespace();
+            if (!buffer.hasNext()) {
+                throw new IllegalArgumentException("Unexpected end of input");
+            }
+        }
+        return buffer.peek();
+    }
+
+    /**
+     * Moves back or forth to {@code position}, which has to be where a lexeme starts; lets a
+     * caller read a value again once it knows how to bind it.
+     */
+    void seek(int position) {
+        buffer.setPost(position);
+        if (index != null) {
+            int low = 0;
+            int high = index.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (index.get(mid) < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            cursor = low;
+        }
+    }
+
+    /** A number or literal has to be followed by whitespace, punctuation or the end of input. */
+    private void expectDelimiter() {
+        if (buffer.hasNext()) {
+            char c = buffer.peek();
+            switch (c) {
+                case ' ', '\n', '\r', '\t', ',', ':', '}', ']', '{', '[' -> {}
+                default -> throw new IllegalArgumentException("Unexpected character at pos: %s character: '%s'".formatted(buffer.getPos(), c));
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (buffer.hasNext()) {
+            char c = buffer.peek();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            buffer.next();
+        }
+    }
+
+    private TokenType literal(char[] expected, TokenType type) {
+        for (char ec : expected) {
+            if (!buffer.hasNext() || buffer.next() != ec) {
+                throw new IllegalArgumentException("Invalid literal at pos: " + buffer.getPos());
+            }
+        }
+        expectDelimiter();
+        return type;
+    }
+}
@@ -1,28 +1,20 @@
 package su.grinev.json;
 
 import su.grinev.Document;
-import su.grinev.json.token.Token;
 
-import java.util.List;
 import java.util.Map;
 
 /**
- * JSON reader - wraps Tokenizer and JsonParser for convenience.
- * The Tokenizer and JsonParser are lightweight, so no complex pooling needed.
+ * JSON reader - parses the input in a single pass with {@link JsonPullParser}.
+ * The parser is lightweight, so no complex pooling needed.
  */
 public class JsonReader {
 
-    private final JsonParser parser = new JsonParser();
-
     public Document deserialize(byte[] jsonBytes) {
-        Tokenizer tokenizer = new Tokenizer(jsonBytes);
-        List<Token> tokens = tokenizer.tokenize();
-        return parser.parse(tokens);
+        return new JsonPullParser(jsonBytes).readDocument();
     }
 
     public Map<String, Object> deserializeToMap(byte[] jsonBytes) {
-        Tokenizer tokenizer = new Tokenizer(jsonBytes);
-        List<Token> tokens = tokenizer.tokenize();
-        return parser.parseObject(tokens);
+        return new JsonPullParser(jsonBytes).readObject();
     }
 }
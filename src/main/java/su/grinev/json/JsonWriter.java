@@ -38,7 +38,7 @@ public class JsonWriter {
         }
     }
 
-    private void writeNull(DynamicByteBuffer buffer) {
+    static void writeNull(DynamicByteBuffer buffer) {
         buffer.ensureCapacity(4);
         buffer.put((byte) 'n');
         buffer.put((byte) 'u');
@@ -46,7 +46,7 @@ public class JsonWriter {
         buffer.put((byte) 'l');
     }
 
-    private void writeBoolean(DynamicByteBuffer buffer, boolean value) {
+    static void writeBoolean(DynamicByteBuffer buffer, boolean value) {
         if (value) {
             buffer.ensureCapacity(4);
             buffer.put((byte) 't');
@@ -63,13 +63,13 @@ public class JsonWriter {
         }
     }
 
-    private void writeNumber(DynamicByteBuffer buffer, Number number) {
+    static void writeNumber(DynamicByteBuffer buffer, Number number) {
         byte[] bytes = number.toString().getBytes(StandardCharsets.UTF_8);
         buffer.ensureCapacity(bytes.length);
         buffer.put(bytes);
     }
 
-    private void writeString(DynamicByteBuffer buffer, String s) {
+    static void writeString(DynamicByteBuffer buffer, String s) {
         buffer.ensureCapacity(2);
         buffer.put((byte) '"');
 
@@ -0,0 +1,146 @@
+package su.grinev.json;
+
+import su.grinev.pool.DynamicByteBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats numbers straight into the buffer, two digits at a time from a lookup table, with
+ * the same text as {@link Long#toString} and {@link Double#toString}. The buffer has to be a
+ * plain {@link DynamicByteBuffer}: digits are written through {@link DynamicByteBuffer#getBuffer()}.
+ */
+final class NumberWriter {
+
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final int MAX_DOUBLE_LENGTH = 25; // sign, 17 digits, point, E, sign and 3 digits
+    private static final byte[] LONG_MIN = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[i * 2] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[i * 2 + 1] = (byte) ('0' + i % 10);
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private NumberWriter() {
+    }
+
+    static void writeLong(DynamicByteBuffer buffer, long value) {
+        buffer.ensureCapacity(MAX_LONG_LENGTH);
+        if (value == Long.MIN_VALUE) {
+            buffer.put(LONG_MIN);
+            return;
+        }
+        ByteBuffer out = buffer.getBuffer();
+        int pos = out.position();
+        if (value < 0) {
+            out.put(pos++, (byte) '-');
+            value = -value;
+        }
+        int length = length(value);
+        putDigits(out, pos + length, value, length);
+        out.position(pos + length);
+    }
+
+    /** Writes a finite double as {@link Double#toString} would, without the String. */
+    static void writeDouble(DynamicByteBuffer buffer, double value) {
+        buffer.ensureCapacity(MAX_DOUBLE_LENGTH);
+        ByteBuffer out = buffer.getBuffer();
+        if (Double.doubleToRawLongBits(value) < 0) {
+            out.put((byte) '-');
+        }
+        if (value == 0) {
+            out.put((byte) '0').put((byte) '.').put((byte) '0');
+        } else {
+            Schubfach.write(out, value);
+        }
+    }
+
+    /**
+     * Lays out {@code f * 10^e} like {@link Double#toString}: plain between 10^-3 and 10^7,
+     * otherwise one digit before the point and an exponent, always with a fractional digit.
+     */
+    static void writeDecimal(ByteBuffer out, long f, int e) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = length(f);
+        int exp = e + length; // the value is 0.digits * 10^exp
+        int pos = out.position();
+
+        if (exp > 0 && exp <= 7) {
+            if (length <= exp) {
+                putDigits(out, pos + length, f, length);
+                pos += length;
+                for (int i = length; i < exp; i++) {
+                    out.put(pos++, (byte) '0');
+                }
+                out.put(pos++, (byte) '.');
+                out.put(pos++, (byte) '0');
+            } else {
+                long scale = POWERS_OF_TEN[length - exp];
+                putDigits(out, pos + exp, f / scale, exp);
+                out.put(pos + exp, (byte) '.');
+                putDigits(out, pos + length + 1, f % scale, length - exp);
+                pos += length + 1;
+            }
+        } else if (exp > -3 && exp <= 0) {
+            out.put(pos++, (byte) '0');
+            out.put(pos++, (byte) '.');
+            for (int i = exp; i < 0; i++) {
+                out.put(pos++, (byte) '0');
+            }
+            putDigits(out, pos + length, f, length);
+            pos += length;
+        } else {
+            long scale = POWERS_OF_TEN[length - 1];
+            out.put(pos++, (byte) ('0' + f / scale));
+            out.put(pos++, (byte) '.');
+            if (length > 1) {
+                putDigits(out, pos + length - 1, f % scale, length - 1);
+                pos += length - 1;
+            } else {
+                out.put(pos++, (byte) '0');
+            }
+            out.put(pos++, (byte) 'E');
+            int shown = exp - 1;
+            if (shown < 0) {
+                out.put(pos++, (byte) '-');
+                shown = -shown;
+            }
+            int expLength = shown < 10 ? 1 : shown < 100 ? 2 : 3;
+            putDigits(out, pos + expLength, shown, expLength);
+            pos += expLength;
+        }
+        out.position(pos);
+    }
+
+    /** Number of decimal digits of a non-negative {@code value}. */
+    private static int length(long value) {
+        // bit length * log10(2) is the digit count or one less
+        int guess = ((64 - Long.numberOfLeadingZeros(value)) * 1233) >>> 12;
+        return guess < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[guess] ? guess + 1 : Math.max(guess, 1);
+    }
+
+    /** Writes the low {@code length} digits of {@code value} so that the last one is at {@code end - 1}. */
+    private static void putDigits(ByteBuffer out, int end, long value, int length) {
+        int pos = end;
+        while (pos - 2 >= end - length) {
+            int pair = (int) (value % 100) * 2;
+            value /= 100;
+            out.put(--pos, DIGIT_PAIRS[pair + 1]);
+            out.put(--pos, DIGIT_PAIRS[pair]);
+        }
+        if (pos > end - length) {
+            out.put(--pos, (byte) ('0' + value % 10));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package su.grinev.json;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Shortest decimal that rounds back to a double, after Giulietti's Schubfach: the bounds of
+ * the rounding interval are scaled by a 126-bit approximation of a power of ten, which leaves
+ * at most two candidates to choose from. The digits are the ones {@link Double#toString}
+ * picks, and {@link NumberWriter#writeDecimal} lays them out the same way.
+ */
+final class Schubfach {
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long T_MASK = C_MIN - 1;
+    private static final int BQ_MASK = 0x7FF;
+    // subnormal significands below this get one more digit of precision
+    private static final int C_TINY = 3;
+    private static final long MASK_63 = Long.MAX_VALUE;
+
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    // g = floor(10^-k / 2^r) + 1 with r such that 2^125 <= g < 2^126, split into 63-bit halves
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger pow = BigInteger.TEN.pow(-k);
+                int shift = pow.bitLength() - 126;
+                g = shift > 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift);
+            } else {
+                BigInteger pow = BigInteger.TEN.pow(k);
+                g = BigInteger.ONE.shiftLeft(pow.bitLength() + 125).divide(pow);
+            }
+            g = g.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.and(mask).longValue();
+        }
+    }
+
+    private Schubfach() {
+    }
+
+    /** Writes the shortest decimal of {@code |v|}, which is finite and non-zero, at the position of {@code out}. */
+    static void write(ByteBuffer out, double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // integers below 2^53 are their own shortest decimal
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    NumberWriter.writeDecimal(out, f, 0);
+                    return;
+                }
+            }
+            toDecimal(out, -mq, c, 0);
+        } else if (t < C_TINY) {
+            toDecimal(out, Q_MIN, 10 * t, -1);
+        } else {
+            toDecimal(out, Q_MIN, t, 0);
+        }
+    }
+
+    private static void toDecimal(ByteBuffer out, int q, long c, int dk) {
+        // halfway values round to even, so the bounds belong to the interval only for an even c
+        int excluded = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // the interval is asymmetric at powers of two, where the lower neighbour is closer
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // one digit less, if a multiple of ten fits in the interval
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + excluded <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + excluded <= vbr;
+            if (upin != wpin) {
+                NumberWriter.writeDecimal(out, upin ? sp10 : tp10, k);
+                return;
+            }
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + excluded <= s << 2;
+        boolean win = (t << 2) + excluded <= vbr;
+        if (uin != win) {
+            NumberWriter.writeDecimal(out, uin ? s : t, k + dk);
+            return;
+        }
+        // both or neither in the interval: the closer one, the even one on a tie
+        long cmp = vb - ((s + t) << 1);
+        NumberWriter.writeDecimal(out, cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+    }
+
+    /** Rounds {@code g * cp / 2^127} to odd. */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+    }
+
+    /** floor(log10(2^e)) */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    /** floor(log10(3/4 * 2^e)) */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /** floor(log2(10^e)) */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+}
@@ -1,6 +1,7 @@
 package su.grinev.json.token;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 public class Buffer {
 
@@ -37,7 +38,16 @@ public class Buffer {
     }
 
     public String getString(int startPos, int count) {
-        return new String(byteBuffer.array(), startPos, count);
+        if (byteBuffer.hasArray()) {
+            return new String(byteBuffer.array(), byteBuffer.arrayOffset() + startPos, count, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[count];
+        byteBuffer.get(startPos, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public ByteBuffer getByteBuffer() {
+        return byteBuffer;
     }
 
     public int remaining() {
@@ -0,0 +1,100 @@
+package su.grinev.json.token;
+
+import java.math.BigInteger;
+
+/**
+ * Decimal to double conversion after Eisel and Lemire: the decimal mantissa is multiplied by a
+ * 128-bit approximation of the power of ten, which gives the correctly rounded double unless
+ * the product lands too close to a rounding boundary. Those rare cases, subnormals and
+ * overflow are reported as {@link Double#NaN} so the caller can fall back to
+ * {@link Double#parseDouble}.
+ */
+final class EiselLemire {
+
+    static final int MIN_EXP10 = -348;
+    static final int MAX_EXP10 = 347;
+
+    // 10^e for e in [MIN_EXP10, MAX_EXP10], normalized to 128 bits and rounded down
+    private static final long[] POW10_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+    private static final long[] POW10_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int e = MIN_EXP10; e <= MAX_EXP10; e++) {
+            BigInteger pow = BigInteger.TEN.pow(Math.abs(e));
+            BigInteger normalized;
+            if (e >= 0) {
+                int shift = pow.bitLength() - 128;
+                normalized = shift > 0 ? pow.shiftRight(shift) : pow.shiftLeft(-shift);
+            } else {
+                normalized = BigInteger.ONE.shiftLeft(pow.bitLength() + 127).divide(pow);
+            }
+            POW10_HI[e - MIN_EXP10] = normalized.shiftRight(64).longValue();
+            POW10_LO[e - MIN_EXP10] = normalized.and(mask).longValue();
+        }
+    }
+
+    private EiselLemire() {
+    }
+
+    /** {@code mantissa * 10^exp10} as a double, or NaN when the fast path can't decide. */
+    static double toDouble(long mantissa, int exp10, boolean negative) {
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) {
+            return Double.NaN;
+        }
+
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= clz;
+        long exp2 = ((217706L * exp10) >> 16) + 64 + 1023 - clz;
+
+        long pow10Hi = POW10_HI[exp10 - MIN_EXP10];
+        long hi = Math.unsignedMultiplyHigh(mantissa, pow10Hi);
+        long lo = mantissa * pow10Hi;
+
+        // the low bits are all ones, so the truncated tail of the power could still carry in
+        if ((hi & 0x1FF) == 0x1FF && Long.compareUnsigned(lo + mantissa, mantissa) < 0) {
+            long pow10Lo = POW10_LO[exp10 - MIN_EXP10];
+            long tailHi = Math.unsignedMultiplyHigh(mantissa, pow10Lo);
+            long tailLo = mantissa * pow10Lo;
+            long mergedHi = hi;
+            long mergedLo = lo + tailHi;
+            if (Long.compareUnsigned(mergedLo, lo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo == -1 && Long.compareUnsigned(tailLo + mantissa, mantissa) < 0) {
+                return Double.NaN;
+            }
+            hi = mergedHi;
+            lo = mergedLo;
+        }
+
+        long msb = hi >>> 63;
+        long result = hi >>> (msb + 9);
+        exp2 -= 1 ^ msb;
+
+        // exactly half way between two doubles, the rounding direction needs all digits
+        if (lo == 0 && (hi & 0x1FF) == 0 && (result & 3) == 1) {
+            return Double.NaN;
+        }
+
+        result += result & 1;
+        result >>>= 1;
+        if ((result >>> 53) > 0) {
+            result >>>= 1;
+            exp2++;
+        }
+        // zero or below is subnormal, 0x7FF and above is infinity
+        if (exp2 <= 0 || exp2 >= 0x7FF) {
+            return Double.NaN;
+        }
+
+        long bits = exp2 << 52 | result & ((1L << 52) - 1);
+        if (negative) {
+            bits |= Long.MIN_VALUE;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+}
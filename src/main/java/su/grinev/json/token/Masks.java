@@ -1,61 +1,80 @@
 package su.grinev.json.token;
 
+/**
+ * SWAR byte classifiers: each mask has 0x80 set in exactly the bytes of {@code word} that match.
+ * The comparison does not borrow across bytes, so a match never marks its neighbour.
+ */
 public class Masks {
 
+    private static final long LOW_7 = 0x7F7F7F7F7F7F7F7FL;
+
     public static long maskCurlyOpen(long word) {
-        long cmp = word ^ 0x7B7B7B7B7B7B7B7BL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x7B7B7B7B7B7B7B7BL);
     }
 
     public static long maskCurlyClose(long word) {
-        long cmp = word ^ 0x7D7D7D7D7D7D7D7DL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x7D7D7D7D7D7D7D7DL);
     }
 
     public static long maskSquareOpen(long word) {
-        long cmp = word ^ 0x5B5B5B5B5B5B5B5BL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x5B5B5B5B5B5B5B5BL);
     }
 
     public static long maskSquareClose(long word) {
-        long cmp = word ^ 0x5D5D5D5D5D5D5D5DL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x5D5D5D5D5D5D5D5DL);
     }
 
     public static long maskColon(long word) {
-        long cmp = word ^ 0x3A3A3A3A3A3A3A3AL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x3A3A3A3A3A3A3A3AL);
     }
 
     public static long maskComma(long word) {
-        long cmp = word ^ 0x2C2C2C2C2C2C2C2CL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x2C2C2C2C2C2C2C2CL);
+    }
+
+    public static long maskQuote(long word) {
+        return zeroBytes(word ^ 0x2222222222222222L);
+    }
+
+    public static long maskBackslash(long word) {
+        return zeroBytes(word ^ 0x5C5C5C5C5C5C5C5CL);
+    }
+
+    /** Bytes that are one of {@code { } [ ] : ,}. */
+    public static long maskStructural(long word) {
+        // setting bit 5 folds '[' onto '{' and ']' onto '}', and nothing else onto either
+        long folded = word | 0x2020202020202020L;
+        return maskCurlyOpen(folded) | maskCurlyClose(folded) | maskColon(word) | maskComma(word);
+    }
+
+    /** JSON whitespace: space, tab, line feed and carriage return. */
+    public static long maskWhitespace(long word) {
+        return zeroBytes(word ^ 0x2020202020202020L) | zeroBytes(word ^ 0x0909090909090909L)
+                | zeroBytes(word ^ 0x0A0A0A0A0A0A0A0AL) | zeroBytes(word ^ 0x0D0D0D0D0D0D0D0DL);
     }
 
     // Литералы true, false, null
     public static long maskLiteralT(long word) {
-        long cmp = word ^ 0x7474747474747474L;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x7474747474747474L);
     }
 
     public static long maskLiteralF(long word) {
-        long cmp = word ^ 0x6666666666666666L;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x6666666666666666L);
     }
 
     public static long maskLiteralN(long word) {
-        long cmp = word ^ 0x6E6E6E6E6E6E6E6EL;
-        return ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return zeroBytes(word ^ 0x6E6E6E6E6E6E6E6EL);
     }
 
-    private static int getPosition(long masked) {
-        for (int i = 0; i < 8; i++) {
-            if ((masked & 0x8000000000000000L) != 0) {
-                return i;
-            }
-            masked <<= 8;
-        }
-        return 0;
+    /**
+     * Packs the high bit of every byte into the low 8 bits, byte {@code i} of a little-endian
+     * word becoming bit {@code i}.
+     */
+    public static int moveMask(long mask) {
+        return (int) (((mask >>> 7) * 0x0102040810204080L) >>> 56);
     }
-}
 
+    private static long zeroBytes(long word) {
+        return ~(((word & LOW_7) + LOW_7) | word | LOW_7);
+    }
+}
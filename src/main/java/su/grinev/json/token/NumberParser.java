@@ -0,0 +1,158 @@
+package su.grinev.json.token;
+
+import java.math.BigDecimal;
+
+/**
+ * Reads JSON numbers straight from the input bytes. Integers are accumulated into a long and
+ * returned as Integer or Long, or as BigDecimal when they don't fit. Decimals keep up to 19
+ * significant digits and are converted exactly when the value and power of ten fit a double,
+ * otherwise with {@link EiselLemire}; only numbers that neither can decide go through
+ * {@link Double#parseDouble}.
+ */
+public class NumberParser {
+
+    private static final int MAX_MANTISSA_DIGITS = 19;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_EXPONENT = 100_000;
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Buffer buffer;
+
+    public NumberParser(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public NumberToken parseNumber() {
+        return new NumberToken(parse());
+    }
+
+    /** Reads the number at the current position as an Integer, Long, BigDecimal or Double. */
+    public Number parse() {
+        int start = buffer.getPos();
+        boolean negative = buffer.peek() == '-';
+        if (negative) {
+            buffer.next();
+        }
+
+        // Digits are taken as an unsigned 64-bit mantissa; leading zeros don't count towards the 19
+        long mantissa = 0;
+        int digits = 0;
+        int exp10 = 0;
+        boolean truncated = false;
+
+        // Parse integer part
+        if (!buffer.hasNext() || !isDigit(buffer.peek())) {
+            throw new IllegalArgumentException("Invalid number at pos: " + buffer.getPos());
+        }
+        if (buffer.peek() == '0') {
+            buffer.next();
+        } else {
+            while (buffer.hasNext() && isDigit(buffer.peek())) {
+                int digit = buffer.next() - '0';
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                } else {
+                    exp10++;
+                    truncated |= digit != 0;
+                }
+                digits++;
+            }
+        }
+        int integerDigits = digits;
+
+        boolean isFloatingPoint = false;
+
+        // Parse fraction part
+        if (buffer.hasNext() && buffer.peek() == '.') {
+            isFloatingPoint = true;
+            buffer.next();
+            int fractionStart = buffer.getPos();
+            while (buffer.hasNext() && isDigit(buffer.peek())) {
+                int digit = buffer.next() - '0';
+                if (digits == 0 && digit == 0) {
+                    exp10--;
+                } else if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    exp10--;
+                    digits++;
+                } else {
+                    truncated |= digit != 0;
+                }
+            }
+            if (buffer.getPos() == fractionStart) {
+                throw new IllegalArgumentException("Invalid fraction at pos: " + buffer.getPos());
+            }
+        }
+
+        // Parse exponent part
+        if (buffer.hasNext() && (buffer.peek() == 'e' || buffer.peek() == 'E')) {
+            isFloatingPoint = true;
+            buffer.next();
+            boolean negativeExponent = false;
+            if (buffer.hasNext() && (buffer.peek() == '+' || buffer.peek() == '-')) {
+                negativeExponent = buffer.next() == '-';
+            }
+            int expStart = buffer.getPos();
+            int exponent = 0;
+            while (buffer.hasNext() && isDigit(buffer.peek())) {
+                int digit = buffer.next() - '0';
+                if (exponent < MAX_EXPONENT) {
+                    exponent = exponent * 10 + digit;
+                }
+            }
+            if (buffer.getPos() == expStart) {
+                throw new IllegalArgumentException("Invalid exponent at pos: " + buffer.getPos());
+            }
+            exp10 += negativeExponent ? -exponent : exponent;
+        }
+
+        if (!isFloatingPoint) {
+            return integer(start, negative, mantissa, integerDigits);
+        }
+        return decimal(start, negative, mantissa, exp10, truncated);
+    }
+
+    private Number integer(int start, boolean negative, long mantissa, int digits) {
+        // 19 digits always fit an unsigned long; the signed range ends at 2^63 - 1, or 2^63 when negative
+        if (digits < MAX_MANTISSA_DIGITS || (digits == MAX_MANTISSA_DIGITS
+                && (mantissa >= 0 || negative && mantissa == Long.MIN_VALUE))) {
+            long value = negative ? -mantissa : mantissa;
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            return value;
+        }
+        return new BigDecimal(text(start));
+    }
+
+    private Double decimal(int start, boolean negative, long mantissa, int exp10, boolean truncated) {
+        if (!truncated) {
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (Long.compareUnsigned(mantissa, MAX_EXACT_MANTISSA) <= 0 && exp10 >= -22 && exp10 <= 22) {
+                // both operands are exact doubles, so the one IEEE operation rounds correctly
+                double value = exp10 >= 0
+                        ? mantissa * EXACT_POWERS_OF_TEN[exp10]
+                        : mantissa / EXACT_POWERS_OF_TEN[-exp10];
+                return negative ? -value : value;
+            }
+            double value = EiselLemire.toDouble(mantissa, exp10, negative);
+            if (!Double.isNaN(value)) {
+                return value;
+            }
+        }
+        return Double.parseDouble(text(start));
+    }
+
+    private String text(int start) {
+        return buffer.getString(start, buffer.getPos() - start);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
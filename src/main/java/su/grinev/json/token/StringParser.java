@@ -2,21 +2,78 @@ package su.grinev.json.token;
 
 public class StringParser {
 
-    // Thread-local StringBuilder for escape sequence handling
-    private static final ThreadLocal<StringBuilder> escapeBuilder = ThreadLocal.withInitial(() -> new StringBuilder(256));
-    private static final ThreadLocal<char[]> unicodeBuffer = ThreadLocal.withInitial(() -> new char[4]);
-
     private final Buffer buffer;
+    // Created on the first escaped string of the document and reused for the rest of it
+    private StringBuilder escapeBuilder;
 
     public StringParser(Buffer buffer) {
         this.buffer = buffer;
     }
 
     public StringToken parseString() {
+        return new StringToken(parse());
+    }
+
+    /** Reads the string starting at the opening quote and returns its unescaped value. */
+    public String parse() {
+        int startPos = buffer.getPos() + 1;
+        int count = scan();
+        if (count >= 0) {
+            return buffer.getString(startPos, count);
+        }
+
+        // Slow path: handle escape sequences, copying the runs between them as UTF-8
+        if (escapeBuilder == null) {
+            escapeBuilder = new StringBuilder(256);
+        }
+        StringBuilder sb = escapeBuilder;
+        sb.setLength(0);
+        int segment = buffer.getPos();
+        while (true) {
+            if (!buffer.hasNext()) {
+                throw new IllegalArgumentException("Unexpected end of input in string");
+            }
+
+            char c = buffer.peek();
+            if (c != '"' && c != '\\') {
+                buffer.next();
+                continue;
+            }
+            if (buffer.getPos() > segment) {
+                sb.append(buffer.getString(segment, buffer.getPos() - segment));
+            }
+            buffer.next();
+            if (c == '"') break;
+
+            if (!buffer.hasNext()) {
+                throw new IllegalArgumentException("Unexpected end after escape at pos: " + buffer.getPos());
+            }
+            char esc = buffer.next();
+            sb.append(switch (esc) {
+                case '"' -> '"';
+                case '\\' -> '\\';
+                case '/' -> '/';
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> parseUnicode();
+                default -> throw new IllegalArgumentException("Invalid escape character: \\" + esc);
+            });
+            segment = buffer.getPos();
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Moves past the string that starts at the opening quote and returns the byte length of its
+     * content. Returns -1 for a string with escape sequences, or without a closing quote; the
+     * buffer is then left right after the opening quote.
+     */
+    public int scan() {
         buffer.next(); // consume opening quote
         int startPos = buffer.getPos();
-        boolean hasEscapeSequence = false;
-        boolean foundQuote = false;
         int count = 0;
 
         // SIMD-like fast path: process 8 bytes at a time
@@ -25,77 +82,51 @@ public class StringParser {
             long maskedEscape = escapeMask(data);
             long maskedQuote = quoteMask(data);
 
-            if (maskedEscape != 0) {
-                hasEscapeSequence = true;
-                break;
+            // a backslash after the closing quote belongs to whatever follows the string
+            if (maskedQuote != 0 && (maskedEscape == 0 || getPosition(maskedQuote) < getPosition(maskedEscape))) {
+                int position = getPosition(maskedQuote);
+                buffer.setPost(buffer.getPos() + position + 1);
+                return count + position;
             }
 
-            if (maskedQuote != 0) {
-                int position = getPosition(maskedQuote);
-                count += position;
-                buffer.setPost(buffer.getPos() + position);
-                foundQuote = true;
-                break;
+            if (maskedEscape != 0) {
+                buffer.setPost(startPos);
+                return -1;
             }
             count += 8;
             buffer.setPost(buffer.getPos() + 8);
         }
 
-        // If no quote found yet and no escape, scan remaining bytes
-        if (!foundQuote && !hasEscapeSequence) {
-            while (buffer.hasNext()) {
-                char c = buffer.peek();
-                if (c == '"') {
-                    foundQuote = true;
-                    break;
-                }
-                if (c == '\\') {
-                    hasEscapeSequence = true;
-                    break;
-                }
-                count++;
-                buffer.next();
+        // No quote found yet and no escape, scan remaining bytes
+        while (buffer.hasNext()) {
+            char c = buffer.next();
+            if (c == '"') {
+                return count;
             }
+            if (c == '\\') {
+                break;
+            }
+            count++;
         }
-
-        if (foundQuote && !hasEscapeSequence) {
-            buffer.next(); // consume closing quote
-            return new StringToken(buffer.getString(startPos, count));
-        }
-
-        // Slow path: handle escape sequences
         buffer.setPost(startPos);
-        StringBuilder sb = escapeBuilder.get();
-        sb.setLength(0);
-        while (true) {
-            if (!buffer.hasNext()) {
-                throw new IllegalArgumentException("Unexpected end of input in string");
-            }
+        return -1;
+    }
 
+    /** Moves past the string that starts at the opening quote without decoding it. */
+    public void skip() {
+        if (scan() >= 0) {
+            return;
+        }
+        while (buffer.hasNext()) {
             char c = buffer.next();
-            if (c == '"') break;
-            if (c == '\\') {
-                if (!buffer.hasNext()) {
-                    throw new IllegalArgumentException("Unexpected end after escape at pos: " + buffer.getPos());
-                }
-                char esc = buffer.next();
-                sb.append(switch (esc) {
-                    case '"' -> '"';
-                    case '\\' -> '\\';
-                    case '/' -> '/';
-                    case 'b' -> '\b';
-                    case 'f' -> '\f';
-                    case 'n' -> '\n';
-                    case 'r' -> '\r';
-                    case 't' -> '\t';
-                    case 'u' -> parseUnicode();
-                    default -> throw new IllegalArgumentException("Invalid escape character: \\" + esc);
-                });
-            } else {
-                sb.append(c);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\' && buffer.hasNext()) {
+                buffer.next();
             }
         }
-        return new StringToken(sb.toString());
+        throw new IllegalArgumentException("Unexpected end of input in string");
     }
 
     private static int getPosition(long masked) {
@@ -108,14 +139,14 @@ public class StringParser {
         return 0;
     }
 
+    // Exact per-byte matches; a subtract-and-mask test borrows into the preceding byte of a
+    // big-endian word and would take a '#' right before the closing quote for the quote
     public static long quoteMask(long word) {
-        long cmp = word ^ 0x2222222222222222L;
-        return  ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return Masks.maskQuote(word);
     }
 
     public static long escapeMask(long word) {
-        long cmp = word ^ 0x5C5C5C5C5C5C5C5CL;
-        return  ((cmp - 0x0101010101010101L) & ~cmp & 0x8080808080808080L);
+        return Masks.maskBackslash(word);
     }
 
     private char parseUnicode() {
@@ -123,10 +154,15 @@ public class StringParser {
             throw new IllegalArgumentException("Invalid unicode escape at pos: " + buffer.getPos());
         }
 
-        char[] hex = unicodeBuffer.get();
+        int code = 0;
         for (int i = 0; i < 4; i++) {
-            hex[i] = buffer.next();
+            char c = buffer.next();
+            int digit = Character.digit(c, 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit '" + c + "' in unicode escape");
+            }
+            code = (code << 4) | digit;
         }
-        return (char) Integer.parseInt(new String(hex, 0, 4), 16);
+        return (char) code;
     }
 }
@@ -0,0 +1,130 @@
+package su.grinev.json.token;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static su.grinev.json.token.Masks.*;
+
+/**
+ * Positions of everything a JSON parser has to stop at: the structural characters
+ * {@code { } [ ] : ,} outside of strings, the opening quote of every string and the first byte
+ * of every number or literal. Everything in between is whitespace or belongs to the token
+ * started at the previous position, so a parser can jump from one position to the next.
+ * <p>
+ * The input is classified 64 bytes at a time with the SWAR {@link Masks}, eight words per
+ * block packed into one bitmap per character class. Escaped quotes and string contents are
+ * removed with bit operations; only blocks that contain a backslash take a short scalar loop.
+ */
+public final class StructuralIndex {
+
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int BLOCK = 64;
+
+    private final int[] positions;
+    private final int size;
+
+    private StructuralIndex(int[] positions, int size) {
+        this.positions = positions;
+        this.size = size;
+    }
+
+    public static StructuralIndex build(byte[] json) {
+        return build(json, json.length);
+    }
+
+    public static StructuralIndex build(byte[] json, int length) {
+        int[] positions = new int[Math.max(16, length / 4)];
+        int size = 0;
+
+        boolean escapeCarry = false;
+        long inStringCarry = 0;
+        long scalarCarry = 0;
+        byte[] tail = null;
+
+        for (int base = 0; base < length; base += BLOCK) {
+            byte[] block = json;
+            int offset = base;
+            if (base + BLOCK > length) {
+                // pad the last block with spaces, which are never indexed
+                tail = new byte[BLOCK];
+                Arrays.fill(tail, (byte) ' ');
+                System.arraycopy(json, base, tail, 0, length - base);
+                block = tail;
+                offset = 0;
+            }
+
+            long quotes = 0;
+            long backslashes = 0;
+            long structural = 0;
+            long whitespace = 0;
+            for (int i = 0; i < 8; i++) {
+                long word = (long) LONG_LE.get(block, offset + i * 8);
+                int shift = i * 8;
+                quotes |= (long) moveMask(maskQuote(word)) << shift;
+                backslashes |= (long) moveMask(maskBackslash(word)) << shift;
+                structural |= (long) moveMask(maskStructural(word)) << shift;
+                whitespace |= (long) moveMask(maskWhitespace(word)) << shift;
+            }
+
+            long escaped = 0;
+            if (backslashes != 0 || escapeCarry) {
+                if (escapeCarry) {
+                    escaped = 1;
+                    backslashes &= ~1L;
+                }
+                escapeCarry = false;
+                while (backslashes != 0) {
+                    int i = Long.numberOfTrailingZeros(backslashes);
+                    backslashes &= backslashes - 1;
+                    if (i == BLOCK - 1) {
+                        escapeCarry = true;
+                    } else {
+                        // a backslash escapes the next byte, which can't start an escape itself
+                        escaped |= 1L << (i + 1);
+                        backslashes &= ~(1L << (i + 1));
+                    }
+                }
+            }
+
+            quotes &= ~escaped;
+            // prefix XOR: a bit is set from an opening quote up to, not including, its closing quote
+            long inString = quotes;
+            inString ^= inString << 1;
+            inString ^= inString << 2;
+            inString ^= inString << 4;
+            inString ^= inString << 8;
+            inString ^= inString << 16;
+            inString ^= inString << 32;
+            inString ^= inStringCarry;
+            inStringCarry = inString >> 63;
+
+            long scalar = ~(structural | whitespace | quotes | inString);
+            long scalarStarts = scalar & ~((scalar << 1) | scalarCarry);
+            scalarCarry = scalar >>> 63;
+
+            long indexed = (structural & ~inString) | (quotes & inString) | scalarStarts;
+            if (size + Long.bitCount(indexed) > positions.length) {
+                positions = Arrays.copyOf(positions, Math.max(positions.length * 2, size + BLOCK));
+            }
+            while (indexed != 0) {
+                positions[size++] = base + Long.numberOfTrailingZeros(indexed);
+                indexed &= indexed - 1;
+            }
+        }
+
+        if (inStringCarry != 0) {
+            throw new IllegalArgumentException("Unexpected end of input in string");
+        }
+        return new StructuralIndex(positions, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int i) {
+        return positions[i];
+    }
+}
@@ -0,0 +1,68 @@
+package su.grinev.messagepack;
+
+import su.grinev.Binder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public class BindingReaderContext {
+
+    enum Kind { OBJECT, COLLECTION, DOCUMENT, ARRAY }
+
+    public Kind kind;
+    public int size;
+    public int index;
+    public int startPos; // position of the first entry, used to look up discriminators
+
+    public Object object;
+    public Binder.ClassSchema schema;
+    public Collection<Object> collection;
+    public java.lang.reflect.Type collectionType;
+    public Map<Object, Object> map;
+    public List<Object> list;
+
+    public BindingReaderContext initObject(Object object, Binder.ClassSchema schema, int size, int startPos) {
+        init(Kind.OBJECT, size, startPos);
+        this.object = object;
+        this.schema = schema;
+        return this;
+    }
+
+    public BindingReaderContext initCollection(Collection<Object> collection, java.lang.reflect.Type collectionType, int size) {
+        init(Kind.COLLECTION, size, -1);
+        this.collection = collection;
+        this.collectionType = collectionType;
+        return this;
+    }
+
+    public BindingReaderContext initDocument(Map<Object, Object> map, int size) {
+        init(Kind.DOCUMENT, size, -1);
+        this.map = map;
+        return this;
+    }
+
+    public BindingReaderContext initArray(List<Object> list, int size) {
+        init(Kind.ARRAY, size, -1);
+        this.list = list;
+        return this;
+    }
+
+    private void init(Kind kind, int size, int startPos) {
+        this.kind = kind;
+        this.size = size;
+        this.index = 0;
+        this.startPos = startPos;
+    }
+
+    public void reset() {
+        object = null;
+        schema = null;
+        collection = null;
+        collectionType = null;
+        map = null;
+        list = null;
+        size = 0;
+        index = 0;
+    }
+}
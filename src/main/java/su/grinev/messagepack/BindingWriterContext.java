@@ -0,0 +1,64 @@
+package su.grinev.messagepack;
+
+import su.grinev.Binder;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class BindingWriterContext {
+
+    enum Kind { OBJECT, COLLECTION, DOCUMENT, ARRAY }
+
+    // Pre-encoded MessagePack keys for each binding's tag and discriminator
+    record SchemaKeys(byte[][] tags, byte[][] discriminators) {}
+
+    public Kind kind;
+    public Object object;
+    public Binder.ClassSchema schema;
+    public Binder.KeyOrder order;
+    public SchemaKeys keys;
+    public Iterator<?> iterator;
+    public int index;
+
+    public BindingWriterContext initObject(Object object, Binder.ClassSchema schema, Binder.KeyOrder order, SchemaKeys keys) {
+        this.kind = Kind.OBJECT;
+        this.object = object;
+        this.schema = schema;
+        this.order = order;
+        this.keys = keys;
+        this.index = 0;
+        return this;
+    }
+
+    public BindingWriterContext initCollection(Iterable<?> collection) {
+        return initIterator(Kind.COLLECTION, collection.iterator());
+    }
+
+    public BindingWriterContext initDocument(Map<?, ?> map) {
+        return initIterator(Kind.DOCUMENT, map.entrySet().iterator());
+    }
+
+    public BindingWriterContext initArray(List<?> list) {
+        return initIterator(Kind.ARRAY, list.iterator());
+    }
+
+    private BindingWriterContext initIterator(Kind kind, Iterator<?> iterator) {
+        this.kind = kind;
+        this.iterator = iterator;
+        return this;
+    }
+
+    public boolean hasNext() {
+        return kind == Kind.OBJECT ? index < order.size() : iterator.hasNext();
+    }
+
+    public void reset() {
+        object = null;
+        schema = null;
+        order = null;
+        keys = null;
+        iterator = null;
+        index = 0;
+    }
+}
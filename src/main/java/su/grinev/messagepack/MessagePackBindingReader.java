@@ -0,0 +1,347 @@
+package su.grinev.messagepack;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.grinev.Binder;
+import su.grinev.ObjectDeserializer;
+import su.grinev.StringCache;
+import su.grinev.pool.Pool;
+import su.grinev.pool.PoolFactory;
+import su.grinev.pool.ScratchBuffers;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static su.grinev.messagepack.MessagePackReader.getMapSize;
+
+/**
+ * Reads MessagePack straight into POJOs. Keys are decoded as ints and resolved through
+ * {@link Binder.ClassSchema#byTag}, values are decoded directly into the field type:
+ * integers through {@code long}, floats through {@code double}, enums from names or ordinals.
+ */
+public class MessagePackBindingReader implements ObjectDeserializer {
+
+    private final Binder binder;
+    private final Pool<BindingReaderContext> contextPool;
+    private final Pool<ArrayDeque<BindingReaderContext>> stackPool;
+    private final boolean useProjectionsForByteBuffer;
+    private final boolean useByteBufferForBinary;
+    private final Map<Class<?>, Object[]> enumConstantsCache = new ConcurrentHashMap<>();
+    @Setter
+    @Getter
+    private boolean readLengthHeader;
+    /** Canonicalizes short string values; {@code null} decodes every string afresh. */
+    @Setter
+    @Getter
+    private StringCache stringCache = StringCache.shared();
+    /** Where strings too long for the cache are copied before decoding; see {@link PoolFactory#getScratchBuffers()}. */
+    @Setter
+    @Getter
+    private ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal();
+
+    public MessagePackBindingReader(
+            Binder binder,
+            Pool<BindingReaderContext> contextPool,
+            Pool<ArrayDeque<BindingReaderContext>> stackPool,
+            boolean useProjectionsForByteBuffer,
+            boolean useByteBufferForBinary) {
+        this.binder = binder;
+        this.contextPool = contextPool;
+        this.stackPool = stackPool;
+        this.useProjectionsForByteBuffer = useProjectionsForByteBuffer;
+        this.useByteBufferForBinary = useByteBufferForBinary;
+        this.readLengthHeader = true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(ByteBuffer buffer, Class<T> tClass) {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (readLengthHeader) {
+            buffer.getInt();
+        }
+
+        Object root = Binder.instantiate(tClass);
+        ArrayDeque<BindingReaderContext> stack = stackPool.get();
+
+        try {
+            int rootSize = getMapSize(buffer);
+            stack.addFirst(contextPool.get().initObject(root, binder.schema(tClass), rootSize, buffer.position()));
+
+            while (!stack.isEmpty()) {
+                BindingReaderContext current = stack.getFirst();
+                int stackSize = stack.size();
+
+                while (current.index < current.size && stack.size() == stackSize) {
+                    current.index++;
+                    switch (current.kind) {
+                        case OBJECT -> readField(buffer, stack, current);
+                        case COLLECTION -> readCollectionItem(buffer, stack, current);
+                        case DOCUMENT -> {
+                            Object key = readValue(buffer, null);
+                            current.map.put(key, readValue(buffer, stack));
+                        }
+                        case ARRAY -> current.list.add(readValue(buffer, stack));
+                    }
+                }
+
+                if (stack.size() == stackSize) {
+                    stack.removeFirst();
+                    current.reset();
+                    contextPool.release(current);
+                }
+            }
+        } finally {
+            stack.clear();
+            stackPool.release(stack);
+        }
+
+        return (T) root;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void readField(ByteBuffer buffer, ArrayDeque<BindingReaderContext> stack, BindingReaderContext ctx) {
+        int key = readKey(buffer);
+        Binder.FieldBinding binding = ctx.schema.byTag(key);
+        if (binding == null) {
+            skipValue(buffer);
+            return;
+        }
+
+        Object target = ctx.object;
+        try {
+            switch (binding.kind) {
+                case INT, LONG, DOUBLE, FLOAT, BOOLEAN, SHORT, BYTE, CHAR, PRIMITIVE -> readPrimitive(buffer, binding, target);
+                case ENUM -> {
+                    Object value = readScalar(buffer, buffer.get());
+                    Enum<?> constant = value instanceof Number ordinal
+                            ? (Enum<?>) enumConstantsCache.computeIfAbsent(binding.fieldType, Class::getEnumConstants)[ordinal.intValue()]
+                            : Enum.valueOf((Class<Enum>) binding.fieldType, value.toString());
+                    binding.set(target, constant);
+                }
+                case NESTED -> {
+                    int size = getMapSize(buffer);
+                    Object nested = Binder.instantiate(binding.fieldType);
+                    binding.set(target, nested);
+                    stack.addFirst(contextPool.get().initObject(nested, binder.schema(nested.getClass()), size, buffer.position()));
+                }
+                case TYPE -> {
+                    int size = getMapSize(buffer);
+                    Class<?> targetCls = Binder.resolveClass(findDiscriminator(buffer, ctx, binding.discriminator));
+                    Object nested = Binder.instantiate(targetCls);
+                    binding.set(target, nested);
+                    stack.addFirst(contextPool.get().initObject(nested, binder.schema(nested.getClass()), size, buffer.position()));
+                }
+                case MAP -> {
+                    int size = getMapSize(buffer);
+                    Map<Object, Object> map = new HashMap<>(size + size / 3 + 1);
+                    binding.set(target, map);
+                    stack.addFirst(contextPool.get().initDocument(map, size));
+                }
+                case COLLECTION -> {
+                    int size = getArraySize(buffer);
+                    Collection<Object> collection = Binder.instantiateCollection(binding.fieldType);
+                    binding.set(target, collection);
+                    stack.addFirst(contextPool.get().initCollection(collection, binding.genericType, size));
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to bind tag: " + key, e);
+        }
+    }
+
+    private void readPrimitive(ByteBuffer buffer, Binder.FieldBinding binding, Object target) {
+        byte b = buffer.get();
+        if ((b & 0x80) == 0 || (b & 0xFF) >= 0xE0) {
+            // Positive or negative fixint
+            binding.setLong(target, b);
+            return;
+        }
+
+        switch (b & 0xFF) {
+            case 0xC2 -> binding.setBoolean(target, false);
+            case 0xC3 -> binding.setBoolean(target, true);
+            case 0xCC -> binding.setLong(target, buffer.get() & 0xFF);
+            case 0xCD -> binding.setLong(target, buffer.getShort() & 0xFFFF);
+            case 0xCE -> binding.setLong(target, buffer.getInt() & 0xFFFFFFFFL);
+            case 0xCF, 0xD3 -> binding.setLong(target, buffer.getLong());
+            case 0xD0 -> binding.setLong(target, buffer.get());
+            case 0xD1 -> binding.setLong(target, buffer.getShort());
+            case 0xD2 -> binding.setLong(target, buffer.getInt());
+            case 0xCA -> binding.setDouble(target, buffer.getFloat());
+            case 0xCB -> binding.setDouble(target, buffer.getDouble());
+            default -> {
+                // packed array extensions only for a field of an array type, others keep their own
+                Object value = readScalar(buffer, b, binding.fieldType == int[].class
+                        || binding.fieldType == long[].class || binding.fieldType == double[].class);
+                if (value instanceof Instant instant) {
+                    binding.setInstant(target, instant);
+                } else if (binding.kind == Binder.FieldKind.CHAR && value instanceof String s) {
+                    binding.setChar(target, s.charAt(0));
+                } else {
+                    binding.set(target, value);
+                }
+            }
+        }
+    }
+
+    private void readCollectionItem(ByteBuffer buffer, ArrayDeque<BindingReaderContext> stack, BindingReaderContext ctx) {
+        int unsigned = buffer.get(buffer.position()) & 0xFF;
+        if ((unsigned >= 0x80 && unsigned <= 0x8F) || unsigned == 0xDE || unsigned == 0xDF) {
+            int size = getMapSize(buffer);
+            Class<?> itemClass = Binder.resolveClassFromType(Binder.resolveListItemType(ctx.collectionType));
+            Object item = Binder.instantiate(itemClass);
+            ctx.collection.add(item);
+            stack.addFirst(contextPool.get().initObject(item, binder.schema(itemClass), size, buffer.position()));
+        } else if ((unsigned >= 0x90 && unsigned <= 0x9F) || unsigned == 0xDC || unsigned == 0xDD) {
+            skipValue(buffer);
+        } else {
+            ctx.collection.add(readScalar(buffer, buffer.get()));
+        }
+    }
+
+    private Object readValue(ByteBuffer buffer, ArrayDeque<BindingReaderContext> stack) {
+        int unsigned = buffer.get(buffer.position()) & 0xFF;
+        if ((unsigned >= 0x80 && unsigned <= 0x8F) || unsigned == 0xDE || unsigned == 0xDF) {
+            Objects.requireNonNull(stack, "Map cannot be used as key");
+            int size = getMapSize(buffer);
+            Map<Object, Object> map = new HashMap<>(size + size / 3 + 1);
+            stack.addFirst(contextPool.get().initDocument(map, size));
+            return map;
+        }
+        if ((unsigned >= 0x90 && unsigned <= 0x9F) || unsigned == 0xDC || unsigned == 0xDD) {
+            Objects.requireNonNull(stack, "List cannot be used as key");
+            int size = getArraySize(buffer);
+            List<Object> list = new ArrayList<>(size);
+            stack.addFirst(contextPool.get().initArray(list, size));
+            return list;
+        }
+        return readScalar(buffer, buffer.get());
+    }
+
+    private Object readScalar(ByteBuffer buffer, byte b) {
+        return readScalar(buffer, b, false);
+    }
+
+    private Object readScalar(ByteBuffer buffer, byte b, boolean packedArrays) {
+        return MessagePackReader.readScalar(buffer, b, false, packedArrays, stringCache, scratchBuffers, useByteBufferForBinary, useProjectionsForByteBuffer);
+    }
+
+    private static int readKey(ByteBuffer buffer) {
+        byte b = buffer.get();
+        if ((b & 0x80) == 0) {
+            return b;
+        }
+        int unsigned = b & 0xFF;
+        if (unsigned >= 0xE0) {
+            return b;
+        }
+        return switch (unsigned) {
+            case 0xCC -> buffer.get() & 0xFF;
+            case 0xCD -> buffer.getShort() & 0xFFFF;
+            case 0xCE -> intKey(buffer.getInt() & 0xFFFFFFFFL, false);
+            case 0xCF -> intKey(buffer.getLong(), true);
+            case 0xD3 -> intKey(buffer.getLong(), false);
+            case 0xD0 -> buffer.get();
+            case 0xD1 -> buffer.getShort();
+            case 0xD2 -> buffer.getInt();
+            default -> throw new MessagePackException("Expected integer key, got 0x" + Integer.toHexString(unsigned));
+        };
+    }
+
+    /** {@code value} as a tag, read as unsigned 64-bit when {@code unsigned}; tags are ints. */
+    private static int intKey(long value, boolean unsigned) {
+        if ((unsigned && value < 0) || value != (int) value) {
+            throw new MessagePackException("Key out of int range: " + (unsigned ? Long.toUnsignedString(value) : String.valueOf(value)));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Scans the entries of the current map for the discriminator string, skipping the other
+     * values, so the class name may appear before or after the typed field.
+     */
+    private String findDiscriminator(ByteBuffer buffer, BindingReaderContext ctx, int discriminator) {
+        int position = buffer.position();
+        try {
+            buffer.position(ctx.startPos);
+            for (int i = 0; i < ctx.size; i++) {
+                int key = readKey(buffer);
+                int unsigned = buffer.get(buffer.position()) & 0xFF;
+                boolean isString = (unsigned >= 0xA0 && unsigned <= 0xBF) || (unsigned >= 0xD9 && unsigned <= 0xDB);
+                if (key == discriminator && isString) {
+                    return (String) readScalar(buffer, buffer.get());
+                }
+                skipValue(buffer);
+            }
+            throw new MessagePackException("Discriminator " + discriminator + " not found");
+        } finally {
+            buffer.position(position);
+        }
+    }
+
+    private static void skipValue(ByteBuffer buffer) {
+        long pending = 1;
+        while (pending-- > 0) {
+            int unsigned = buffer.get() & 0xFF;
+            if (unsigned <= 0x7F || unsigned >= 0xE0) {
+                continue;
+            }
+            if (unsigned <= 0x8F) {
+                pending += 2L * (unsigned & 0x0F);
+                continue;
+            }
+            if (unsigned <= 0x9F) {
+                pending += unsigned & 0x0F;
+                continue;
+            }
+            if (unsigned <= 0xBF) {
+                skip(buffer, unsigned & 0x1F);
+                continue;
+            }
+            switch (unsigned) {
+                case 0xC0, 0xC2, 0xC3 -> {}
+                case 0xCC, 0xD0 -> skip(buffer, 1);
+                case 0xCD, 0xD1 -> skip(buffer, 2);
+                case 0xCE, 0xD2, 0xCA -> skip(buffer, 4);
+                case 0xCF, 0xD3, 0xCB -> skip(buffer, 8);
+                case 0xC4, 0xD9 -> skip(buffer, buffer.get() & 0xFF);
+                case 0xC5, 0xDA -> skip(buffer, buffer.getShort() & 0xFFFF);
+                case 0xC6, 0xDB -> skip(buffer, buffer.getInt());
+                case 0xD4 -> skip(buffer, 1 + 1);
+                case 0xD5 -> skip(buffer, 1 + 2);
+                case 0xD6 -> skip(buffer, 1 + 4);
+                case 0xD7 -> skip(buffer, 1 + 8);
+                case 0xD8 -> skip(buffer, 1 + 16);
+                case 0xC7 -> skip(buffer, (buffer.get() & 0xFF) + 1);
+                case 0xC8 -> skip(buffer, (buffer.getShort() & 0xFFFF) + 1);
+                case 0xC9 -> skip(buffer, buffer.getInt() + 1);
+                case 0xDC -> pending += buffer.getShort() & 0xFFFF;
+                case 0xDD -> pending += buffer.getInt() & 0xFFFFFFFFL;
+                case 0xDE -> pending += 2L * (buffer.getShort() & 0xFFFF);
+                case 0xDF -> pending += 2L * (buffer.getInt() & 0xFFFFFFFFL);
+                default -> throw new MessagePackException("Invalid format byte 0x" + Integer.toHexString(unsigned));
+            }
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        buffer.position(buffer.position() + length);
+    }
+
+    private static int getArraySize(ByteBuffer buffer) {
+        int unsigned = buffer.get() & 0xFF;
+
+        if (unsigned >= 0x90 && unsigned <= 0x9F) {
+            return unsigned & 0x0F;
+        } else if (unsigned == 0xDC) {
+            return buffer.getShort() & 0xFFFF;
+        } else if (unsigned == 0xDD) {
+            return buffer.getInt();
+        }
+        throw new MessagePackException("Unexpected type 0x" + Integer.toHexString(unsigned));
+    }
+}
@@ -0,0 +1,236 @@
+package su.grinev.messagepack;
+
+import lombok.Getter;
+import lombok.Setter;
+import su.grinev.Binder;
+import su.grinev.ObjectSerializer;
+import su.grinev.pool.DynamicByteBuffer;
+import su.grinev.pool.Pool;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static su.grinev.messagepack.MessagePackWriter.*;
+
+/**
+ * Writes POJOs straight into MessagePack by walking {@link Binder.ClassSchema} bindings.
+ * Map headers come from the non-null field count, tag keys are pre-encoded per class
+ * and primitive fields are read through typed {@code VarHandle} access without boxing.
+ * Output is byte-identical to {@code Binder.unbind} followed by {@link MessagePackWriter}.
+ */
+public class MessagePackBindingWriter implements ObjectSerializer {
+    private final Binder binder;
+    private final Pool<BindingWriterContext> contextPool;
+    private final Pool<ArrayDeque<BindingWriterContext>> stackPool;
+    private final Map<Class<?>, BindingWriterContext.SchemaKeys> schemaKeysCache = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> keyCache = new ConcurrentHashMap<>();
+    @Setter
+    @Getter
+    private boolean writeLengthHeader;
+
+    public MessagePackBindingWriter(Binder binder, Pool<BindingWriterContext> contextPool, Pool<ArrayDeque<BindingWriterContext>> stackPool) {
+        this.binder = binder;
+        this.contextPool = contextPool;
+        this.stackPool = stackPool;
+        writeLengthHeader = true;
+    }
+
+    @Override
+    public void serialize(DynamicByteBuffer buffer, Object o) {
+        buffer.getBuffer().clear().order(ByteOrder.BIG_ENDIAN);
+        if (writeLengthHeader) {
+            buffer.putInt(0);
+        }
+        ArrayDeque<BindingWriterContext> stack = stackPool.get();
+
+        try {
+            pushObject(buffer, stack, o, true);
+
+            while (!stack.isEmpty()) {
+                BindingWriterContext context = stack.getFirst();
+                int stackSize = stack.size();
+
+                while (context.hasNext() && stack.size() == stackSize) {
+                    switch (context.kind) {
+                        case OBJECT -> writeSlot(buffer, stack, context, context.order.slot(context.index++));
+                        case COLLECTION -> writeCollectionItem(buffer, stack, context.iterator.next());
+                        case DOCUMENT -> {
+                            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) context.iterator.next();
+                            if (entry.getKey() instanceof String s) {
+                                doWriteString(buffer, keyCache.computeIfAbsent(s, k -> k.getBytes(StandardCharsets.UTF_8)));
+                            } else {
+                                writeValue(buffer, stack, entry.getKey());
+                            }
+                            writeValue(buffer, stack, entry.getValue());
+                        }
+                        case ARRAY -> writeValue(buffer, stack, context.iterator.next());
+                    }
+                }
+
+                if (stack.size() == stackSize) {
+                    stack.removeFirst();
+                    context.reset();
+                    contextPool.release(context);
+                }
+            }
+
+            if (writeLengthHeader) {
+                int bufferSize = buffer.getBuffer().position();
+                buffer.position(0).putInt(bufferSize);
+                buffer.position(bufferSize);
+            }
+            buffer.flip();
+        } finally {
+            stack.clear();
+            stackPool.release(stack);
+        }
+    }
+
+    /** The root goes in {@code Binder.unbind}'s {@code HashMap} order, nested objects in insertion order. */
+    private void pushObject(DynamicByteBuffer buffer, ArrayDeque<BindingWriterContext> stack, Object o, boolean root) {
+        Binder.ClassSchema schema = binder.schema(o.getClass());
+        int keyCount = schema.countKeys(o);
+        writeMapHeader(buffer, keyCount);
+        BindingWriterContext.SchemaKeys keys = schemaKeysCache.computeIfAbsent(o.getClass(), c -> encodeKeys(schema));
+        stack.push(contextPool.get().initObject(o, schema, root ? schema.rootKeyOrder(keyCount) : schema.keyOrder(), keys));
+    }
+
+    /** Writes the field at {@code slot}, or the type key of its {@code @Type} field past {@code schema.size()}. */
+    private void writeSlot(DynamicByteBuffer buffer, ArrayDeque<BindingWriterContext> stack, BindingWriterContext context, int slot) {
+        Binder.ClassSchema schema = context.schema;
+        if (slot < schema.size()) {
+            writeField(buffer, stack, context, schema.binding(slot), slot);
+            return;
+        }
+        int owner = schema.typeKeyOwner(slot - schema.size());
+        Object value = schema.binding(owner).get(context.object);
+        if (value != null) {
+            buffer.put(context.keys.discriminators()[owner]);
+            writeString(buffer, binder.getClassName(value.getClass()));
+        }
+    }
+
+    private void writeField(DynamicByteBuffer buffer, ArrayDeque<BindingWriterContext> stack, BindingWriterContext context, Binder.FieldBinding binding, int index) {
+        Object target = context.object;
+        if (binding.fieldType.isPrimitive()) {
+            buffer.put(context.keys.tags()[index]);
+            writePrimitive(buffer, binding, target);
+            return;
+        }
+
+        Object value = binding.get(target);
+        if (value == null) {
+            return;
+        }
+
+        switch (binding.kind) {
+            case PRIMITIVE -> {
+                buffer.put(context.keys.tags()[index]);
+                writeValue(buffer, stack, value);
+            }
+            case ENUM -> {
+                buffer.put(context.keys.tags()[index]);
+                writeString(buffer, value.toString());
+            }
+            case TYPE, NESTED -> {
+                buffer.put(context.keys.tags()[index]);
+                pushObject(buffer, stack, value, false);
+            }
+            case COLLECTION -> {
+                Collection<?> collection = (Collection<?>) value;
+                buffer.put(context.keys.tags()[index]);
+                writeArrayHeader(buffer, collection.size());
+                stack.push(contextPool.get().initCollection(collection));
+            }
+            case MAP -> {
+                Map<?, ?> map = (Map<?, ?>) value;
+                buffer.put(context.keys.tags()[index]);
+                writeMapHeader(buffer, map.size());
+                stack.push(contextPool.get().initDocument(map));
+            }
+        }
+    }
+
+    private static void writePrimitive(DynamicByteBuffer buffer, Binder.FieldBinding binding, Object target) {
+        switch (binding.kind) {
+            case INT -> writeInt(buffer, binding.getInt(target));
+            case LONG -> writeLong(buffer, binding.getLong(target));
+            case DOUBLE -> buffer.put((byte) 0xCB).putDouble(binding.getDouble(target));
+            case FLOAT -> buffer.put((byte) 0xCA).putFloat(binding.getFloat(target));
+            case BOOLEAN -> buffer.put(binding.getBoolean(target) ? (byte) 0xC3 : (byte) 0xC2);
+            case SHORT -> writeInt(buffer, binding.getShort(target));
+            case BYTE -> writeInt(buffer, binding.getByte(target));
+            case CHAR -> writeString(buffer, String.valueOf(binding.getChar(target)));
+            default -> throw new MessagePackException("Unsupported type: " + binding.fieldType.getName());
+        }
+    }
+
+    private void writeCollectionItem(DynamicByteBuffer buffer, ArrayDeque<BindingWriterContext> stack, Object item) {
+        if (item == null) {
+            buffer.put((byte) 0xC0);
+        } else if (Binder.isPrimitiveOrWrapperOrString(item.getClass()) || item.getClass().isEnum()) {
+            writeString(buffer, item.toString());
+        } else {
+            pushObject(buffer, stack, item, false);
+        }
+    }
+
+    private void writeValue(DynamicByteBuffer buffer, ArrayDeque<BindingWriterContext> stack, Object value) {
+        switch (value) {
+            case null -> buffer.put((byte) 0xC0);
+            case Boolean b -> buffer.put(b ? (byte) 0xC3 : (byte) 0xC2);
+            case Integer i -> writeInt(buffer, i);
+            case Long l -> writeLong(buffer, l);
+            case Float f -> buffer.put((byte) 0xCA).putFloat(f);
+            case Double d -> buffer.put((byte) 0xCB).putDouble(d);
+            case Short s -> writeInt(buffer, s);
+            case Byte b -> writeInt(buffer, b);
+            case String s -> writeString(buffer, s);
+            case byte[] bytes -> writeBinary(buffer, bytes);
+            case ByteBuffer bb -> writeBinary(buffer, bb);
+            case int[] ints -> writeIntArray(buffer, ints);
+            case long[] longs -> writeLongArray(buffer, longs);
+            case double[] doubles -> writeDoubleArray(buffer, doubles);
+            case List<?> list -> {
+                writeArrayHeader(buffer, list.size());
+                stack.push(contextPool.get().initArray(list));
+            }
+            case Map<?, ?> map -> {
+                writeMapHeader(buffer, map.size());
+                stack.push(contextPool.get().initDocument(map));
+            }
+            case MessagePackExtension ext -> writeExtension(buffer, ext);
+            case Instant inst -> writeTimestamp(buffer, inst);
+            case LocalDateTime ldt -> writeTimestamp(buffer, ldt.toInstant(ZoneOffset.UTC));
+            default -> throw new MessagePackException("Unsupported type: " + value.getClass().getName());
+        }
+    }
+
+    private static BindingWriterContext.SchemaKeys encodeKeys(Binder.ClassSchema schema) {
+        byte[][] tags = new byte[schema.size()][];
+        byte[][] discriminators = new byte[schema.size()][];
+        for (int i = 0; i < schema.size(); i++) {
+            Binder.FieldBinding binding = schema.binding(i);
+            tags[i] = encodeKey(binding.tag);
+            if (binding.kind == Binder.FieldKind.TYPE) {
+                discriminators[i] = encodeKey(binding.discriminator);
+            }
+        }
+        return new BindingWriterContext.SchemaKeys(tags, discriminators);
+    }
+
+    private static byte[] encodeKey(int key) {
+        DynamicByteBuffer buffer = new DynamicByteBuffer(5, false);
+        buffer.getBuffer().order(ByteOrder.BIG_ENDIAN);
+        writeInt(buffer, key);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip().getBuffer().get(bytes);
+        return bytes;
+    }
+}
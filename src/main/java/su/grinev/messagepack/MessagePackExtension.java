@@ -1,4 +1,13 @@
 package su.grinev.messagepack;
 
+/**
+ * Application-defined extension value. The library writes {@code int[]}, {@code long[]} and
+ * {@code double[]} as types {@link #INT_ARRAY}, {@link #LONG_ARRAY} and {@link #DOUBLE_ARRAY}, with
+ * the big-endian elements back to back. They are decoded as arrays for fields of those types, or
+ * everywhere with {@link MessagePackReader#setPackedArrays}; otherwise they stay extension values.
+ */
 public record MessagePackExtension(byte type, byte[] data) {
+    public static final byte INT_ARRAY = 0x10;
+    public static final byte LONG_ARRAY = 0x11;
+    public static final byte DOUBLE_ARRAY = 0x12;
 }
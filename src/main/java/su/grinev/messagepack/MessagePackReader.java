@@ -5,9 +5,14 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import su.grinev.BinaryDocument;
 import su.grinev.Deserializer;
+import su.grinev.LazyUtf8;
+import su.grinev.StringCache;
 import su.grinev.pool.Pool;
+import su.grinev.pool.PoolFactory;
+import su.grinev.pool.ScratchBuffers;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
@@ -15,15 +20,37 @@ import java.util.*;
 @Slf4j
 public class MessagePackReader implements Deserializer {
 
-    private static final int STRING_BUFFER_SIZE = 256;
     private final Pool<ReaderContext> contextPool;
     private final Pool<ArrayDeque<ReaderContext>> stackPool;
     private final boolean useProjectionsForByteBuffer;
     private final boolean useByteBufferForBinary;
-    private final ThreadLocal<byte[]> stringBuffer = ThreadLocal.withInitial(() -> new byte[STRING_BUFFER_SIZE]);
     @Setter
     @Getter
     private boolean readLengthHeader;
+    /**
+     * Decode string values (never keys) as {@link LazyUtf8} views into the input buffer instead
+     * of copying them. The buffer has to outlive the document until the strings that are used have been read.
+     */
+    @Setter
+    @Getter
+    private boolean lazyStrings;
+    /**
+     * Decode the extension types {@link MessagePackExtension#INT_ARRAY}, {@link MessagePackExtension#LONG_ARRAY}
+     * and {@link MessagePackExtension#DOUBLE_ARRAY} as the packed arrays this library writes. Off by default,
+     * since other producers use these application types for their own data, which then stays a
+     * {@link MessagePackExtension}.
+     */
+    @Setter
+    @Getter
+    private boolean packedArrays;
+    /** Canonicalizes short strings, keys included; {@code null} decodes every string afresh. */
+    @Setter
+    @Getter
+    private StringCache stringCache = StringCache.shared();
+    /** Where strings too long for the cache are copied before decoding; see {@link PoolFactory#getScratchBuffers()}. */
+    @Setter
+    @Getter
+    private ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal();
 
     public MessagePackReader(
             Pool<ReaderContext> contextPool,
@@ -58,8 +85,8 @@ public class MessagePackReader implements Deserializer {
                     Map<Object, Object> map = current.objectMap;
                     while (current.index < current.size) {
                         current.index++;
-                        Object key = readValue(buffer, null);
-                        Object value = readValue(buffer, stack);
+                        Object key = readValue(buffer, stack, true);
+                        Object value = readValue(buffer, stack, false);
                         map.put(key, value);
 
                         if (stack.size() > stackSize) {
@@ -69,7 +96,7 @@ public class MessagePackReader implements Deserializer {
                 } else {List<Object> list = current.array;
                     while (current.index < current.size) {
                         current.index++;
-                        Object value = readValue(buffer, stack);
+                        Object value = readValue(buffer, stack, false);
                         list.add(value);
 
                         if (stack.size() > stackSize) {
@@ -94,7 +121,8 @@ public class MessagePackReader implements Deserializer {
         }
     }
 
-    private Object readValue(ByteBuffer buffer, ArrayDeque<ReaderContext> stack) {
+    /** Reads a map key when {@code key} is set, a map or array value otherwise. */
+    private Object readValue(ByteBuffer buffer, ArrayDeque<ReaderContext> stack, boolean key) {
         byte b = buffer.get();
         if ((b & 0x80) == 0) {
             // Positive fixint: 0x00-0x7F (most common for small integers)
@@ -103,36 +131,18 @@ public class MessagePackReader implements Deserializer {
 
         int unsigned = b & 0xFF;
 
-        if (unsigned >= 0xA0 && unsigned <= 0xBF) {
-            // Fixstr: 0xA0-0xBF - use thread-local buffer
-            int len = unsigned & 0x1F;
-            byte[] strBuf = stringBuffer.get();
-            if (strBuf.length < len) {
-                strBuf = new byte[STRING_BUFFER_SIZE * 2];
-                stringBuffer.set(strBuf);
-            }
-            buffer.get(strBuf, 0, len);
-            return new String(strBuf, 0, len, StandardCharsets.UTF_8);
-        }
-
         if (unsigned <= 0x8F) {
             // Fixmap: 0x80-0x8F - push to stack
-            Objects.requireNonNull(stack, "Map cannot be used as key");
-
+            rejectKey(key, "Map");
             int size = unsigned & 0x0F;
             Map<Object, Object> map = new HashMap<>(size);
             stack.addFirst(contextPool.get().initMap(map, size));
             return map;
         }
 
-        if (unsigned >= 0xE0) {
-            // Negative fixint: 0xE0-0xFF
-            return (int) b;
-        }
-
         if (unsigned <= 0x9F) {
             // Fixarray: 0x90-0x9F - push to stack
-            Objects.requireNonNull(stack, "List cannot be used as key");
+            rejectKey(key, "List");
             int size = unsigned & 0x0F;
             List<Object> list = new ArrayList<>(size);
             if (size > 0) {
@@ -141,7 +151,41 @@ public class MessagePackReader implements Deserializer {
             return list;
         }
 
-        // Less common types
+        return switch (unsigned) {
+            case 0xDC -> readArray(stack, buffer.getShort() & 0xFFFF, key); // ARRAY16
+            case 0xDD -> readArray(stack, buffer.getInt(), key); // ARRAY32
+            case 0xDE -> readMap(stack, buffer.getShort() & 0xFFFF, key); // MAP16
+            case 0xDF -> readMap(stack, buffer.getInt(), key); // MAP32
+            // keys stay eager: they are hashed and compared by the map
+            default -> readScalar(buffer, b, lazyStrings && !key, packedArrays, stringCache, scratchBuffers,
+                    useByteBufferForBinary, useProjectionsForByteBuffer);
+        };
+    }
+
+    /**
+     * Decodes a value that is neither a map nor an array; {@code b} is its format byte, already
+     * consumed. Shared with {@link MessagePackBindingReader}. {@code lazyStrings} returns strings
+     * as {@link LazyUtf8} views, see {@link #readString(ByteBuffer, int, StringCache, ScratchBuffers)}
+     * for the others. {@code packedArrays} decodes the packed array extensions, see {@link #setPackedArrays}.
+     */
+    static Object readScalar(ByteBuffer buffer, byte b, boolean lazyStrings, boolean packedArrays, StringCache stringCache, ScratchBuffers scratchBuffers,
+                             boolean useByteBufferForBinary, boolean useProjectionsForByteBuffer) {
+        if ((b & 0x80) == 0) {
+            return (int) b;
+        }
+
+        int unsigned = b & 0xFF;
+
+        if (unsigned >= 0xA0 && unsigned <= 0xBF) {
+            // Fixstr: 0xA0-0xBF
+            return readString(buffer, unsigned & 0x1F, lazyStrings, stringCache, scratchBuffers);
+        }
+
+        if (unsigned >= 0xE0) {
+            // Negative fixint: 0xE0-0xFF
+            return (int) b;
+        }
+
         return switch (unsigned) {
             case 0xC0 -> null;  // NIL
             case 0xC2 -> false; // FALSE
@@ -156,46 +200,49 @@ public class MessagePackReader implements Deserializer {
             case 0xD3 -> buffer.getLong(); // INT64
             case 0xCA -> buffer.getFloat();  // FLOAT32
             case 0xCB -> buffer.getDouble(); // FLOAT64
-            case 0xD9 -> readString(buffer, buffer.get() & 0xFF);    // STR8
-            case 0xDA -> readString(buffer, buffer.getShort() & 0xFFFF); // STR16
-            case 0xDB -> readString(buffer, buffer.getInt()); // STR32
-            case 0xC4 -> readBinary(buffer, buffer.get() & 0xFF);    // BIN8
-            case 0xC5 -> readBinary(buffer, buffer.getShort() & 0xFFFF); // BIN16
-            case 0xC6 -> readBinary(buffer, buffer.getInt()); // BIN32
-            case 0xDC -> readArray(stack, buffer.getShort() & 0xFFFF); // ARRAY16
-            case 0xDD -> readArray(stack, buffer.getInt()); // ARRAY32
-            case 0xDE -> readMap(stack, buffer.getShort() & 0xFFFF); // MAP16
-            case 0xDF -> readMap(stack, buffer.getInt()); // MAP32
-            case 0xD4 -> readExtension(buffer, 1);
-            case 0xD5 -> readExtension(buffer, 2);
-            case 0xD6 -> readExtension(buffer, 4);
-            case 0xD7 -> readExtension(buffer, 8);
-            case 0xD8 -> readExtension(buffer, 16);
-            case 0xC7 -> readExtension(buffer, buffer.get() & 0xFF);
-            case 0xC8 -> readExtension(buffer, buffer.getShort() & 0xFFFF);
-            case 0xC9 -> readExtension(buffer, buffer.getInt());
+            case 0xD9 -> readString(buffer, buffer.get() & 0xFF, lazyStrings, stringCache, scratchBuffers);    // STR8
+            case 0xDA -> readString(buffer, buffer.getShort() & 0xFFFF, lazyStrings, stringCache, scratchBuffers); // STR16
+            case 0xDB -> readString(buffer, buffer.getInt(), lazyStrings, stringCache, scratchBuffers); // STR32
+            case 0xC4 -> readBinary(buffer, buffer.get() & 0xFF, useByteBufferForBinary, useProjectionsForByteBuffer);    // BIN8
+            case 0xC5 -> readBinary(buffer, buffer.getShort() & 0xFFFF, useByteBufferForBinary, useProjectionsForByteBuffer); // BIN16
+            case 0xC6 -> readBinary(buffer, buffer.getInt(), useByteBufferForBinary, useProjectionsForByteBuffer); // BIN32
+            case 0xD4 -> readExtension(buffer, 1, packedArrays);
+            case 0xD5 -> readExtension(buffer, 2, packedArrays);
+            case 0xD6 -> readExtension(buffer, 4, packedArrays);
+            case 0xD7 -> readExtension(buffer, 8, packedArrays);
+            case 0xD8 -> readExtension(buffer, 16, packedArrays);
+            case 0xC7 -> readExtension(buffer, buffer.get() & 0xFF, packedArrays);
+            case 0xC8 -> readExtension(buffer, buffer.getShort() & 0xFFFF, packedArrays);
+            case 0xC9 -> readExtension(buffer, buffer.getInt(), packedArrays);
             case 0xC1 -> throw new MessagePackException("Invalid format byte 0xC1");
-            default -> throw new MessagePackException("Unknown format byte 0x" + Integer.toHexString(unsigned));
+            default -> throw new MessagePackException("Unexpected format byte 0x" + Integer.toHexString(unsigned));
         };
     }
 
-    private Map<Object, Object> readMap(ArrayDeque<ReaderContext> stack, int size) {
-        Objects.requireNonNull(stack, "Map cannot be used as key");
+    private Map<Object, Object> readMap(ArrayDeque<ReaderContext> stack, int size, boolean key) {
+        rejectKey(key, "Map");
 
         Map<Object, Object> map = new HashMap<>(size + size / 3 + 1);
         stack.addFirst(contextPool.get().initMap(map, size));
         return map;
     }
 
-    private List<Object> readArray(ArrayDeque<ReaderContext> stack, int size) {
-        Objects.requireNonNull(stack, "List cannot be used as key");
+    private List<Object> readArray(ArrayDeque<ReaderContext> stack, int size, boolean key) {
+        rejectKey(key, "List");
 
         List<Object> list = new ArrayList<>(size);
         stack.addFirst(contextPool.get().initArray(list, size));
         return list;
     }
 
-    private Object readBinary(ByteBuffer buffer, int length) {
+    private static void rejectKey(boolean key, String type) {
+        if (key) {
+            throw new MessagePackException(type + " cannot be used as key");
+        }
+    }
+
+    static Object readBinary(ByteBuffer buffer, int length, boolean useByteBufferForBinary, boolean useProjectionsForByteBuffer) {
+        checkLength(buffer, length);
         if (useByteBufferForBinary) {
             ByteBuffer byteBuffer;
             if (useProjectionsForByteBuffer) {
@@ -217,17 +264,61 @@ public class MessagePackReader implements Deserializer {
         }
     }
 
-    private Object readExtension(ByteBuffer buffer, int length) {
+    static Object readExtension(ByteBuffer buffer, int length, boolean packedArrays) {
         byte extType = buffer.get();
+        checkLength(buffer, length);
         if (extType == -1) {
             return readTimestamp(buffer, length);
         }
+        if (packedArrays) {
+            switch (extType) {
+                case MessagePackExtension.INT_ARRAY -> { return readIntArray(buffer, length); }
+                case MessagePackExtension.LONG_ARRAY -> { return readLongArray(buffer, length); }
+                case MessagePackExtension.DOUBLE_ARRAY -> { return readDoubleArray(buffer, length); }
+                default -> { }
+            }
+        }
         byte[] data = new byte[length];
         buffer.get(data);
         return new MessagePackExtension(extType, data);
     }
 
-    private Instant readTimestamp(ByteBuffer buffer, int length) {
+    private static int[] readIntArray(ByteBuffer buffer, int length) {
+        int[] values = new int[packedCount(length, Integer.BYTES)];
+        buffer.slice(buffer.position(), length).order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(values);
+        buffer.position(buffer.position() + length);
+        return values;
+    }
+
+    private static long[] readLongArray(ByteBuffer buffer, int length) {
+        long[] values = new long[packedCount(length, Long.BYTES)];
+        buffer.slice(buffer.position(), length).order(ByteOrder.BIG_ENDIAN).asLongBuffer().get(values);
+        buffer.position(buffer.position() + length);
+        return values;
+    }
+
+    private static double[] readDoubleArray(ByteBuffer buffer, int length) {
+        double[] values = new double[packedCount(length, Double.BYTES)];
+        buffer.slice(buffer.position(), length).order(ByteOrder.BIG_ENDIAN).asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + length);
+        return values;
+    }
+
+    /** Rejects a declared length the buffer can't hold before anything is allocated for it. */
+    private static void checkLength(ByteBuffer buffer, int length) {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new MessagePackException("Length " + Integer.toUnsignedString(length) + " exceeds the " + buffer.remaining() + " remaining bytes");
+        }
+    }
+
+    private static int packedCount(int length, int elementSize) {
+        if (length % elementSize != 0) {
+            throw new MessagePackException("Invalid packed array length: " + length);
+        }
+        return length / elementSize;
+    }
+
+    static Instant readTimestamp(ByteBuffer buffer, int length) {
         return switch (length) {
             case 4 -> {
                 long seconds = buffer.getInt() & 0xFFFFFFFFL;
@@ -248,17 +339,34 @@ public class MessagePackReader implements Deserializer {
         };
     }
 
-    private String readString(ByteBuffer buffer, int len) {
-        byte[] strBuf = stringBuffer.get();
-        if (strBuf.length < len) {
-            strBuf = new byte[len];
-            stringBuffer.set(strBuf);
+    private static Object readString(ByteBuffer buffer, int len, boolean lazy, StringCache stringCache, ScratchBuffers scratchBuffers) {
+        if (lazy) {
+            return readLazyString(buffer, len);
+        }
+        return readString(buffer, len, stringCache, scratchBuffers);
+    }
+
+    private static LazyUtf8 readLazyString(ByteBuffer buffer, int len) {
+        LazyUtf8 value = new LazyUtf8(buffer, buffer.position(), len);
+        buffer.position(buffer.position() + len);
+        return value;
+    }
+
+    /** Through {@code stringCache} when it takes the length, otherwise copied into a scratch array and decoded. */
+    static String readString(ByteBuffer buffer, int len, StringCache stringCache, ScratchBuffers scratchBuffers) {
+        if (stringCache != null && stringCache.accepts(len)) {
+            String value = stringCache.get(buffer, buffer.position(), len);
+            buffer.position(buffer.position() + len);
+            return value;
         }
+        byte[] strBuf = scratchBuffers.acquire(len);
         buffer.get(strBuf, 0, len);
-        return new String(strBuf, 0, len, StandardCharsets.UTF_8);
+        String value = new String(strBuf, 0, len, StandardCharsets.UTF_8);
+        scratchBuffers.release(strBuf);
+        return value;
     }
 
-    private int getMapSize(ByteBuffer buffer) {
+    static int getMapSize(ByteBuffer buffer) {
         byte b = buffer.get();
         int unsigned = b & 0xFF;
 
@@ -84,7 +84,7 @@ public class MessagePackWriter implements Serializer {
         }
     }
 
-    private void writeMapHeader(DynamicByteBuffer buffer, int size) {
+    static void writeMapHeader(DynamicByteBuffer buffer, int size) {
         if (size < 16) {
             buffer.put((byte) (0x80 | size));
         } else if (size < 65536) {
@@ -96,7 +96,7 @@ public class MessagePackWriter implements Serializer {
         }
     }
 
-    private void writeArrayHeader(DynamicByteBuffer buffer, int size) {
+    static void writeArrayHeader(DynamicByteBuffer buffer, int size) {
         if (size < 16) {
             buffer.put((byte) (0x90 | size));
         } else if (size < 65536) {
@@ -120,6 +120,9 @@ public class MessagePackWriter implements Serializer {
             case String s -> writeString(buffer, s);
             case byte[] bytes -> writeBinary(buffer, bytes);
             case ByteBuffer bb -> writeBinary(buffer, bb);
+            case int[] ints -> writeIntArray(buffer, ints);
+            case long[] longs -> writeLongArray(buffer, longs);
+            case double[] doubles -> writeDoubleArray(buffer, doubles);
             case List list -> {
                 writeArrayHeader(buffer, list.size());
                 WriterContext writerContext = contextPool.get().initList(list.iterator());
@@ -137,7 +140,7 @@ public class MessagePackWriter implements Serializer {
         }
     }
 
-    private void writeInt(DynamicByteBuffer buffer, int value) {
+    static void writeInt(DynamicByteBuffer buffer, int value) {
         if (value >= 0) {
             if (value <= 0x7F) {
                 buffer.put((byte) value);                       // positive fixint
@@ -161,7 +164,7 @@ public class MessagePackWriter implements Serializer {
         }
     }
 
-    private void writeLong(DynamicByteBuffer buffer, long value) {
+    static void writeLong(DynamicByteBuffer buffer, long value) {
         if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
             writeInt(buffer, (int) value);
         } else if (value > 0 && value <= 0xFFFFFFFFL) {
@@ -171,12 +174,12 @@ public class MessagePackWriter implements Serializer {
         }
     }
 
-    private void writeString(DynamicByteBuffer buffer, String value) {
+    static void writeString(DynamicByteBuffer buffer, String value) {
         byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
         doWriteString(buffer, bytes);
     }
 
-    private void doWriteString(DynamicByteBuffer buffer, byte[] stringBytes) {
+    static void doWriteString(DynamicByteBuffer buffer, byte[] stringBytes) {
         int len = stringBytes.length;
         if (len < 32) {
             buffer.put((byte) (0xA0 | len));
@@ -190,7 +193,7 @@ public class MessagePackWriter implements Serializer {
         buffer.put(stringBytes);
     }
 
-    private void writeBinary(DynamicByteBuffer buffer, byte[] bytes) {
+    static void writeBinary(DynamicByteBuffer buffer, byte[] bytes) {
         int len = bytes.length;
         if (len < 256) {
             buffer.put((byte) 0xC4).put((byte) len);
@@ -202,7 +205,7 @@ public class MessagePackWriter implements Serializer {
         buffer.put(bytes);
     }
 
-    private void writeBinary(DynamicByteBuffer buffer, ByteBuffer bb) {
+    static void writeBinary(DynamicByteBuffer buffer, ByteBuffer bb) {
         int len = bb.remaining();
         if (len < 256) {
             buffer.put((byte) 0xC4).put((byte) len);
@@ -211,11 +214,30 @@ public class MessagePackWriter implements Serializer {
         } else {
             buffer.put((byte) 0xC6).putInt(len);
         }
-        buffer.getBuffer().put(bb);
+        buffer.getBuffer().put(bb.duplicate());
     }
 
-    private void writeExtension(DynamicByteBuffer buffer, MessagePackExtension ext) {
-        int len = ext.data().length;
+    static void writeExtension(DynamicByteBuffer buffer, MessagePackExtension ext) {
+        writeExtensionHeader(buffer, ext.type(), ext.data().length);
+        buffer.put(ext.data());
+    }
+
+    static void writeIntArray(DynamicByteBuffer buffer, int[] values) {
+        writeExtensionHeader(buffer, MessagePackExtension.INT_ARRAY, values.length * Integer.BYTES);
+        buffer.putInts(values);
+    }
+
+    static void writeLongArray(DynamicByteBuffer buffer, long[] values) {
+        writeExtensionHeader(buffer, MessagePackExtension.LONG_ARRAY, values.length * Long.BYTES);
+        buffer.putLongs(values);
+    }
+
+    static void writeDoubleArray(DynamicByteBuffer buffer, double[] values) {
+        writeExtensionHeader(buffer, MessagePackExtension.DOUBLE_ARRAY, values.length * Double.BYTES);
+        buffer.putDoubles(values);
+    }
+
+    private static void writeExtensionHeader(DynamicByteBuffer buffer, byte type, int len) {
         switch (len) {
             case 1 -> buffer.put((byte) 0xD4);
             case 2 -> buffer.put((byte) 0xD5);
@@ -232,10 +254,10 @@ public class MessagePackWriter implements Serializer {
                 }
             }
         }
-        buffer.put(ext.type()).put(ext.data());
+        buffer.put(type);
     }
 
-    private void writeTimestamp(DynamicByteBuffer buffer, Instant instant) {
+    static void writeTimestamp(DynamicByteBuffer buffer, Instant instant) {
         long seconds = instant.getEpochSecond();
         int nanos = instant.getNano();
 
@@ -3,8 +3,12 @@ package su.grinev.pool;
 import lombok.Getter;
 
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.LockSupport;
 
 public abstract class BasePool<T> {
@@ -12,15 +16,51 @@ public abstract class BasePool<T> {
     @Getter
     protected final AtomicInteger currentPoolSize;
     protected final ConcurrentLinkedDeque<T> pool;
-    protected final ConcurrentLinkedDeque<Thread> waiters;
+    protected final ConcurrentLinkedDeque<Waiter> waiters;
     protected int limit;
     protected int initalSize;
     protected final AtomicBoolean isWaiting;
     protected final int timeoutMs;
     protected final boolean blocking;
     public final String name;
+    private final ThreadLocal<Magazine<T>> magazine;
+    private final ConcurrentLinkedQueue<Magazine<T>> magazines;
+    private final LongAdder gets = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder discards = new LongAdder();
+    private final AtomicInteger maxInUse = new AtomicInteger();
+
+    private static final Object CANCELLED = new Object();
+
+    /**
+     * A thread parked in {@link #get()}. {@code slot} goes from {@code null} either to the object
+     * a releasing thread hands over or to {@code CANCELLED} when the waiter leaves on its own;
+     * whichever CAS wins decides who owns the slot.
+     */
+    protected static final class Waiter {
+        final Thread thread;
+        final AtomicReference<Object> slot = new AtomicReference<>();
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
 
     public BasePool(String name, AtomicInteger currentPoolSize, int initialSize, int limit, int timeoutMs, boolean blocking) {
+        this(name, currentPoolSize, initialSize, limit, timeoutMs, blocking, 0);
+    }
+
+    /**
+     * @param threadCacheSize objects each platform thread keeps for itself before releases spill
+     *                        to the shared deque; 0 disables the per-thread cache. Virtual threads
+     *                        always go to the shared deque, a magazine per virtual thread would
+     *                        only pin objects to short-lived threads.
+     */
+    public BasePool(String name, AtomicInteger currentPoolSize, int initialSize, int limit, int timeoutMs, boolean blocking, int threadCacheSize) {
         this.name = name;
         this.pool = new ConcurrentLinkedDeque<>();
         this.currentPoolSize = currentPoolSize;
@@ -30,56 +70,296 @@ public abstract class BasePool<T> {
         this.timeoutMs = timeoutMs;
         this.blocking = blocking;
         this.waiters = new ConcurrentLinkedDeque<>();
+        if (threadCacheSize > 0) {
+            this.magazines = new ConcurrentLinkedQueue<>();
+            this.magazine = ThreadLocal.withInitial(() -> {
+                Magazine<T> m = new Magazine<>(threadCacheSize, Thread.currentThread());
+                magazines.add(m);
+                return m;
+            });
+        } else {
+            this.magazines = null;
+            this.magazine = null;
+        }
     }
 
     protected abstract T supply();
 
     public T get() {
-        int spins = 3;
-
-        while (true) {
-            int cur = counter.get();
-            if (cur < limit && counter.compareAndSet(cur, cur + 1)) {
-                T obj = pool.pollLast();
-                return obj != null ? obj : supply();
+        if (magazine != null && !Thread.currentThread().isVirtual()) {
+            Magazine<T> m = magazine.get();
+            m.countGet();
+            T cached = m.poll();
+            if (cached != null) {
+                return cached;
             }
+        } else {
+            gets.increment();
+        }
 
-            if (!blocking) {
-                throw new IllegalStateException("Pool overflow");
+        // Queued threads are served first, a newcomer only takes a free slot when nobody waits
+        if (waiters.isEmpty()) {
+            T obj = tryAcquire();
+            if (obj != null) {
+                return obj;
             }
+        }
 
-            if (--spins > 0) {
-                Thread.onSpinWait();
-                continue;
+        if (reclaimMagazines() > 0 && waiters.isEmpty()) {
+            T obj = tryAcquire();
+            if (obj != null) {
+                return obj;
             }
+        }
 
-            Thread me = Thread.currentThread();
-            waiters.add(me);
+        if (!blocking) {
+            throw new PoolExhaustedException(name, limit, 0);
+        }
 
-            cur = counter.get();
-            if (cur < limit && counter.compareAndSet(cur, cur + 1)) {
-                waiters.remove(me);
+        return await();
+    }
+
+    private T tryAcquire() {
+        int cur = counter.get();
+        while (cur < limit) {
+            if (counter.compareAndSet(cur, cur + 1)) {
+                if (cur >= maxInUse.get()) {
+                    maxInUse.accumulateAndGet(cur + 1, Math::max);
+                }
                 T obj = pool.pollLast();
-                return obj != null ? obj : supply();
+                if (obj == null) {
+                    allocations.increment();
+                    obj = supply();
+                }
+                return obj;
             }
+            cur = counter.get();
+        }
+        return null;
+    }
+
+    /**
+     * Queues the calling thread and parks until {@link #release} hands it an object directly,
+     * or until it reaches the head of the queue while a slot is free. Gives up after
+     * {@code timeoutMs}; 0 or less waits indefinitely.
+     */
+    @SuppressWarnings("unchecked")
+    private T await() {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Waiter w = new Waiter(Thread.currentThread());
+        waiters.addLast(w);
+        try {
+            while (true) {
+                Object handed = w.slot.get();
+                if (handed != null) {
+                    return (T) handed;
+                }
+
+                if (waiters.peekFirst() == w) {
+                    T obj = tryAcquire();
+                    // Objects may have gone into a thread cache after this thread queued
+                    if (obj == null && reclaimMagazines() > 0) {
+                        obj = tryAcquire();
+                    }
+                    if (obj != null) {
+                        if (w.slot.compareAndSet(null, CANCELLED)) {
+                            waiters.remove(w);
+                            signalHead();
+                            return obj;
+                        }
+                        // Handed an object at the same time: keep that one, give the slot back
+                        releaseShared(obj);
+                        return (T) w.slot.get();
+                    }
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (timeoutMs > 0 && remaining <= 0) {
+                    if (w.slot.compareAndSet(null, CANCELLED)) {
+                        waiters.remove(w);
+                        timeouts.increment();
+                        signalHead();
+                        throw new PoolExhaustedException(name, limit, System.nanoTime() - start);
+                    }
+                    return (T) w.slot.get();
+                }
 
-            LockSupport.park(this);
-            spins = 3;
+                if (timeoutMs > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            waits.increment();
+            waitNanos.add(System.nanoTime() - start);
         }
     }
 
     public void release(T t) {
+        if (magazine == null || Thread.currentThread().isVirtual()) {
+            releases.increment();
+            releaseShared(t);
+            return;
+        }
+        Magazine<T> m = magazine.get();
+        m.countRelease();
+        // Parked threads come first, the object only stays with this thread when nobody waits
+        if (waiters.isEmpty() && cache(m, t)) {
+            // A thread may have queued while the object went in, it gets one back
+            if (!waiters.isEmpty()) {
+                T back = m.poll();
+                if (back != null) {
+                    releaseShared(back);
+                }
+            }
+            return;
+        }
+
+        releaseShared(t);
+    }
+
+    private boolean cache(Magazine<T> m, T t) {
+        if (m.offer(t)) {
+            return true;
+        }
+        // Full: hand half of it back to other threads, keep the slot for this object
+        returnToShared(m.drainTo(pool, Math.max(1, m.capacity() / 2)));
+        return m.offer(t);
+    }
+
+    /**
+     * Gives the object straight to the longest waiting thread, together with its slot, so a
+     * thread arriving in between cannot take it first. Without waiters the slot is freed.
+     * An object released while nothing is handed out is dropped, so a double release cannot
+     * give the same object to two callers later.
+     */
+    private void releaseShared(T t) {
+        if (counter.get() == 0) {
+            discards.increment();
+            return;
+        }
+        Waiter w;
+        while ((w = waiters.pollFirst()) != null) {
+            if (w.slot.compareAndSet(null, t)) {
+                LockSupport.unpark(w.thread);
+                return;
+            }
+        }
         pool.addLast(t);
+        returnToShared(1);
+    }
 
-        int c = counter.decrementAndGet();
+    private void returnToShared(int released) {
+        if (released == 0) {
+            return;
+        }
+        int c = counter.addAndGet(-released);
         if (c < 0) {
-            counter.incrementAndGet();
+            counter.addAndGet(-c);
            // throw new IllegalStateException("Double release");
         }
+        // A thread may have queued after the slots were counted as taken; let the head retry
+        signalHead();
+    }
+
+    private void signalHead() {
+        Waiter head = waiters.peekFirst();
+        if (head != null && counter.get() < limit) {
+            LockSupport.unpark(head.thread);
+        }
+    }
+
+    /**
+     * Counters since the pool was created. Each value is read separately, so a snapshot taken
+     * under load is not an atomic cut across all of them.
+     */
+    public PoolMetrics metrics() {
+        return new PoolMetrics(name, getLimit(), getInUse(), getMaxInUse(), getGetCount(), getReleaseCount(),
+                getAllocationCount(), getWaitCount(), getWaitNanos(), getTimeoutCount(), getDiscardCount());
+    }
 
-        Thread w = waiters.poll();
-        if (w != null) {
-            LockSupport.unpark(w);
+    /** {@code maxPoolSize} of the pool. */
+    public int getLimit() {
+        return limit;
+    }
+
+    /** Objects handed out right now, including those parked in thread caches. */
+    public int getInUse() {
+        return counter.get();
+    }
+
+    /** Highest {@link #getInUse()} seen so far. */
+    public int getMaxInUse() {
+        return maxInUse.get();
+    }
+
+    /** Number of {@link #get()} calls, including ones served from a thread cache. */
+    public long getGetCount() {
+        long sum = gets.sum();
+        if (magazines != null) {
+            for (Magazine<T> m : magazines) {
+                sum += m.getCount();
+            }
+        }
+        return sum;
+    }
+
+    /** Number of {@link #release} calls. */
+    public long getReleaseCount() {
+        long sum = releases.sum();
+        if (magazines != null) {
+            for (Magazine<T> m : magazines) {
+                sum += m.releaseCount();
+            }
+        }
+        return sum;
+    }
+
+    /** Number of objects created by {@link #get()} because none was idle. */
+    public long getAllocationCount() {
+        return allocations.sum();
+    }
+
+    /** Number of released objects dropped because nothing was handed out. */
+    public long getDiscardCount() {
+        return discards.sum();
+    }
+
+    /** Number of {@link #get()} calls that had to park. */
+    public long getWaitCount() {
+        return waits.sum();
+    }
+
+    /** Total time spent parked in {@link #get()}, including waits that timed out. */
+    public long getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    /** Number of {@link #get()} calls that failed with {@link PoolExhaustedException} after waiting. */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Moves objects cached by other threads back to the shared deque once the limit is reached,
+     * so a thread that stopped using the pool cannot starve the others. Magazines of threads
+     * that have died are dropped, their counts move to the shared adders.
+     */
+    private int reclaimMagazines() {
+        if (magazines == null) {
+            return 0;
+        }
+        int reclaimed = 0;
+        for (Magazine<T> m : magazines) {
+            reclaimed += m.drainTo(pool, Integer.MAX_VALUE);
+            if (m.isOrphaned() && magazines.remove(m)) {
+                gets.add(m.getCount());
+                releases.add(m.releaseCount());
+            }
         }
+        returnToShared(reclaimed);
+        return reclaimed;
     }
 }
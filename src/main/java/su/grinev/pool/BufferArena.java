@@ -0,0 +1,98 @@
+package su.grinev.pool;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recycles direct buffers in power-of-two size classes, so a {@link DynamicByteBuffer} that
+ * grows takes its next buffer from here and hands the old one back instead of leaving it to
+ * the Cleaner. Native memory then stays at what the arena retains plus what is in use, rather
+ * than spiking with every large message.
+ * <p>
+ * Classes up to {@link #SLAB_SIZE} / 4 are carved out of one {@code SLAB_SIZE} direct
+ * allocation, which fills the class's free list at once. Larger classes are allocated one by
+ * one. Requests above {@code maxClassSize} get an exact, unpooled buffer that is dropped on
+ * release. Released buffers are kept until {@code maxRetainedBytes} is reached, after which
+ * they are dropped as well.
+ */
+public final class BufferArena {
+
+    public static final int MIN_CLASS_SIZE = 4096;
+    public static final int SLAB_SIZE = 256 * 1024;
+
+    private final ConcurrentLinkedDeque<ByteBuffer>[] freeLists;
+    private final int maxClassSize;
+    private final long maxRetainedBytes;
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public BufferArena(int maxClassSize, long maxRetainedBytes) {
+        if (maxClassSize < MIN_CLASS_SIZE || Integer.bitCount(maxClassSize) != 1) {
+            throw new IllegalArgumentException("maxClassSize must be a power of two of at least " + MIN_CLASS_SIZE + ": " + maxClassSize);
+        }
+        this.maxClassSize = maxClassSize;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.freeLists = new ConcurrentLinkedDeque[classIndex(maxClassSize) + 1];
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i] = new ConcurrentLinkedDeque<>();
+        }
+    }
+
+    public int getMaxClassSize() {
+        return maxClassSize;
+    }
+
+    /** Bytes held in the free lists, not counting buffers that are handed out. */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /** Returns a cleared direct buffer of at least {@code minCapacity} bytes. */
+    public ByteBuffer allocate(int minCapacity) {
+        if (minCapacity > maxClassSize) {
+            return ByteBuffer.allocateDirect(minCapacity);
+        }
+        int index = classIndex(minCapacity);
+        ByteBuffer buffer = freeLists[index].pollLast();
+        if (buffer != null) {
+            retainedBytes.addAndGet(-buffer.capacity());
+            return buffer.clear();
+        }
+        int size = MIN_CLASS_SIZE << index;
+        if (size > SLAB_SIZE / 4) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        ByteBuffer slab = ByteBuffer.allocateDirect(SLAB_SIZE);
+        for (int offset = size; offset < SLAB_SIZE; offset += size) {
+            freeLists[index].addLast(slab.slice(offset, size));
+            retainedBytes.addAndGet(size);
+        }
+        return slab.slice(0, size);
+    }
+
+    /** Takes a buffer back; buffers that did not come from a size class are dropped. */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || capacity > maxClassSize || capacity < MIN_CLASS_SIZE || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        if (retainedBytes.addAndGet(capacity) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-capacity);
+            return;
+        }
+        freeLists[classIndex(capacity)].addLast(buffer);
+    }
+
+    /** Capacity {@link #allocate} returns for a request of {@code minCapacity} bytes. */
+    public int classSize(int minCapacity) {
+        return minCapacity > maxClassSize ? minCapacity : MIN_CLASS_SIZE << classIndex(minCapacity);
+    }
+
+    private static int classIndex(int capacity) {
+        if (capacity <= MIN_CLASS_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - Integer.numberOfTrailingZeros(MIN_CLASS_SIZE);
+    }
+}
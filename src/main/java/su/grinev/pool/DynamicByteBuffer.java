@@ -7,9 +7,13 @@ public class DynamicByteBuffer implements Disposable {
     private Runnable onDispose;
     private ByteBuffer buffer;
     private final boolean direct;
+    private final BufferArena arena;
+    private final int initialCapacity;
 
     public DynamicByteBuffer(int capacity, boolean direct) {
         this.direct = direct;
+        this.arena = null;
+        this.initialCapacity = capacity;
         if (direct) {
             this.buffer = ByteBuffer.allocateDirect(capacity);
         } else {
@@ -18,17 +22,48 @@ public class DynamicByteBuffer implements Disposable {
         initBuffer();
     }
 
+    /**
+     * Direct buffer whose memory comes from {@code arena}: growing swaps to the next size class
+     * and returns the old buffer to the arena. The grown capacity is kept across dispose, unless
+     * it went past the arena's largest class; then the buffer shrinks back to its initial size.
+     */
+    public DynamicByteBuffer(int capacity, BufferArena arena) {
+        this.direct = true;
+        this.arena = arena;
+        this.initialCapacity = capacity;
+        this.buffer = arena.allocate(capacity);
+        initBuffer();
+    }
+
+    /** Wraps {@code initial} as is, for subclasses that manage their memory themselves. */
+    protected DynamicByteBuffer(ByteBuffer initial) {
+        this.direct = initial.isDirect();
+        this.arena = null;
+        this.initialCapacity = initial.capacity();
+        this.buffer = initial;
+    }
+
     public void ensureCapacity(int additionalCapacity) {
         if (buffer.remaining() < additionalCapacity) {
             ByteBuffer oldBuffer = buffer;
-            if (direct) {
-                buffer = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.remaining() + additionalCapacity));
-            } else {
-                buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.remaining() + additionalCapacity));
-            }
-            initBuffer();
+            buffer = allocate(Math.max(buffer.capacity() * 2, buffer.position() + additionalCapacity));
+            buffer.order(oldBuffer.order());
             buffer.put(oldBuffer.flip());
+            if (arena != null) {
+                arena.release(oldBuffer);
+            }
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        if (arena != null) {
+            return arena.allocate(capacity);
         }
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    public int capacity() {
+        return buffer.capacity();
     }
 
     public void initBuffer() {
@@ -109,6 +144,25 @@ public class DynamicByteBuffer implements Disposable {
         return this;
     }
 
+    /** Bulk-copies the values in the buffer's current byte order through an {@code IntBuffer} view. */
+    public DynamicByteBuffer putInts(int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+        return this;
+    }
+
+    public DynamicByteBuffer putLongs(long[] values) {
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+        return this;
+    }
+
+    public DynamicByteBuffer putDoubles(double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+        return this;
+    }
+
     public DynamicByteBuffer putByteBuffer(ByteBuffer byteBuffer) {
         buffer.put(byteBuffer);
         return this;
@@ -121,6 +175,10 @@ public class DynamicByteBuffer implements Disposable {
 
     @Override
     public void dispose() {
+        if (arena != null && buffer.capacity() > arena.getMaxClassSize()) {
+            buffer = arena.allocate(initialCapacity);
+            initBuffer();
+        }
         this.onDispose.run();
     }
 
@@ -0,0 +1,102 @@
+package su.grinev.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.Deque;
+
+/**
+ * Per-thread stash of pooled objects in front of {@link BasePool}'s shared deque. Objects in a
+ * magazine still hold their slot of the pool's {@code limit}, so taking one back needs no
+ * update of the shared counter.
+ * <p>
+ * Methods synchronize on the magazine itself. The owner is the only regular user, so the
+ * monitor stays uncontended and local to its thread; other threads only take it to reclaim
+ * objects when the pool is exhausted.
+ * <p>
+ * The owner also counts its gets and releases here instead of in shared adders. Only the owner
+ * writes the counters, with opaque stores, so other threads reading metrics see a recent value
+ * without the owner paying for an atomic update.
+ */
+final class Magazine<T> {
+
+    private static final VarHandle GETS;
+    private static final VarHandle RELEASES;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            GETS = lookup.findVarHandle(Magazine.class, "gets", long.class);
+            RELEASES = lookup.findVarHandle(Magazine.class, "releases", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Object[] items;
+    private final WeakReference<Thread> owner;
+    private int size;
+    private long gets;
+    private long releases;
+
+    Magazine(int capacity, Thread owner) {
+        this.items = new Object[capacity];
+        this.owner = new WeakReference<>(owner);
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T t = (T) items[--size];
+        items[size] = null;
+        return t;
+    }
+
+    synchronized boolean offer(T t) {
+        if (size == items.length) {
+            return false;
+        }
+        items[size++] = t;
+        return true;
+    }
+
+    /** Moves up to {@code count} objects to {@code target} and returns how many were moved. */
+    @SuppressWarnings("unchecked")
+    synchronized int drainTo(Deque<T> target, int count) {
+        int moved = Math.min(count, size);
+        for (int i = 0; i < moved; i++) {
+            target.addLast((T) items[--size]);
+            items[size] = null;
+        }
+        return moved;
+    }
+
+    /** Called by the owner only. */
+    void countGet() {
+        GETS.setOpaque(this, gets + 1);
+    }
+
+    /** Called by the owner only. */
+    void countRelease() {
+        RELEASES.setOpaque(this, releases + 1);
+    }
+
+    long getCount() {
+        return (long) GETS.getOpaque(this);
+    }
+
+    long releaseCount() {
+        return (long) RELEASES.getOpaque(this);
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    boolean isOrphaned() {
+        Thread thread = owner.get();
+        return thread == null || !thread.isAlive();
+    }
+}
@@ -7,7 +7,11 @@ public class Pool<T> extends BasePool<T> {
     private final Supplier<T> supplier;
 
     public Pool(String name, AtomicInteger counter, int initialSize, int limit, int timeoutMs, boolean blocking, Supplier<T> supplier) {
-        super(name, counter, initialSize, limit, timeoutMs, blocking);
+        this(name, counter, initialSize, limit, timeoutMs, blocking, 0, supplier);
+    }
+
+    public Pool(String name, AtomicInteger counter, int initialSize, int limit, int timeoutMs, boolean blocking, int threadCacheSize, Supplier<T> supplier) {
+        super(name, counter, initialSize, limit, timeoutMs, blocking, threadCacheSize);
         this.supplier = supplier;
 
         for (int i = 0; i < initialSize; i++) {
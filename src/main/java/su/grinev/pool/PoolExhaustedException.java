@@ -0,0 +1,27 @@
+package su.grinev.pool;
+
+/**
+ * Thrown by {@link BasePool#get()} when all {@code limit} objects are in use and none came back
+ * in time: immediately for a non-blocking pool, after {@code timeoutMs} for a blocking one.
+ * Extends {@link IllegalStateException}, which the pool threw for this case before.
+ */
+public class PoolExhaustedException extends IllegalStateException {
+
+    private final String poolName;
+    private final long waitedNanos;
+
+    public PoolExhaustedException(String poolName, int limit, long waitedNanos) {
+        super("Pool overflow: " + poolName + " has all " + limit + " objects in use"
+                + (waitedNanos > 0 ? " after waiting " + waitedNanos / 1_000_000 + " ms" : ""));
+        this.poolName = poolName;
+        this.waitedNanos = waitedNanos;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public long getWaitedNanos() {
+        return waitedNanos;
+    }
+}
@@ -2,6 +2,10 @@ package su.grinev.pool;
 
 import lombok.Getter;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -14,6 +18,22 @@ public class PoolFactory {
     private int minPoolSize;
     private int outOfPoolTimeout;
     private boolean blocking;
+    private int threadCacheSize;
+    @Getter
+    private boolean virtualThreads;
+    private boolean jmxEnabled;
+    /** Arena the codec buffers grow into, {@code null} to allocate every buffer on its own. */
+    @Getter
+    private BufferArena bufferArena;
+    /** Segment size of the BSON codec buffers, 0 for one contiguous buffer. Needs {@link #bufferArena}. */
+    @Getter
+    private int segmentSize;
+    /**
+     * Scratch arrays for the decoders created from this factory: thread-local by default,
+     * striped and shared when the factory is built for virtual threads.
+     */
+    @Getter
+    private ScratchBuffers scratchBuffers = ScratchBuffers.threadLocal();
     private final Map<String, BasePool> pools = new ConcurrentHashMap<>();
     private final AtomicInteger poolCounter = new AtomicInteger(0);
 
@@ -32,14 +52,38 @@ public class PoolFactory {
         return new HashMap<>(pools);
     }
 
+    public Map<String, PoolMetrics> getMetrics() {
+        Map<String, PoolMetrics> metrics = new HashMap<>();
+        pools.forEach((name, pool) -> metrics.put(name, pool.metrics()));
+        return metrics;
+    }
+
+    private void register(String name, BasePool<?> pool) {
+        pools.put(name, pool);
+        if (!jmxEnabled) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("su.grinev.pool:type=Pool,name=" + ObjectName.quote(name));
+            // A pool created again under the same name replaces the old one, in the map and here
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new PoolMXBeanAdapter(pool), objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register pool MBean: " + name, e);
+        }
+    }
+
     public <T> Pool<T> getPool(Supplier<T> supplier) {
         String name = "Pool-" + poolCounter.getAndIncrement();
         return getPool(name, supplier);
     }
 
     public <T> Pool<T> getPool(String name, Supplier<T> supplier) {
-        Pool<T> pool = new Pool<>(name, new AtomicInteger(0), minPoolSize, maxPoolSize, outOfPoolTimeout, blocking, supplier);
-        pools.put(name, pool);
+        Pool<T> pool = new Pool<>(name, new AtomicInteger(0), minPoolSize, maxPoolSize, outOfPoolTimeout, blocking, threadCacheSize, supplier);
+        register(name, pool);
         return pool;
     }
 
@@ -57,8 +101,8 @@ public class PoolFactory {
     }
 
     public <T extends Disposable> DisposablePool<T> getDisposablePool(String name, Supplier<T> supplier) {
-        DisposablePool<T> disposablePool = new DisposablePool<>(name, new AtomicInteger(0), minPoolSize, maxPoolSize, outOfPoolTimeout, blocking, supplier);
-        pools.put(name, disposablePool);
+        DisposablePool<T> disposablePool = new DisposablePool<>(name, new AtomicInteger(0), minPoolSize, maxPoolSize, outOfPoolTimeout, blocking, threadCacheSize, supplier);
+        register(name, disposablePool);
         return disposablePool;
     }
 
@@ -90,7 +134,61 @@ public class PoolFactory {
             return this;
         }
 
+        /**
+         * Lets every thread keep up to this many released objects per pool, so a get/release pair
+         * on one thread skips the shared counter and deque. Cached objects still count towards
+         * {@code maxPoolSize} and are reclaimed when the pool runs out. 0 (the default) disables it.
+         */
+        public Builder setThreadCacheSize(int threadCacheSize) {
+            instance.threadCacheSize = threadCacheSize;
+            return this;
+        }
+
+        /**
+         * Configures the codecs for virtual threads: decoders take scratch arrays from a striped
+         * shared set instead of one {@code ThreadLocal} array per thread, so memory follows the
+         * requests in flight rather than the number of threads. Blocking pool waits park with
+         * {@code LockSupport} outside any monitor, so a waiting virtual thread releases its carrier.
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            instance.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Registers a {@link PoolMXBean} for every pool this factory creates, so the counters of
+         * {@link BasePool#metrics()} can be read with any JMX client.
+         */
+        public Builder setJmxEnabled(boolean jmxEnabled) {
+            instance.jmxEnabled = jmxEnabled;
+            return this;
+        }
+
+        /**
+         * Makes the codec buffers take their direct memory from {@code bufferArena} and return it
+         * there when they grow, instead of allocating a new direct buffer each time.
+         */
+        public Builder setBufferArena(BufferArena bufferArena) {
+            instance.bufferArena = bufferArena;
+            return this;
+        }
+
+        /**
+         * Makes the BSON codec buffers {@link SegmentedByteBuffer}s of {@code segmentSize}-byte
+         * segments from the buffer arena, which grow by adding a segment instead of copying.
+         */
+        public Builder setSegmentSize(int segmentSize) {
+            instance.segmentSize = segmentSize;
+            return this;
+        }
+
         public PoolFactory build() {
+            if (instance.segmentSize > 0 && instance.bufferArena == null) {
+                throw new IllegalStateException("Segmented buffers need a buffer arena");
+            }
+            if (instance.virtualThreads) {
+                instance.scratchBuffers = ScratchBuffers.striped(Runtime.getRuntime().availableProcessors() * 4);
+            }
             return instance;
         }
     }
@@ -0,0 +1,30 @@
+package su.grinev.pool;
+
+/**
+ * JMX view of {@link PoolMetrics}, registered per pool by a {@link PoolFactory} built with
+ * {@code setJmxEnabled(true)} under {@code su.grinev.pool:type=Pool,name=<pool name>}.
+ */
+public interface PoolMXBean {
+
+    String getName();
+
+    int getLimit();
+
+    int getInUse();
+
+    int getMaxInUse();
+
+    long getGets();
+
+    long getReleases();
+
+    long getAllocations();
+
+    long getWaits();
+
+    long getWaitNanos();
+
+    long getTimeouts();
+
+    long getDiscards();
+}
@@ -0,0 +1,65 @@
+package su.grinev.pool;
+
+final class PoolMXBeanAdapter implements PoolMXBean {
+
+    private final BasePool<?> pool;
+
+    PoolMXBeanAdapter(BasePool<?> pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return pool.name;
+    }
+
+    @Override
+    public int getLimit() {
+        return pool.getLimit();
+    }
+
+    @Override
+    public int getInUse() {
+        return pool.getInUse();
+    }
+
+    @Override
+    public int getMaxInUse() {
+        return pool.getMaxInUse();
+    }
+
+    @Override
+    public long getGets() {
+        return pool.getGetCount();
+    }
+
+    @Override
+    public long getReleases() {
+        return pool.getReleaseCount();
+    }
+
+    @Override
+    public long getAllocations() {
+        return pool.getAllocationCount();
+    }
+
+    @Override
+    public long getWaits() {
+        return pool.getWaitCount();
+    }
+
+    @Override
+    public long getWaitNanos() {
+        return pool.getWaitNanos();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return pool.getTimeoutCount();
+    }
+
+    @Override
+    public long getDiscards() {
+        return pool.getDiscardCount();
+    }
+}
@@ -0,0 +1,20 @@
+package su.grinev.pool;
+
+/**
+ * Point-in-time counters of one {@link BasePool}, see {@link BasePool#metrics()}.
+ *
+ * @param limit       {@code maxPoolSize} of the pool
+ * @param inUse       objects handed out right now, including those parked in thread caches
+ * @param maxInUse    highest {@code inUse} seen so far
+ * @param gets        {@code get()} calls, including ones served from a thread cache
+ * @param releases    {@code release()} calls
+ * @param allocations objects created by {@code get()} because none was idle; {@code gets}
+ *                    minus this is the number of reuses
+ * @param waits       {@code get()} calls that parked because the limit was reached
+ * @param waitNanos   total time spent parked
+ * @param timeouts    parked calls that gave up with {@link PoolExhaustedException}
+ * @param discards    released objects dropped because nothing was handed out
+ */
+public record PoolMetrics(String name, int limit, int inUse, int maxInUse, long gets, long releases,
+                          long allocations, long waits, long waitNanos, long timeouts, long discards) {
+}
@@ -0,0 +1,31 @@
+package su.grinev.pool;
+
+/**
+ * Temporary byte arrays for decoders, e.g. to copy a string out of a direct buffer before
+ * building the {@link String}. An array is acquired and released within one decode call and
+ * must not be kept afterwards.
+ */
+public interface ScratchBuffers {
+
+    int DEFAULT_SIZE = 256;
+
+    byte[] acquire(int minLength);
+
+    void release(byte[] buffer);
+
+    /**
+     * One array per thread with no synchronization at all. Memory grows with the number of
+     * threads that ever decoded something, so this is meant for platform thread pools.
+     */
+    static ScratchBuffers threadLocal() {
+        return ThreadLocalScratch.INSTANCE;
+    }
+
+    /**
+     * A fixed set of slots shared by all threads, picked by thread id. Memory is bounded by the
+     * number of stripes plus the decodes in flight, however many virtual threads there are.
+     */
+    static ScratchBuffers striped(int stripes) {
+        return new StripedScratch(stripes);
+    }
+}
@@ -0,0 +1,339 @@
+package su.grinev.pool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link DynamicByteBuffer} made of fixed-size segments taken from a {@link BufferArena}.
+ * Running out of room adds a segment instead of copying everything written so far into a
+ * buffer twice the size, so large documents cost neither the copies nor the doubled peak.
+ * <p>
+ * Writers must go through the {@code put}/{@code position} methods, which handle values and
+ * back-patched lengths that straddle two segments. The BSON and JSON writers do; the
+ * MessagePack writers write into {@link #getBuffer()} and need a plain {@link DynamicByteBuffer}.
+ * After {@link #flip()} the content is sent with {@link #writeTo(GatheringByteChannel)}
+ * without joining the segments; {@link #getBuffer()} joins them once into an arena buffer
+ * for readers that need a single buffer.
+ */
+public class SegmentedByteBuffer extends DynamicByteBuffer {
+
+    private final BufferArena arena;
+    private final int segmentSize;
+    private final int segmentShift;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer current;
+    private int currentIndex;
+    private int length = -1;
+    private ByteBuffer joined; // getBuffer()'s copy of the segments, until the next flip or dispose
+
+    public SegmentedByteBuffer(BufferArena arena, int segmentSize) {
+        this(arena, arena.allocate(segmentSize));
+    }
+
+    private SegmentedByteBuffer(BufferArena arena, ByteBuffer first) {
+        super(first);
+        if (first.capacity() > arena.getMaxClassSize()) {
+            throw new IllegalArgumentException("Segment size is above the arena's largest class: " + first.capacity());
+        }
+        this.arena = arena;
+        this.segmentSize = first.capacity();
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentSize);
+        segments.add(first.order(ByteOrder.LITTLE_ENDIAN));
+        current = first;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    @Override
+    public void ensureCapacity(int additionalCapacity) {
+        // Segments are added as the writes need them
+    }
+
+    @Override
+    public int capacity() {
+        return segments.size() * segmentSize;
+    }
+
+    @Override
+    public void initBuffer() {
+        releaseJoined();
+        trim();
+        current.clear();
+        length = -1;
+    }
+
+    @Override
+    public int position() {
+        return (currentIndex << segmentShift) + current.position();
+    }
+
+    @Override
+    public DynamicByteBuffer position(int newPosition) {
+        int index = newPosition >>> segmentShift;
+        while (segments.size() <= index) {
+            addSegment();
+        }
+        currentIndex = index;
+        current = segments.get(index);
+        current.limit(segmentSize).position(newPosition & (segmentSize - 1));
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer put(byte b) {
+        room().put(b);
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer put(byte[] b) {
+        return put(b, 0, b.length);
+    }
+
+    @Override
+    public DynamicByteBuffer put(byte[] b, int off, int len) {
+        while (len > 0) {
+            ByteBuffer segment = room();
+            int n = Math.min(len, segment.remaining());
+            segment.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putByteBuffer(ByteBuffer byteBuffer) {
+        while (byteBuffer.hasRemaining()) {
+            ByteBuffer segment = room();
+            int n = Math.min(byteBuffer.remaining(), segment.remaining());
+            segment.put(segment.position(), byteBuffer, byteBuffer.position(), n);
+            segment.position(segment.position() + n);
+            byteBuffer.position(byteBuffer.position() + n);
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putShort(short s) {
+        if (current.remaining() >= Short.BYTES) {
+            current.putShort(s);
+        } else {
+            putSpanning(s, Short.BYTES);
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putInt(int i) {
+        if (current.remaining() >= Integer.BYTES) {
+            current.putInt(i);
+        } else {
+            putSpanning(i, Integer.BYTES);
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putLong(long l) {
+        if (current.remaining() >= Long.BYTES) {
+            current.putLong(l);
+        } else {
+            putSpanning(l, Long.BYTES);
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putFloat(float f) {
+        return putInt(Float.floatToRawIntBits(f));
+    }
+
+    @Override
+    public DynamicByteBuffer putDouble(double d) {
+        return putLong(Double.doubleToRawLongBits(d));
+    }
+
+    @Override
+    public DynamicByteBuffer putInt(int pos, int i) {
+        putAt(pos, i, Integer.BYTES);
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putLong(int pos, long l) {
+        putAt(pos, l, Long.BYTES);
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putInts(int[] values) {
+        for (int value : values) {
+            putInt(value);
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putLongs(long[] values) {
+        for (long value : values) {
+            putLong(value);
+        }
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer putDoubles(double[] values) {
+        for (double value : values) {
+            putDouble(value);
+        }
+        return this;
+    }
+
+    /** Ends writing: every used segment is flipped, ready for {@link #segments()} or a read. */
+    @Override
+    public DynamicByteBuffer flip() {
+        releaseJoined();
+        length = position();
+        for (int i = 0; i <= currentIndex; i++) {
+            ByteBuffer segment = segments.get(i);
+            segment.limit(i < currentIndex ? segmentSize : segment.position()).position(0);
+        }
+        currentIndex = 0;
+        current = segments.get(0);
+        return this;
+    }
+
+    @Override
+    public DynamicByteBuffer rewind() {
+        for (ByteBuffer segment : segments) {
+            segment.position(0);
+        }
+        if (joined != null) {
+            joined.position(0);
+        }
+        return this;
+    }
+
+    /** Bytes written, as recorded by the last {@link #flip()}. */
+    public int length() {
+        checkFlipped();
+        return length;
+    }
+
+    /** Read views of the written bytes, one per used segment, sharing their content. */
+    public ByteBuffer[] segments() {
+        checkFlipped();
+        int used = length == 0 ? 1 : ((length - 1) >>> segmentShift) + 1;
+        ByteBuffer[] views = new ByteBuffer[used];
+        for (int i = 0; i < used; i++) {
+            views[i] = segments.get(i).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return views;
+    }
+
+    /** Sends the written bytes with gathering writes and returns how many were written. */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        ByteBuffer[] views = segments();
+        long written = 0;
+        while (written < length) {
+            written += channel.write(views);
+        }
+        return written;
+    }
+
+    /**
+     * The written bytes as one buffer. A single segment is returned as is; more than one are
+     * copied once into a buffer from the arena, which is returned until the next {@link #flip()}
+     * and given back on {@link #dispose()}. Prefer {@link #segments()} or {@link #writeTo} for
+     * large output.
+     */
+    @Override
+    public ByteBuffer getBuffer() {
+        checkFlipped();
+        if (length <= segmentSize) {
+            return segments.get(0);
+        }
+        if (joined == null) {
+            joined = arena.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            for (ByteBuffer view : segments()) {
+                joined.put(view);
+            }
+            joined.flip();
+        }
+        return joined;
+    }
+
+    @Override
+    public void dispose() {
+        releaseJoined();
+        trim();
+        super.dispose();
+    }
+
+    private void releaseJoined() {
+        if (joined != null) {
+            arena.release(joined);
+            joined = null;
+        }
+    }
+
+    private void checkFlipped() {
+        if (length < 0) {
+            throw new IllegalStateException("SegmentedByteBuffer is still being written, flip() it first");
+        }
+    }
+
+    /** Current segment, moving on to the next one when it is full. */
+    private ByteBuffer room() {
+        if (!current.hasRemaining()) {
+            if (currentIndex + 1 == segments.size()) {
+                addSegment();
+            }
+            current = segments.get(++currentIndex);
+            current.clear();
+        }
+        return current;
+    }
+
+    private void addSegment() {
+        segments.add(arena.allocate(segmentSize).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private void putSpanning(long value, int size) {
+        for (int i = 0; i < size; i++) {
+            room().put((byte) (value >>> (i * 8)));
+        }
+    }
+
+    private void putAt(int pos, long value, int size) {
+        ByteBuffer segment = segments.get(pos >>> segmentShift);
+        int offset = pos & (segmentSize - 1);
+        if (offset + size <= segmentSize) {
+            if (size == Integer.BYTES) {
+                segment.putInt(offset, (int) value);
+            } else {
+                segment.putLong(offset, value);
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++, pos++) {
+            segments.get(pos >>> segmentShift).put(pos & (segmentSize - 1), (byte) (value >>> (i * 8)));
+        }
+    }
+
+    /** Gives all segments but the first back to the arena and rewinds to the start. */
+    private void trim() {
+        for (int i = segments.size() - 1; i > 0; i--) {
+            arena.release(segments.remove(i));
+        }
+        currentIndex = 0;
+        current = segments.get(0);
+    }
+}
@@ -0,0 +1,43 @@
+package su.grinev.pool;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+final class StripedScratch implements ScratchBuffers {
+    /** Larger arrays are left to the GC so one huge string does not stay resident per stripe. */
+    private static final int MAX_RETAINED = 64 * 1024;
+
+    private final AtomicReferenceArray<byte[]> slots;
+    private final int mask;
+
+    StripedScratch(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes));
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public byte[] acquire(int minLength) {
+        int index = index();
+        byte[] bytes = slots.getAndSet(index, null);
+        if (bytes == null || bytes.length < minLength) {
+            return new byte[Math.max(minLength, DEFAULT_SIZE)];
+        }
+        return bytes;
+    }
+
+    @Override
+    public void release(byte[] bytes) {
+        if (bytes.length <= MAX_RETAINED) {
+            slots.compareAndSet(index(), null, bytes);
+        }
+    }
+
+    private int index() {
+        long id = Thread.currentThread().threadId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash >>> 16) & mask;
+    }
+}
@@ -0,0 +1,20 @@
+package su.grinev.pool;
+
+final class ThreadLocalScratch implements ScratchBuffers {
+    static final ThreadLocalScratch INSTANCE = new ThreadLocalScratch();
+    private final ThreadLocal<byte[]> buffer = ThreadLocal.withInitial(() -> new byte[DEFAULT_SIZE]);
+
+    @Override
+    public byte[] acquire(int minLength) {
+        byte[] bytes = buffer.get();
+        if (bytes.length < minLength) {
+            bytes = new byte[Math.max(minLength, DEFAULT_SIZE * 2)];
+            buffer.set(bytes);
+        }
+        return bytes;
+    }
+
+    @Override
+    public void release(byte[] bytes) {
+    }
+}
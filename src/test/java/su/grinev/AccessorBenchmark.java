@@ -0,0 +1,123 @@
+package su.grinev;
+
+import annotation.Tag;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import su.grinev.pool.DynamicByteBuffer;
+import su.grinev.pool.PoolFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessagePack binding with {@code VarHandle} field access against generated accessors, on the
+ * direct path (generated per-field accessors) and the document path (generated per-class
+ * {@link ClassBinder}s). Three DTO classes go through the same codec so the field access call sites see several
+ * classes, as they do in a service. The DTOs have no getters, so no compile-time schema
+ * replaces the one under test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AccessorBenchmark {
+
+    static class Point {
+        @Tag(0) private int x;
+        @Tag(1) private int y;
+        @Tag(2) private long time;
+        @Tag(3) private String label;
+    }
+
+    static class Reading {
+        @Tag(0) private double value;
+        @Tag(1) private double error;
+        @Tag(2) private boolean valid;
+        @Tag(3) private short sensor;
+        @Tag(4) private String unit;
+    }
+
+    static class Counter {
+        @Tag(0) private long count;
+        @Tag(1) private long total;
+        @Tag(2) private int shard;
+        @Tag(3) private byte flags;
+        @Tag(4) private float rate;
+    }
+
+    @Param({"false", "true"})
+    public boolean generatedAccessors;
+
+    @Param({"DIRECT", "DOCUMENT"})
+    public Codec.BindingMode bindingMode;
+
+    private Codec codec;
+    private Object[] objects;
+    private ByteBuffer[] serialized;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(1000)
+                .setBlocking(true)
+                .setOutOfPoolTimeout(1000)
+                .build();
+        codec = Codec.messagePack(poolFactory, 4096, new Binder(Binder.ClassNameMode.FULL_NAME, generatedAccessors), bindingMode);
+
+        Point point = new Point();
+        point.x = 12;
+        point.y = -7;
+        point.time = System.currentTimeMillis();
+        point.label = "origin";
+        Reading reading = new Reading();
+        reading.value = 21.5;
+        reading.error = 0.01;
+        reading.valid = true;
+        reading.sensor = 3;
+        reading.unit = "C";
+        Counter counter = new Counter();
+        counter.count = 1_000_000L;
+        counter.total = 5_000_000_000L;
+        counter.shard = 17;
+        counter.flags = 1;
+        counter.rate = 0.75f;
+        objects = new Object[]{point, reading, counter};
+
+        serialized = new ByteBuffer[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            DynamicByteBuffer buffer = codec.serialize(objects[i]);
+            serialized[i] = ByteBuffer.allocate(buffer.getBuffer().remaining());
+            serialized[i].put(buffer.getBuffer()).flip();
+            buffer.dispose();
+        }
+    }
+
+    @Benchmark
+    public int serialize() {
+        Object o = objects[next++ % objects.length];
+        DynamicByteBuffer buffer = codec.serialize(o);
+        int size = buffer.getBuffer().remaining();
+        buffer.dispose();
+        return size;
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        int i = next++ % objects.length;
+        return codec.deserialize(serialized[i].duplicate(), objects[i].getClass());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AccessorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
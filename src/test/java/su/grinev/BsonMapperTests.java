@@ -1,17 +1,38 @@
 package su.grinev;
 
 import org.junit.jupiter.api.Test;
+import su.grinev.bson.BsonBindingWriter;
+import su.grinev.bson.BsonByteBufferReader;
 import su.grinev.bson.BsonObjectReader;
 import su.grinev.bson.BsonObjectWriter;
+import su.grinev.bson.BsonPushParser;
+import su.grinev.dto.BlockingsInfoCacheableDto;
+import su.grinev.dto.GetBlockingsInfoResultCacheableDto;
+import su.grinev.exception.BsonException;
+import su.grinev.messagepack.MessagePackExtension;
+import su.grinev.messagepack.MessagePackReader;
 import su.grinev.pool.DynamicByteBuffer;
 import su.grinev.pool.PoolFactory;
 import su.grinev.test.VpnForwardPacketDto;
 import su.grinev.test.VpnRequestDto;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +41,46 @@ import static su.grinev.test.Command.FOO;
 
 public class BsonMapperTests {
 
+    static class MetricsDto {
+        @annotation.Tag(0) private long requests;
+        @annotation.Tag(1) private double latency;
+        @annotation.Tag(2) private int errors;
+        @annotation.Tag(3) private boolean healthy;
+        @annotation.Tag(4) private Long total;
+    }
+
+    // More keys than a 16-bucket HashMap holds, with tags that wrap around its buckets
+    static class WideDto {
+        @annotation.Tag(0) private int a0;
+        @annotation.Tag(1) private int a1;
+        @annotation.Tag(2) private int a2;
+        @annotation.Tag(3) private int a3;
+        @annotation.Tag(4) private int a4;
+        @annotation.Tag(5) private int a5;
+        @annotation.Tag(6) private int a6;
+        @annotation.Tag(7) private int a7;
+        @annotation.Tag(8) private int a8;
+        @annotation.Tag(9) private int a9;
+        @annotation.Tag(20) private String name;
+        @annotation.Tag(33) private Long total;
+        @annotation.Tag(40) private Integer count;
+    }
+
+    static class VectorDto {
+        @annotation.Tag(0) private int[] counts;
+        @annotation.Tag(1) private long[] offsets;
+        @annotation.Tag(2) private double[] weights;
+    }
+
+    static class RawDto {
+        @annotation.Tag(0) private byte[] payload;
+    }
+
+    static class TreeDto {
+        @annotation.Tag(0) private Map<Integer, Object> attributes;
+        @annotation.Tag(1) private TreeDto child;
+    }
+
     @Test
     public void serializeAndDeserializeObjectTest() {
         PoolFactory poolFactory = PoolFactory.Builder.builder()
@@ -123,6 +184,525 @@ public class BsonMapperTests {
         }
     }
 
+    @Test
+    public void directBindingWriterMatchesDocumentPathTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec documentCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false);
+        Codec directCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        ByteBuffer payload = ByteBuffer.allocateDirect(256);
+        for (int i = 0; i < 256; i++) payload.put(i, (byte) i);
+        VpnRequestDto<VpnForwardPacketDto> request = VpnRequestDto.wrap(FOO, VpnForwardPacketDto.builder().packet(payload).build());
+        request.setTimestamp(Instant.ofEpochMilli(1000000L));
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("customer", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 200L, "type")));
+
+        WideDto sparse = new WideDto();
+        sparse.name = "sparse";
+        sparse.count = 7;
+        WideDto wide = new WideDto();
+        wide.name = "wide";
+        wide.total = 42L;
+        wide.count = 7;
+
+        for (Object o : List.of(request, result, sparse, wide)) {
+            DynamicByteBuffer expected = documentCodec.serialize(o);
+            DynamicByteBuffer actual = directCodec.serialize(o);
+            assertEquals(expected.getBuffer(), actual.getBuffer(), "Direct output differs for " + o.getClass());
+            expected.dispose();
+            actual.dispose();
+        }
+
+        DynamicByteBuffer buf = directCodec.serialize(request);
+        VpnRequestDto<?> deserialized = directCodec.deserialize(buf.getBuffer(), VpnRequestDto.class);
+        buf.dispose();
+        assertEquals(request, deserialized);
+    }
+
+    @Test
+    public void presizedBindingWriterMatchesPatchedOutputTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec patchedCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        // Starts smaller than every payload below, so only the single up-front grow can make room
+        Codec presizedCodec = Codec.bson(poolFactory, 16, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        BsonBindingWriter presizedWriter = (BsonBindingWriter) presizedCodec.getObjectSerializer();
+        presizedWriter.setPresize(true);
+
+        ByteBuffer payload = ByteBuffer.allocateDirect(64);
+        VpnRequestDto<VpnForwardPacketDto> request = VpnRequestDto.wrap(FOO, VpnForwardPacketDto.builder().packet(payload).build());
+        request.setTimestamp(Instant.ofEpochMilli(1000000L));
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("Zürich 東京 \uD83D\uDE00", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 200L, "type")));
+
+        VectorDto vectors = new VectorDto();
+        vectors.counts = new int[]{1, 2, 3};
+        vectors.weights = new double[]{0.5};
+
+        MetricsDto metrics = new MetricsDto();
+        metrics.total = 42L;
+
+        // Documents nested in maps and lists, at every level of a deep chain
+        TreeDto tree = new TreeDto();
+        for (int depth = 0; depth < 30; depth++) {
+            TreeDto parent = new TreeDto();
+            parent.attributes = Map.of(depth, List.of("leaf", Map.of(1, List.of(2L, 3.5)), List.of()));
+            parent.child = tree;
+            tree = parent;
+        }
+
+        for (Object o : List.of(request, result, vectors, metrics, tree)) {
+            DynamicByteBuffer expected = patchedCodec.serialize(o);
+            DynamicByteBuffer actual = presizedCodec.serialize(o);
+            assertEquals(expected.getBuffer(), actual.getBuffer(), "Presized output differs for " + o.getClass());
+            assertEquals(expected.getBuffer().remaining(), presizedWriter.measure(o));
+            expected.dispose();
+            actual.dispose();
+        }
+    }
+
+    @Test
+    public void mappedDocumentFileReadsConcatenatedDocumentsTest() throws IOException {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec bson = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        Codec messagePack = Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        Map<FrameFormat, Codec> codecs = Map.of(
+                FrameFormat.BSON, bson,
+                FrameFormat.MESSAGE_PACK, messagePack);
+        for (Map.Entry<FrameFormat, Codec> entry : codecs.entrySet()) {
+            Codec codec = entry.getValue();
+            Path file = Files.createTempFile("documents", ".bin");
+            try {
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    for (int i = 0; i < 50; i++) {
+                        codec.serialize(new GetBlockingsInfoResultCacheableDto("customer" + i, "account", List.of(
+                                new BlockingsInfoCacheableDto(i, "2024-01-01", "authority", "reason", 100L, "type"))), out);
+                    }
+                }
+
+                // A window of a few documents makes the file remap several times on the way through
+                try (MappedDocumentFile documents = MappedDocumentFile.open(file, entry.getKey(), 512)) {
+                    List<Long> offsets = new ArrayList<>();
+                    int i = 0;
+                    for (MappedDocumentFile.Entry document : documents) {
+                        GetBlockingsInfoResultCacheableDto dto = codec.deserialize(document.document(), GetBlockingsInfoResultCacheableDto.class);
+                        assertEquals("customer" + i++, dto.getCustomerId(), entry.getKey().name());
+                        offsets.add(document.offset());
+                    }
+                    assertEquals(50, i);
+                    assertEquals(documents.size(), documents.nextOffset(offsets.get(49)));
+
+                    GetBlockingsInfoResultCacheableDto dto = documents.read(codec, offsets.get(7), GetBlockingsInfoResultCacheableDto.class);
+                    assertEquals("customer7", dto.getCustomerId());
+                    assertEquals(7, dto.getBlockingsInfo().get(0).getNumber().intValue());
+                    assertThrows(IOException.class, () -> documents.documentAt(offsets.get(7) + 1));
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void frameDecoderReassemblesSplitFramesTest() throws IOException {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Map<FrameFormat, Codec> codecs = Map.of(
+                FrameFormat.BSON, Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                        Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT),
+                FrameFormat.MESSAGE_PACK, Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT));
+        for (Map.Entry<FrameFormat, Codec> entry : codecs.entrySet()) {
+            Codec codec = entry.getValue();
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            try (FrameEncoder encoder = new FrameEncoder(codec)) {
+                for (int i = 0; i < 20; i++) {
+                    encoder.enqueue(new GetBlockingsInfoResultCacheableDto("customer" + i, "account", List.of()));
+                }
+                assertTrue(encoder.flush(Channels.newChannel(stream)));
+                assertFalse(encoder.hasPending());
+            }
+            byte[] bytes = stream.toByteArray();
+
+            // Chunks of 7 bytes split every length prefix and body somewhere
+            FrameDecoder<GetBlockingsInfoResultCacheableDto> decoder = new FrameDecoder<>(codec, GetBlockingsInfoResultCacheableDto.class, entry.getKey(), 4096);
+            List<String> customers = new ArrayList<>();
+            for (int offset = 0; offset < bytes.length; offset += 7) {
+                ByteBuffer chunk = ByteBuffer.wrap(bytes, offset, Math.min(7, bytes.length - offset));
+                decoder.feed(chunk, dto -> customers.add(dto.getCustomerId()));
+                assertFalse(chunk.hasRemaining());
+            }
+            assertFalse(decoder.hasPartialFrame());
+            assertEquals(20, customers.size());
+            assertEquals("customer19", customers.get(19));
+
+            // The whole stream in one read decodes every frame in place
+            Pipe pipe = Pipe.open();
+            pipe.sink().write(ByteBuffer.wrap(bytes));
+            pipe.sink().close();
+            List<String> fromChannel = new ArrayList<>();
+            while (decoder.readFrom(pipe.source(), dto -> fromChannel.add(dto.getCustomerId())) >= 0) {
+                // until end of stream
+            }
+            assertEquals(customers, fromChannel);
+
+            Pipe truncated = Pipe.open();
+            truncated.sink().write(ByteBuffer.wrap(bytes, 0, 10));
+            truncated.sink().close();
+            assertThrows(EOFException.class, () -> {
+                while (decoder.readFrom(truncated.source(), dto -> {}) >= 0) {
+                    // drain until the stream ends inside the second frame
+                }
+            });
+
+            byte[] corrupt = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F, 0};
+            assertThrows(StreamCorruptedException.class, () -> new FrameDecoder<>(codec, Object.class, entry.getKey(), 4096)
+                    .feed(ByteBuffer.wrap(corrupt), o -> {}));
+        }
+    }
+
+    @Test
+    public void directBindingReaderRoundTripTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec codec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("customer", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 200L, "type")));
+
+        DynamicByteBuffer buf = codec.serialize(result);
+        GetBlockingsInfoResultCacheableDto deserialized = codec.deserialize(buf.getBuffer(), GetBlockingsInfoResultCacheableDto.class);
+        buf.dispose();
+
+        assertEquals("customer", deserialized.getCustomerId());
+        assertEquals("account", deserialized.getAccountNumber());
+        assertEquals(2, deserialized.getBlockingsInfo().size());
+        BlockingsInfoCacheableDto second = deserialized.getBlockingsInfo().get(1);
+        assertEquals(2, second.getNumber().intValue());
+        assertEquals(200L, second.getBlockAmount().longValue());
+        assertNull(second.getBlockReason());
+    }
+
+    @Test
+    public void directBindingReaderFindsTrailingDiscriminatorTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec codec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        ByteBuffer packet = ByteBuffer.allocateDirect(16);
+        for (int i = 0; i < 16; i++) packet.put(i, (byte) i);
+        Map<Object, Object> data = new LinkedHashMap<>();
+        data.put(0, packet);
+
+        // Typed field comes before its discriminator, as produced by a HashMap-ordered document
+        Map<Object, Object> root = new LinkedHashMap<>();
+        root.put(0, "FOO");
+        root.put(1, data);
+        root.put(2, "0.1");
+        root.put(3, Instant.ofEpochMilli(1000000L));
+        root.put(7, "unknown tag");
+        root.put(1488, VpnForwardPacketDto.class.getName());
+
+        DynamicByteBuffer buf = new DynamicByteBuffer(4096, true);
+        new BsonObjectWriter(poolFactory, 4096, true).serialize(buf, new BinaryDocument(root));
+        VpnRequestDto<?> deserialized = codec.deserialize(buf.getBuffer(), VpnRequestDto.class);
+
+        assertEquals(FOO, deserialized.getCommand());
+        assertEquals("0.1", deserialized.getProtocolVersion());
+        assertEquals(Instant.ofEpochMilli(1000000L), deserialized.getTimestamp());
+        VpnForwardPacketDto forwardPacket = assertInstanceOf(VpnForwardPacketDto.class, deserialized.getData());
+        assertEquals(packet, forwardPacket.getPacket());
+    }
+
+    @Test
+    public void primitiveArraysArePackedTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        VectorDto vector = new VectorDto();
+        vector.counts = new int[100];
+        vector.offsets = new long[100];
+        vector.weights = new double[100];
+        for (int i = 0; i < 100; i++) {
+            vector.counts[i] = i - 50;
+            vector.offsets[i] = 5_000_000_000L * i;
+            vector.weights[i] = i / 3.0;
+        }
+
+        Codec documentCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false);
+        Codec directCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        DynamicByteBuffer expected = documentCodec.serialize(vector);
+        DynamicByteBuffer actual = directCodec.serialize(vector);
+        assertEquals(expected.getBuffer(), actual.getBuffer());
+        // int32 array: type, "0", length, subtype, then the first element little-endian
+        ByteBuffer bson = actual.getBuffer();
+        assertEquals(0x05, bson.get(4));
+        assertEquals(400, bson.getInt(7));
+        assertEquals((byte) 0x80, bson.get(11));
+        assertEquals(-50, bson.getInt(12));
+        expected.dispose();
+        actual.dispose();
+
+        // Document readers have no field type to go by, so they decode the packed subtypes only when asked to
+        Codec messagePackDocumentCodec = Codec.messagePack(poolFactory, 4096);
+        ((BsonObjectReader) documentCodec.getDeserializer()).setPackedArrays(true);
+        ((MessagePackReader) messagePackDocumentCodec.getDeserializer()).setPackedArrays(true);
+        for (Codec codec : new Codec[]{documentCodec, directCodec, messagePackDocumentCodec,
+                Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT)}) {
+            DynamicByteBuffer buf = codec.serialize(vector);
+            VectorDto deserialized = codec.deserialize(buf.getBuffer(), VectorDto.class);
+            buf.dispose();
+            assertArrayEquals(vector.counts, deserialized.counts);
+            assertArrayEquals(vector.offsets, deserialized.offsets);
+            assertArrayEquals(vector.weights, deserialized.weights);
+        }
+    }
+
+    @Test
+    public void packedSubtypesStayBinaryByDefaultTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        // {"0": binary(subtype 0x80, 4 bytes)} from a producer that uses 0x80 for something else
+        ByteBuffer bson = ByteBuffer.allocate(17).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(17).put((byte) 0x05).put((byte) '0').put((byte) 0).putInt(4).put((byte) 0x80)
+                .put(new byte[]{1, 2, 3, 4}).put((byte) 0).flip();
+
+        Codec documentCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), true);
+        BinaryDocument document = new BinaryDocument(new HashMap<>());
+        documentCodec.getDeserializer().deserialize(bson.duplicate(), document);
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, (byte[]) document.get("0"));
+
+        Codec directCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), true,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        RawDto raw = directCodec.deserialize(bson.duplicate(), RawDto.class);
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, raw.payload);
+
+        // {0: fixext4(type 0x10)}
+        ByteBuffer messagePack = ByteBuffer.wrap(new byte[]{(byte) 0x81, 0x00, (byte) 0xD6, 0x10, 1, 2, 3, 4});
+        MessagePackReader reader = (MessagePackReader) Codec.messagePack(poolFactory, 4096).getDeserializer();
+        reader.setReadLengthHeader(false);
+        BinaryDocument map = new BinaryDocument(new HashMap<>());
+        reader.deserialize(messagePack, map);
+        MessagePackExtension extension = assertInstanceOf(MessagePackExtension.class, map.get("0"));
+        assertEquals(0x10, extension.type());
+    }
+
+    @Test
+    public void lazyStringsBindLikeStringsTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Binder binder = new Binder(Binder.ClassNameMode.FULL_NAME);
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("клиент", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type")));
+
+        DynamicByteBuffer buf = new DynamicByteBuffer(4096, false);
+        new BsonObjectWriter(poolFactory, 4096, true).serialize(buf, binder.unbind(result));
+
+        BsonObjectReader reader = new BsonObjectReader(poolFactory, 4096, true, () -> ByteBuffer.allocateDirect(4096));
+        reader.setLazyStrings(true);
+        BinaryDocument document = new BinaryDocument(new HashMap<>());
+        reader.deserialize(buf.getBuffer(), document);
+
+        LazyUtf8 account = assertInstanceOf(LazyUtf8.class, document.get("0"));
+        assertTrue(account.contentEquals("account"));
+        assertFalse(account.contentEquals("accounts"));
+        assertTrue(((LazyUtf8) document.get("2")).contentEquals("клиент"));
+
+        GetBlockingsInfoResultCacheableDto deserialized = binder.bind(GetBlockingsInfoResultCacheableDto.class, document);
+        assertEquals("клиент", deserialized.getCustomerId());
+        assertEquals("account", deserialized.getAccountNumber());
+        assertEquals("authority", deserialized.getBlockingsInfo().get(0).getAuthorityName());
+    }
+
+    @Test
+    public void numericKeysKeepIntegerParseIntRangeTest() {
+        for (String key : List.of("0", "2147483647", "-2147483648", "00000000042")) {
+            assertEquals(Integer.parseInt(key), cStringKey(key).readCStringAsInt(), key);
+        }
+        for (String key : List.of("2147483648", "-2147483649", "4294967296", "99999999999")) {
+            assertThrows(BsonException.class, () -> cStringKey(key).readCStringAsInt(), key);
+        }
+    }
+
+    private static BsonByteBufferReader cStringKey(String key) {
+        byte[] bytes = Arrays.copyOf(key.getBytes(StandardCharsets.US_ASCII), key.length() + 1);
+        return new BsonByteBufferReader(ByteBuffer.wrap(bytes), null);
+    }
+
+    @Test
+    public void pushParserResumesAcrossChunksTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Binder binder = new Binder(Binder.ClassNameMode.FULL_NAME);
+        List<BlockingsInfoCacheableDto> blockings = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            blockings.add(new BlockingsInfoCacheableDto(i, "2024-01-0" + i, "authority " + i, "reason", (long) i, "type"));
+        }
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("клиент", "account", blockings);
+
+        DynamicByteBuffer buf = new DynamicByteBuffer(4096, false);
+        new BsonObjectWriter(poolFactory, 4096, true).serialize(buf, binder.unbind(result));
+        ByteBuffer bson = buf.getBuffer();
+        byte[] bytes = new byte[bson.remaining() + 3];
+        bson.get(bytes, 0, bytes.length - 3);
+        int length = bytes.length - 3;
+
+        BinaryDocument expected = binder.unbind(result);
+        BsonObjectReader reader = new BsonObjectReader(poolFactory, 4096, true, () -> ByteBuffer.allocateDirect(4096));
+        BsonPushParser parser = reader.pushParser();
+        for (int chunkSize : new int[]{1, 3, 7, 64, bytes.length}) {
+            parser.reset();
+            BsonPushParser.Status status = BsonPushParser.Status.NEED_MORE_INPUT;
+            ByteBuffer chunk = null;
+            int end = 0;
+            while (status == BsonPushParser.Status.NEED_MORE_INPUT) {
+                assertTrue(end < bytes.length, "chunk size " + chunkSize);
+                chunk = ByteBuffer.wrap(bytes, end, Math.min(chunkSize, bytes.length - end)).slice();
+                end += chunk.remaining();
+                status = parser.feed(chunk);
+            }
+            assertEquals(expected.getDocumentMap(), parser.getDocument().getDocumentMap());
+            assertEquals(length, parser.getDocument().getLength());
+            // the trailing bytes belong to the next document and stay in the last chunk
+            assertEquals(end - length, chunk.remaining(), "chunk size " + chunkSize);
+        }
+
+        GetBlockingsInfoResultCacheableDto deserialized = binder.bind(GetBlockingsInfoResultCacheableDto.class, parser.getDocument());
+        assertEquals("клиент", deserialized.getCustomerId());
+        assertEquals("authority 4", deserialized.getBlockingsInfo().get(4).getAuthorityName());
+
+        parser.reset();
+        bytes[length - 1] = 1;
+        assertThrows(BsonException.class, () -> parser.feed(ByteBuffer.wrap(bytes)));
+
+        // Values decode as BsonObjectReader decodes them, binaries copied out of the chunk
+        Map<Object, Object> values = new HashMap<>();
+        values.put(0, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        values.put(1, List.of("x", 2.5));
+        values.put(2, Map.of(0, 5L));
+        buf.initBuffer();
+        new BsonObjectWriter(poolFactory, 4096, true).serialize(buf, new BinaryDocument(values));
+        ByteBuffer valueBytes = buf.getBuffer();
+        reader.setReadBinaryAsByteArray(false);
+        BinaryDocument read = new BinaryDocument(new HashMap<>());
+        reader.deserialize(valueBytes.duplicate(), read);
+        BsonPushParser valueParser = reader.pushParser();
+        ByteBuffer copy = ByteBuffer.allocate(valueBytes.remaining()).put(valueBytes.duplicate()).flip();
+        assertEquals(BsonPushParser.Status.DONE, valueParser.feed(copy));
+        assertEquals(read.getDocumentMap(), valueParser.getDocument().getDocumentMap());
+        assertInstanceOf(ByteBuffer.class, valueParser.getDocument().getDocumentMap().get(0));
+    }
+
+    @Test
+    public void directBindingPrimitiveKindsTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Binder.ClassSchema schema = Binder.getSchema(MetricsDto.class);
+        assertEquals(Binder.FieldKind.LONG, schema.tagLookup[0].kind);
+        assertEquals(Binder.FieldKind.DOUBLE, schema.tagLookup[1].kind);
+        assertEquals(Binder.FieldKind.INT, schema.tagLookup[2].kind);
+        assertEquals(Binder.FieldKind.BOOLEAN, schema.tagLookup[3].kind);
+        assertEquals(Binder.FieldKind.PRIMITIVE, schema.tagLookup[4].kind);
+
+        MetricsDto metrics = new MetricsDto();
+        metrics.requests = 5_000_000_000L;
+        metrics.latency = 12.5;
+        metrics.errors = -3;
+        metrics.healthy = true;
+        metrics.total = 42L;
+
+        Codec documentCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false);
+        Codec directCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        DynamicByteBuffer expected = documentCodec.serialize(metrics);
+        DynamicByteBuffer actual = directCodec.serialize(metrics);
+        assertEquals(expected.getBuffer(), actual.getBuffer());
+
+        Codec messagePackCodec = Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        for (Codec codec : new Codec[]{documentCodec, directCodec, messagePackCodec}) {
+            DynamicByteBuffer buf = codec.serialize(metrics);
+            MetricsDto deserialized = codec.deserialize(buf.getBuffer(), MetricsDto.class);
+            buf.dispose();
+            assertEquals(5_000_000_000L, deserialized.requests);
+            assertEquals(12.5, deserialized.latency);
+            assertEquals(-3, deserialized.errors);
+            assertTrue(deserialized.healthy);
+            assertEquals(42L, deserialized.total.longValue());
+        }
+        expected.dispose();
+        actual.dispose();
+    }
+
     @Test
     public void performanceTest() {
         final int WARMUP_ITERATIONS = 5000;
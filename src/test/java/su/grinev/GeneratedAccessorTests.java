@@ -0,0 +1,193 @@
+package su.grinev;
+
+import annotation.Tag;
+import org.junit.jupiter.api.Test;
+import su.grinev.pool.DynamicByteBuffer;
+import su.grinev.pool.PoolFactory;
+import su.grinev.test.VpnForwardPacketDto;
+import su.grinev.test.VpnRequestDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static su.grinev.test.Command.FOO;
+
+public class GeneratedAccessorTests {
+
+    static class Primitives {
+        @Tag(0) private int i;
+        @Tag(1) private long l;
+        @Tag(2) private double d;
+        @Tag(3) private float f;
+        @Tag(4) private boolean b;
+        @Tag(5) private short s;
+        @Tag(6) private byte by;
+        @Tag(7) private Integer boxed;
+        @Tag(8) private String text;
+    }
+
+    enum Color { RED, GREEN }
+
+    static class Mixed {
+        @Tag(0) private int i;
+        @Tag(1) private short s;
+        @Tag(2) private byte by;
+        @Tag(3) private float f;
+        @Tag(4) private char c;
+        @Tag(5) private Long boxed;
+        @Tag(6) private String text;
+        @Tag(7) private Color color;
+        @Tag(8) private LocalDateTime at;
+        @Tag(9) private List<Primitives> items;
+        @Tag(10) private Map<Integer, String> names;
+        @Tag(11) private Primitives nested;
+        @Tag(12) private String unset;
+        @Tag(40000) private double far;
+    }
+
+    private final Binder binder = new Binder(Binder.ClassNameMode.FULL_NAME, true);
+
+    @Test
+    void generatedAccessorReadsAndWritesPrivateFields() {
+        Binder.FieldBinding[] bindings = binder.schema(Primitives.class).bindings;
+        // Binders without generated accessors keep their VarHandle schema
+        assertNotSame(Binder.getSchema(Primitives.class), binder.schema(Primitives.class));
+        assertSame(Binder.getSchema(Primitives.class), new Binder(Binder.ClassNameMode.FULL_NAME).schema(Primitives.class));
+        Primitives p = new Primitives();
+
+        bindings[0].setLong(p, 42);
+        bindings[1].setLong(p, 5_000_000_000L);
+        bindings[2].setDouble(p, 1.5);
+        bindings[3].setDouble(p, 2.5);
+        bindings[4].setBoolean(p, true);
+        bindings[5].setLong(p, 7);
+        bindings[6].setLong(p, -3);
+        bindings[7].setLong(p, 9);
+        bindings[8].set(p, "text");
+
+        assertEquals(42, p.i);
+        assertEquals(5_000_000_000L, p.l);
+        assertEquals(1.5, p.d);
+        assertEquals(2.5f, p.f);
+        assertTrue(p.b);
+        assertEquals(7, p.s);
+        assertEquals(-3, p.by);
+        assertEquals(9, p.boxed.intValue());
+        assertEquals("text", p.text);
+
+        assertEquals(42, bindings[0].getInt(p));
+        assertEquals(5_000_000_000L, bindings[1].getLong(p));
+        assertEquals(9, bindings[7].getInt(p));
+        assertEquals(42, bindings[0].get(p));
+        assertEquals("text", bindings[8].get(p));
+        assertThrows(IllegalArgumentException.class, () -> bindings[8].getInt(p));
+    }
+
+    @Test
+    void directCodecRoundTripWithGeneratedAccessors() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        ByteBuffer payload = ByteBuffer.allocateDirect(64);
+        for (int i = 0; i < 64; i++) payload.put(i, (byte) i);
+        VpnRequestDto<VpnForwardPacketDto> request = VpnRequestDto.wrap(FOO, VpnForwardPacketDto.builder().packet(payload).build());
+        request.setTimestamp(Instant.ofEpochMilli(1000000L));
+
+        for (Codec codec : new Codec[]{
+                Codec.messagePack(poolFactory, 4096, binder, Codec.BindingMode.DIRECT),
+                Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false, binder, Codec.BindingMode.DIRECT),
+                Codec.json(poolFactory, 4096, binder)}) {
+            DynamicByteBuffer buf = codec.serialize(request);
+            VpnRequestDto<?> deserialized = codec.deserialize(buf.getBuffer(), VpnRequestDto.class);
+            buf.dispose();
+            assertEquals(request, deserialized);
+        }
+    }
+
+    @Test
+    void generatedClassBinderMatchesGenericBindAndUnbind() {
+        Binder plain = new Binder(Binder.ClassNameMode.FULL_NAME);
+        assertNotNull(binder.schema(Mixed.class).classBinder);
+        assertNull(plain.schema(Mixed.class).classBinder);
+
+        Primitives item = new Primitives();
+        item.i = 3;
+        item.text = "item";
+        Mixed mixed = new Mixed();
+        mixed.i = -1;
+        mixed.s = 2;
+        mixed.by = 3;
+        mixed.f = 4.5f;
+        mixed.c = 'x';
+        mixed.boxed = 5_000_000_000L;
+        mixed.text = "text";
+        mixed.color = Color.GREEN;
+        mixed.at = LocalDateTime.of(2024, 1, 1, 12, 0);
+        mixed.items = List.of(item);
+        mixed.names = Map.of(1, "one");
+        mixed.nested = item;
+        mixed.far = 0.25;
+
+        BinaryDocument document = binder.unbind(mixed);
+        assertEquals(plain.unbind(mixed).getDocumentMap(), document.getDocumentMap());
+
+        // Numbers come back from the wire as Integer/Long/Double and are narrowed per field
+        Map<Object, Object> root = document.getDocumentMap();
+        root.put(1, 2L);
+        root.put(3, 4.5);
+        root.put(5, 5_000_000_000.0);
+        root.put(6, new LazyUtf8(ByteBuffer.wrap("text".getBytes(StandardCharsets.UTF_8)), 0, 4));
+        Mixed bound = binder.bind(Mixed.class, document);
+        assertEquals(-1, bound.i);
+        assertEquals(2, bound.s);
+        assertEquals(3, bound.by);
+        assertEquals(4.5f, bound.f);
+        assertEquals('x', bound.c);
+        assertEquals(5_000_000_000L, bound.boxed.longValue());
+        assertEquals("text", bound.text);
+        assertEquals(Color.GREEN, bound.color);
+        assertEquals(mixed.at, bound.at);
+        assertEquals(1, bound.items.size());
+        assertEquals("item", bound.items.get(0).text);
+        assertEquals(Map.of(1, "one"), bound.names);
+        assertEquals(3, bound.nested.i);
+        assertNull(bound.unset);
+        assertEquals(0.25, bound.far);
+    }
+
+    @Test
+    void documentCodecWithGeneratedClassBinderWritesTheSameBytes() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        ByteBuffer payload = ByteBuffer.allocateDirect(64);
+        for (int i = 0; i < 64; i++) payload.put(i, (byte) i);
+        VpnRequestDto<VpnForwardPacketDto> request = VpnRequestDto.wrap(FOO, VpnForwardPacketDto.builder().packet(payload).build());
+        request.setTimestamp(Instant.ofEpochMilli(1000000L));
+
+        Binder plain = new Binder(Binder.ClassNameMode.FULL_NAME);
+        Codec expectedCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false, plain, Codec.BindingMode.DOCUMENT);
+        Codec generatedCodec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false, binder, Codec.BindingMode.DOCUMENT);
+
+        DynamicByteBuffer expected = expectedCodec.serialize(request);
+        DynamicByteBuffer actual = generatedCodec.serialize(request);
+        assertEquals(expected.getBuffer(), actual.getBuffer());
+        VpnRequestDto<?> deserialized = generatedCodec.deserialize(actual.getBuffer(), VpnRequestDto.class);
+        expected.dispose();
+        actual.dispose();
+        assertEquals(request, deserialized);
+    }
+}
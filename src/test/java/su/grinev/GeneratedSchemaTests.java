@@ -0,0 +1,105 @@
+package su.grinev;
+
+import annotation.Tag;
+import annotation.Transient;
+import org.junit.jupiter.api.Test;
+import su.grinev.dto.BlockingsInfoCacheableDto;
+import su.grinev.dto.GetBlockingsInfoResultCacheableDto;
+import su.grinev.pool.DynamicByteBuffer;
+import su.grinev.pool.PoolFactory;
+import su.grinev.test.VpnRequestDto;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Schemas for test DTOs and for the DTOs in the main sources are generated by the {@code processor}
+ * module at compile time.
+ */
+public class GeneratedSchemaTests {
+
+    static class PackageFields {
+        @Tag(0) int count;
+        @Tag(1) long total;
+        @Tag(2) boolean active;
+        @Tag(3) String name;
+        @Tag(4) List<BlockingsInfoCacheableDto> items;
+        @Transient String ignored;
+    }
+
+    @Test
+    void generatedSchemaIsUsedInsteadOfReflection() {
+        Binder.ClassSchema schema = Binder.getSchema(BlockingsInfoCacheableDto.class);
+
+        // Generated bindings carry no VarHandle
+        for (Binder.FieldBinding binding : schema.bindings) {
+            assertNull(binding.handle);
+        }
+        assertEquals(6, schema.bindings.length);
+        assertEquals(5, schema.bindings[0].tag);
+        assertSame(schema.bindings[0], schema.tagLookup[5]);
+        assertInstanceOf(BlockingsInfoCacheableDto.class, Binder.instantiate(BlockingsInfoCacheableDto.class));
+    }
+
+    @Test
+    void mainSourceDtoHasGeneratedSchema() {
+        Binder.ClassSchema schema = Binder.getSchema(VpnRequestDto.class);
+
+        for (Binder.FieldBinding binding : schema.bindings) {
+            assertNull(binding.handle);
+        }
+        assertEquals(4, schema.bindings.length);
+        assertEquals(Binder.FieldKind.TYPE, schema.tagLookup[1].kind);
+    }
+
+    @Test
+    void generatedAccessorUsesPackagePrivateFields() {
+        Binder.ClassSchema schema = Binder.getSchema(PackageFields.class);
+        assertEquals(5, schema.bindings.length);
+        assertEquals(Binder.FieldKind.COLLECTION, schema.bindings[4].kind);
+        assertEquals(BlockingsInfoCacheableDto.class,
+                Binder.resolveClassFromType(Binder.resolveListItemType(schema.bindings[4].genericType)));
+
+        PackageFields fields = new PackageFields();
+        schema.bindings[0].setLong(fields, 7);
+        schema.bindings[1].setLong(fields, 5_000_000_000L);
+        schema.bindings[2].setBoolean(fields, true);
+        schema.bindings[3].set(fields, "name");
+
+        assertEquals(7, fields.count);
+        assertEquals(5_000_000_000L, fields.total);
+        assertTrue(fields.active);
+        assertEquals(7, schema.bindings[0].getInt(fields));
+        assertEquals(Integer.valueOf(7), schema.bindings[0].get(fields));
+        assertEquals("name", schema.bindings[3].get(fields));
+    }
+
+    @Test
+    void directCodecRoundTripWithGeneratedSchema() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("customer", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 200L, "type")));
+
+        for (Codec codec : new Codec[]{
+                Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT),
+                Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096), false,
+                        Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT)}) {
+            DynamicByteBuffer buf = codec.serialize(result);
+            GetBlockingsInfoResultCacheableDto deserialized = codec.deserialize(buf.getBuffer(), GetBlockingsInfoResultCacheableDto.class);
+            buf.dispose();
+
+            assertEquals("customer", deserialized.getCustomerId());
+            assertEquals(2, deserialized.getBlockingsInfo().size());
+            assertEquals(200L, deserialized.getBlockingsInfo().get(1).getBlockAmount().longValue());
+        }
+    }
+}
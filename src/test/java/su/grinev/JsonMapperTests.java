@@ -1,24 +1,52 @@
 package su.grinev;
 
 import org.junit.jupiter.api.Test;
+import su.grinev.dto.BlockingsInfoCacheableDto;
+import su.grinev.dto.GetBlockingsInfoResultCacheableDto;
+import su.grinev.FieldNameIndex;
 import su.grinev.json.JsonParser;
+import su.grinev.json.JsonPullParser;
+import su.grinev.json.JsonReader;
 import su.grinev.json.JsonWriter;
 import su.grinev.json.Tokenizer;
 import su.grinev.json.token.Token;
+import su.grinev.json.token.TokenType;
 import su.grinev.pool.DisposablePool;
 import su.grinev.pool.DynamicByteBuffer;
 import su.grinev.pool.PoolFactory;
+import su.grinev.test.VpnForwardPacketDto;
+import su.grinev.test.VpnRequestDto;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static su.grinev.test.Command.FOO;
 
 public class JsonMapperTests {
 
+    static class NumbersDto {
+        @annotation.Tag(0) private long count;
+        @annotation.Tag(1) private double ratio;
+        @annotation.Tag(2) private int delta;
+        @annotation.Tag(3) private List<Double> samples;
+    }
+
+    static class ShortKeysDto {
+        @annotation.Tag(0) private String id;
+        @annotation.Tag(1) private int ab;
+        @annotation.Tag(2) private String name;
+    }
+
     @Test
     public void serializeAndDeserializeObjectTest() {
         PoolFactory poolFactory = PoolFactory.Builder.builder()
@@ -154,6 +182,259 @@ public class JsonMapperTests {
         System.out.println("Deserialization p99 time: %.3fus".formatted(deserP99 / 1000.0));
     }
 
+    @Test
+    public void pullParserMatchesTokenListParserTest() {
+        byte[] json = """
+                {"name": "te\\"st", "values": [1, -2, 5000000000, 2.5e3, true, false, null, {}, []],
+                 "nested": {"empty": "", "list": [{"id": 1}, {"id": 2}]}}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        Document expected = new JsonParser().parse(new Tokenizer(json).tokenize());
+        Document actual = new JsonReader().deserialize(json);
+        assertEquals(expected.getDocumentMap(), actual.getDocumentMap());
+        assertEquals("te\"st", actual.getDocumentMap().get("name"));
+        assertEquals(5000000000L, ((List<?>) actual.getDocumentMap().get("values")).get(2));
+
+        JsonPullParser parser = new JsonPullParser("[\"a\", 7]".getBytes(StandardCharsets.UTF_8));
+        assertEquals(TokenType.SQUARE_OPEN, parser.next());
+        assertEquals(TokenType.STRING, parser.next());
+        assertEquals("a", parser.getString());
+        assertEquals(TokenType.COMMA, parser.next());
+        assertEquals(TokenType.NUMBER, parser.next());
+        assertEquals(7, parser.getNumber());
+        assertEquals(TokenType.SQUARE_CLOSE, parser.next());
+        assertFalse(parser.hasNext());
+
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().deserialize("{\"a\": 1} x".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().deserialize("{\"a\": [1, 2}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> new JsonReader().deserialize("{\"a\": ".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void structuralIndexMatchesScanningParserTest() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                sb.append(",\n  ");
+            }
+            // backslash runs and quoted punctuation land on every offset of a 64-byte block
+            sb.append('"').append("k").append(i).append("\\\\".repeat(i % 4)).append("\": ");
+            sb.append(switch (i % 5) {
+                case 0 -> "\"{[a\\\"b]}, :\"";
+                case 1 -> "[" + i + ", -" + i + ".5e1, true, null]";
+                case 2 -> "{\"x\": \"" + "\\\\".repeat(i % 7) + "\"}";
+                case 3 -> "false";
+                default -> "\"" + "y".repeat(i % 70) + "\"";
+            });
+        }
+        byte[] json = sb.append('}').toString().getBytes(StandardCharsets.UTF_8);
+
+        Map<String, Object> expected = new JsonPullParser(json).readObject();
+        assertEquals(200, expected.size());
+        assertEquals("{[a\"b]}, :", expected.get("k0"));
+        assertEquals(expected, JsonPullParser.indexed(json).readObject());
+        assertEquals("ab#", new JsonPullParser("{\"a\": \"ab#\", \"b\": 1}".getBytes(StandardCharsets.UTF_8)).readObject().get("a"));
+
+        for (String invalid : new String[]{"{\"a\": 1x}", "{\"a\": truex}", "{\"a\": \"b}", "{\"a\": 1} 2", "{\"a\" 1}"}) {
+            byte[] bytes = invalid.getBytes(StandardCharsets.UTF_8);
+            assertThrows(IllegalArgumentException.class, () -> JsonPullParser.indexed(bytes).readObject(), invalid);
+            assertThrows(IllegalArgumentException.class, () -> new JsonPullParser(bytes).readObject(), invalid);
+        }
+    }
+
+    @Test
+    public void numbersParseLikeTheJdkTest() {
+        Random random = new Random(42);
+        List<String> numbers = new ArrayList<>(List.of(
+                "0", "-0", "0.0", "-0.0", "1e0", "2147483647", "-2147483648", "2147483648",
+                "9223372036854775807", "-9223372036854775808", "9223372036854775808", "12345678901234567890123",
+                "0.1", "0.000123", "1.7976931348623157e308", "4.9e-324", "2.2250738585072014E-308", "1e400", "-1e-400",
+                "9007199254740993", "9007199254740993.0", "123456789012345678901234567890e-10", "7.0e-10", "1E+2"));
+        for (int i = 0; i < 20000; i++) {
+            double d = switch (i % 4) {
+                case 0 -> Double.longBitsToDouble(random.nextLong());
+                case 1 -> random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+                case 2 -> (float) random.nextGaussian();
+                default -> random.nextLong() / 1000.0;
+            };
+            if (Double.isFinite(d)) {
+                numbers.add(Double.toString(d));
+                numbers.add(new BigDecimal(d).round(new MathContext(1 + random.nextInt(25))).toString());
+            }
+        }
+
+        for (String number : numbers) {
+            Object parsed = new JsonPullParser(("[" + number + "]").getBytes(StandardCharsets.UTF_8)).readArray().get(0);
+            if (number.matches("-?\\d+")) {
+                BigDecimal exact = new BigDecimal(number);
+                Object expected = exact.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) >= 0 && exact.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) <= 0
+                        ? (Object) exact.intValueExact()
+                        : exact.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) >= 0 && exact.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0
+                        ? (Object) exact.longValueExact()
+                        : exact;
+                assertEquals(expected, parsed, number);
+            } else {
+                assertEquals(Double.doubleToRawLongBits(Double.parseDouble(number)), Double.doubleToRawLongBits((Double) parsed), number);
+            }
+        }
+
+        for (String invalid : new String[]{"-", "1.", "1e", "1e+", "-x"}) {
+            assertThrows(IllegalArgumentException.class, () -> new JsonPullParser(("[" + invalid + "]").getBytes(StandardCharsets.UTF_8)).readArray(), invalid);
+        }
+    }
+
+    @Test
+    public void jsonCodecBindsFieldsByNameTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+        Codec codec = Codec.json(poolFactory, 4096);
+
+        ByteBuffer payload = ByteBuffer.allocate(16);
+        for (int i = 0; i < 16; i++) payload.put(i, (byte) i);
+        VpnRequestDto<VpnForwardPacketDto> request = VpnRequestDto.wrap(FOO, VpnForwardPacketDto.builder().packet(payload).build());
+        request.setTimestamp(Instant.ofEpochMilli(1000000L));
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("customer", "acc\"ount", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 5_000_000_000L, "type")));
+
+        DynamicByteBuffer buf = codec.serialize(request);
+        assertEquals(request, codec.deserialize(buf.getBuffer(), VpnRequestDto.class));
+        buf.dispose();
+
+        buf = codec.serialize(result);
+        String json = StandardCharsets.UTF_8.decode(buf.getBuffer().duplicate()).toString();
+        assertTrue(json.startsWith("{\"customerId\":\"customer\",\"accountNumber\":\"acc\\\"ount\",\"blockingsInfo\":[{"), json);
+        GetBlockingsInfoResultCacheableDto copy = codec.deserialize(buf.getBuffer(), GetBlockingsInfoResultCacheableDto.class);
+        buf.dispose();
+        DynamicByteBuffer again = codec.serialize(copy);
+        assertEquals(json, StandardCharsets.UTF_8.decode(again.getBuffer()).toString());
+        again.dispose();
+
+        // Keys in any order, the class name after its value, unknown keys skipped
+        json = """
+                {"data": {"packet": "AAEC", "extra": [1, {"a": null}]},
+                 "unknown": {"command": "BAR"},
+                 "timestamp": "1970-01-01T00:16:40Z",
+                 "command": "FOO",
+                 "@data": "su.grinev.test.VpnForwardPacketDto",
+                 "protocolVersion": "0.1"}
+                """;
+        VpnRequestDto<?> deserialized = codec.deserialize(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), VpnRequestDto.class);
+        assertEquals(FOO, deserialized.getCommand());
+        assertEquals("0.1", deserialized.getProtocolVersion());
+        assertEquals(Instant.ofEpochMilli(1000000L), deserialized.getTimestamp());
+        VpnForwardPacketDto forwardPacket = assertInstanceOf(VpnForwardPacketDto.class, deserialized.getData());
+        assertEquals(ByteBuffer.wrap(new byte[]{0, 1, 2}), forwardPacket.getPacket());
+
+        assertThrows(IllegalArgumentException.class, () -> codec.deserialize(
+                ByteBuffer.wrap("{\"data\": {}}".getBytes(StandardCharsets.UTF_8)), VpnRequestDto.class));
+    }
+
+    @Test
+    public void shortKeysBeforeEscapedValuesAreMatchedTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+        Codec codec = Codec.json(poolFactory, 64);
+
+        // Escapes right after a short key land in the same 8-byte window as its closing quote
+        ShortKeysDto dto = codec.deserialize(ByteBuffer.wrap("{\"id\":\"x\\ny\",\"a\\u0062\":1,\"name\":\"\\\"q\\\"\"}"
+                .getBytes(StandardCharsets.UTF_8)), ShortKeysDto.class);
+        assertEquals("x\ny", dto.id);
+        assertEquals(1, dto.ab);
+        assertEquals("\"q\"", dto.name);
+
+        FieldNameIndex names = new FieldNameIndex(new String[]{"id", "ab", "name"});
+        Map<String, Integer> fields = Map.of(
+                "{\"id\":\"x\\ny\"}", 0,
+                "{\"a\\u0062\":\"1\"}", 1,
+                "{\"name\":\"\\\"q\\\"\"}", 2,
+                "{\"n\\u0061me\":\"\\\\\"}", 2);
+        for (Map.Entry<String, Integer> entry : fields.entrySet()) {
+            byte[] json = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            for (JsonPullParser parser : List.of(new JsonPullParser(json), JsonPullParser.indexed(json))) {
+                assertEquals(TokenType.CURLY_OPEN, parser.next());
+                assertEquals((int) entry.getValue(), parser.nextField(names), entry.getKey());
+                assertEquals(TokenType.STRING, parser.next(), entry.getKey());
+                assertEquals(TokenType.CURLY_CLOSE, parser.next(), entry.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void jsonCodecFormatsNumbersLikeTheJdkTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+        Codec codec = Codec.json(poolFactory, 64);
+
+        List<Double> doubles = new ArrayList<>(List.of(0.0, -0.0, 1.0, 0.1, 0.3, 1e7, 9999999.0, 1e-3, 9.99e-4, 123.456, 1e22, 1e23,
+                2e-323, Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, 9007199254740993.0, 4.35, 5e-324 * 3));
+        List<Long> longs = new ArrayList<>(List.of(0L, -1L, 9L, 10L, 99L, 100L, Long.MAX_VALUE, Long.MIN_VALUE, (long) Integer.MIN_VALUE));
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            doubles.add(Double.longBitsToDouble(random.nextLong()));
+            doubles.add(random.nextInt(1_000_000) / Math.pow(10, random.nextInt(10)));
+            longs.add(random.nextLong() >> random.nextInt(64));
+        }
+
+        NumbersDto dto = new NumbersDto();
+        for (int i = 0; i < doubles.size(); i++) {
+            double d = doubles.get(i);
+            dto.count = longs.get(i % longs.size());
+            dto.ratio = d;
+            dto.delta = (int) dto.count;
+            String expected = "{\"count\":" + dto.count + ",\"ratio\":" + (Double.isFinite(d) ? Double.toString(d) : "null")
+                    + ",\"delta\":" + dto.delta + "}";
+
+            DynamicByteBuffer buf = codec.serialize(dto);
+            assertEquals(expected, StandardCharsets.UTF_8.decode(buf.getBuffer()).toString());
+            buf.dispose();
+        }
+
+        dto.samples = List.of(-1.5e-7, 2.5, Double.NaN);
+        DynamicByteBuffer buf = codec.serialize(dto);
+        String json = StandardCharsets.UTF_8.decode(buf.getBuffer().duplicate()).toString();
+        assertTrue(json.endsWith(",\"samples\":[-1.5E-7,2.5,null]}"), json);
+        NumbersDto copy = codec.deserialize(buf.getBuffer(), NumbersDto.class);
+        buf.dispose();
+        assertEquals(dto.ratio, copy.ratio);
+        assertEquals(Arrays.asList(-1.5e-7, 2.5, null), copy.samples);
+    }
+
+    @Test
+    public void jsonCodecRejectsNumbersThatDoNotFitTheFieldTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+        Codec codec = Codec.json(poolFactory, 64);
+
+        NumbersDto dto = codec.deserialize(ByteBuffer.wrap("{\"count\": 3e9, \"delta\": -2147483648}".getBytes(StandardCharsets.UTF_8)), NumbersDto.class);
+        assertEquals(3_000_000_000L, dto.count);
+        assertEquals(Integer.MIN_VALUE, dto.delta);
+
+        for (String invalid : List.of("{\"delta\": 1.9}", "{\"delta\": 3000000000}", "{\"delta\": -2147483649}",
+                "{\"count\": 9223372036854775808}", "{\"count\": 1.5e0}")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> codec.deserialize(ByteBuffer.wrap(invalid.getBytes(StandardCharsets.UTF_8)), NumbersDto.class), invalid);
+            assertTrue(e.getCause().getMessage().startsWith(invalid.contains("delta") ? "Field 'delta'" : "Field 'count'"), invalid);
+        }
+    }
+
     @Test
     public void verifySerializationCorrectness() {
         PoolFactory poolFactory = PoolFactory.Builder.builder()
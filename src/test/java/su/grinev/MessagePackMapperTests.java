@@ -1,6 +1,10 @@
 package su.grinev;
 
 import org.junit.jupiter.api.Test;
+import su.grinev.dto.BlockingsInfoCacheableDto;
+import su.grinev.dto.GetBlockingsInfoResultCacheableDto;
+import su.grinev.messagepack.MessagePackBindingReader;
+import su.grinev.messagepack.MessagePackException;
 import su.grinev.messagepack.MessagePackReader;
 import su.grinev.messagepack.MessagePackWriter;
 import su.grinev.messagepack.ReaderContext;
@@ -8,19 +12,69 @@ import su.grinev.messagepack.WriterContext;
 import su.grinev.pool.DynamicByteBuffer;
 import su.grinev.pool.Pool;
 import su.grinev.pool.PoolFactory;
+import su.grinev.test.VpnForwardPacketDto;
+import su.grinev.test.VpnRequestDto;
 
 import java.nio.ByteBuffer;
+import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static su.grinev.test.Command.FOO;
 
 public class MessagePackMapperTests {
 
+    // More keys than a 16-bucket HashMap holds, with tags that wrap around its buckets
+    static class WideDto {
+        @annotation.Tag(0) private int a0;
+        @annotation.Tag(1) private int a1;
+        @annotation.Tag(2) private int a2;
+        @annotation.Tag(3) private int a3;
+        @annotation.Tag(4) private int a4;
+        @annotation.Tag(5) private int a5;
+        @annotation.Tag(6) private int a6;
+        @annotation.Tag(7) private int a7;
+        @annotation.Tag(8) private int a8;
+        @annotation.Tag(9) private int a9;
+        @annotation.Tag(20) private String name;
+        @annotation.Tag(33) private Long total;
+        @annotation.Tag(40) private Integer count;
+    }
+
+    @Test
+    public void keysOutsideIntRangeAreRejectedTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+        Codec directCodec = Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        ((MessagePackBindingReader) directCodec.getObjectDeserializer()).setReadLengthHeader(false);
+
+        // {uint32 1: 5}
+        WideDto wide = directCodec.deserialize(ByteBuffer.wrap(new byte[]{(byte) 0x81, (byte) 0xCE, 0, 0, 0, 1, 0x05}), WideDto.class);
+        assertEquals(5, wide.a1);
+
+        for (byte[] key : List.of(
+                new byte[]{(byte) 0xCE, (byte) 0x80, 0, 0, 0},
+                new byte[]{(byte) 0xCF, 0, 0, 0, 1, 0, 0, 0, 0},
+                new byte[]{(byte) 0xCF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF},
+                new byte[]{(byte) 0xD3, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF})) {
+            ByteBuffer input = ByteBuffer.allocate(key.length + 2).put((byte) 0x81).put(key).put((byte) 0x05).flip();
+            assertThrows(MessagePackException.class, () -> directCodec.deserialize(input, WideDto.class));
+        }
+    }
+
     @Test
     public void serializeAndDeserializeObjectTest() {
         PoolFactory poolFactory = PoolFactory.Builder.builder()
@@ -63,6 +117,101 @@ public class MessagePackMapperTests {
         assertArrayEquals((byte[]) original.get("1.0"), (byte[]) deserialized.get("1.0"));
     }
 
+    @Test
+    public void directBindingWriterMatchesDocumentPathTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec documentCodec = Codec.messagePack(poolFactory, 4096);
+        Codec directCodec = Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        ByteBuffer payload = ByteBuffer.allocateDirect(256);
+        for (int i = 0; i < 256; i++) payload.put(i, (byte) i);
+        VpnRequestDto<VpnForwardPacketDto> request = VpnRequestDto.wrap(FOO, VpnForwardPacketDto.builder().packet(payload).build());
+        request.setTimestamp(Instant.ofEpochMilli(1000000L));
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("customer", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 5_000_000_000L, "type")));
+
+        WideDto sparse = new WideDto();
+        sparse.name = "sparse";
+        sparse.count = 7;
+        WideDto wide = new WideDto();
+        wide.name = "wide";
+        wide.total = 42L;
+        wide.count = 7;
+
+        for (Object o : List.of(request, result, sparse, wide)) {
+            DynamicByteBuffer expected = documentCodec.serialize(o);
+            DynamicByteBuffer actual = directCodec.serialize(o);
+            assertEquals(expected.getBuffer(), actual.getBuffer(), "Direct output differs for " + o.getClass());
+            expected.dispose();
+            actual.dispose();
+        }
+
+        DynamicByteBuffer buf = directCodec.serialize(request);
+        VpnRequestDto<?> deserialized = directCodec.deserialize(buf.getBuffer(), VpnRequestDto.class);
+        buf.dispose();
+        assertEquals(request, deserialized);
+    }
+
+    @Test
+    public void directBindingReaderDecodesOrdinalsAndSkipsUnknownTagsTest() {
+        PoolFactory poolFactory = PoolFactory.Builder.builder()
+                .setMinPoolSize(10)
+                .setMaxPoolSize(100)
+                .setOutOfPoolTimeout(1000)
+                .setBlocking(true)
+                .build();
+
+        Codec codec = Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+
+        ByteBuffer packet = ByteBuffer.allocateDirect(16);
+        for (int i = 0; i < 16; i++) packet.put(i, (byte) i);
+        Map<Object, Object> data = new LinkedHashMap<>();
+        data.put(0, packet);
+
+        // Enum as ordinal, typed field before its discriminator and an unknown nested tag
+        Map<Object, Object> root = new LinkedHashMap<>();
+        root.put(0, FOO.ordinal());
+        root.put(1, data);
+        root.put(7, List.of(Map.of(1, "x"), 5_000_000_000L, 1.5d));
+        root.put(2, "0.1");
+        root.put(3, Instant.ofEpochMilli(1000000L));
+        root.put(1488, VpnForwardPacketDto.class.getName());
+
+        Pool<WriterContext> writerContextPool = poolFactory.getPool(WriterContext::new);
+        Pool<ArrayDeque<WriterContext>> writerStackPool = poolFactory.getPool(() -> new ArrayDeque<>(64));
+        DynamicByteBuffer buf = new DynamicByteBuffer(4096, true);
+        new MessagePackWriter(writerContextPool, writerStackPool).serialize(buf, new BinaryDocument(root));
+        VpnRequestDto<?> deserialized = codec.deserialize(buf.getBuffer(), VpnRequestDto.class);
+
+        assertEquals(FOO, deserialized.getCommand());
+        assertEquals("0.1", deserialized.getProtocolVersion());
+        assertEquals(Instant.ofEpochMilli(1000000L), deserialized.getTimestamp());
+        VpnForwardPacketDto forwardPacket = assertInstanceOf(VpnForwardPacketDto.class, deserialized.getData());
+        assertEquals(packet, forwardPacket.getPacket());
+
+        GetBlockingsInfoResultCacheableDto result = new GetBlockingsInfoResultCacheableDto("customer", "account", List.of(
+                new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type"),
+                new BlockingsInfoCacheableDto(2, "2024-01-02", "authority", null, 5_000_000_000L, "type")));
+        DynamicByteBuffer resultBuf = codec.serialize(result);
+        GetBlockingsInfoResultCacheableDto decoded = codec.deserialize(resultBuf.getBuffer(), GetBlockingsInfoResultCacheableDto.class);
+        resultBuf.dispose();
+
+        assertEquals("customer", decoded.getCustomerId());
+        assertEquals(2, decoded.getBlockingsInfo().size());
+        BlockingsInfoCacheableDto second = decoded.getBlockingsInfo().get(1);
+        assertEquals(2, second.getNumber().intValue());
+        assertEquals(5_000_000_000L, second.getBlockAmount().longValue());
+        assertNull(second.getBlockReason());
+    }
+
     @Test
     public void performanceTest() {
         final int WARMUP_ITERATIONS = 5000;
@@ -179,6 +179,94 @@ public class MessagePackTest {
         // This verifies no memory leak and proper pool recycling
     }
 
+    @Test
+    public void declaredLengthBeyondInputIsRejected() {
+        MessagePackReader reader = new MessagePackReader(readerContextPool, stackPool, false, false);
+        reader.setReadLengthHeader(false);
+
+        // {0: ext32 int array / bin32} claiming ~2 GB with nothing after the header
+        for (byte[] header : List.of(
+                new byte[]{(byte) 0x81, 0x00, (byte) 0xC9, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, MessagePackExtension.INT_ARRAY},
+                new byte[]{(byte) 0x81, 0x00, (byte) 0xC9, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0, MessagePackExtension.DOUBLE_ARRAY},
+                new byte[]{(byte) 0x81, 0x00, (byte) 0xC6, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0},
+                new byte[]{(byte) 0x81, 0x00, (byte) 0xC6, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xF0})) {
+            MessagePackException e = assertThrows(MessagePackException.class,
+                    () -> reader.deserialize(ByteBuffer.wrap(header), new BinaryDocument(new HashMap<>())));
+            assertTrue(e.getMessage().contains("remaining bytes"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void lazyStringsKeepKeysEager() {
+        MessagePackWriter writer = new MessagePackWriter(writerContextPool, writerStackPool);
+
+        String longValue = "a string that does not fit into a fixstr header";
+        Map<Object, Object> map = new HashMap<>();
+        map.put("name", "short");
+        map.put(1, longValue);
+        map.put(2, "ünïcödé");
+        map.put(3, List.of("item"));
+        map.put(4, Map.of("inner", "value"));
+
+        DynamicByteBuffer buffer = new DynamicByteBuffer(129 * 1024, true);
+        writer.serialize(buffer, new BinaryDocument(map));
+        ByteBuffer buf = buffer.getBuffer();
+
+        MessagePackReader reader = new MessagePackReader(readerContextPool, stackPool, false, false);
+        reader.setLazyStrings(true);
+        BinaryDocument deserialized = new BinaryDocument(new HashMap<>());
+        reader.deserialize(buf, deserialized);
+
+        LazyUtf8 name = assertInstanceOf(LazyUtf8.class, deserialized.getDocumentMap().get("name"));
+        assertTrue(name.contentEquals("short"));
+        assertEquals(5, name.byteLength());
+        assertEquals(longValue, deserialized.get("1").toString());
+        assertEquals("ünïcödé", deserialized.get("2").toString());
+        assertTrue(((LazyUtf8) deserialized.get("2")).contentEquals("ünïcödé"));
+        // array items are values, nested map keys are keys
+        assertInstanceOf(LazyUtf8.class, ((List<?>) deserialized.getDocumentMap().get(3)).get(0));
+        Map<?, ?> inner = (Map<?, ?>) deserialized.getDocumentMap().get(4);
+        assertInstanceOf(String.class, inner.keySet().iterator().next());
+        assertInstanceOf(LazyUtf8.class, inner.get("inner"));
+
+        // {{}: 0}
+        reader.setReadLengthHeader(false);
+        assertThrows(MessagePackException.class, () -> reader.deserialize(
+                ByteBuffer.wrap(new byte[]{(byte) 0x81, (byte) 0x80, 0x00}), new BinaryDocument(new HashMap<>())));
+    }
+
+    @Test
+    public void shortStringsAreCanonicalized() {
+        MessagePackWriter writer = new MessagePackWriter(writerContextPool, writerStackPool);
+
+        String longValue = "x".repeat(StringCache.DEFAULT_MAX_LENGTH + 1);
+        Map<Object, Object> map = new HashMap<>();
+        map.put(0, List.of("0.1", "0.1"));
+        map.put(1, longValue);
+        map.put(2, longValue);
+
+        DynamicByteBuffer buffer = new DynamicByteBuffer(129 * 1024, true);
+        writer.serialize(buffer, new BinaryDocument(map));
+        ByteBuffer buf = buffer.getBuffer();
+
+        MessagePackReader reader = new MessagePackReader(readerContextPool, stackPool, false, false);
+        BinaryDocument deserialized = new BinaryDocument(new HashMap<>());
+        reader.deserialize(buf, deserialized);
+
+        List<?> versions = (List<?>) deserialized.get("0");
+        assertSame(versions.get(0), versions.get(1));
+        assertEquals(longValue, deserialized.get("1"));
+        assertNotSame(deserialized.get("1"), deserialized.get("2"));
+
+        StringCache cache = new StringCache(1, 8);
+        ByteBuffer bytes = ByteBuffer.wrap("abcabd".getBytes());
+        String first = cache.get(bytes, 0, 3);
+        assertSame(first, cache.get(bytes, 0, 3));
+        // A colliding value replaces the single slot
+        assertEquals("abd", cache.get(bytes, 3, 3));
+        assertNotSame(first, cache.get(bytes, 0, 3));
+    }
+
     @Test
     public void serializeExtension() {
         MessagePackWriter writer = new MessagePackWriter(writerContextPool, writerStackPool);
@@ -0,0 +1,341 @@
+package su.grinev;
+
+import org.junit.jupiter.api.Test;
+import su.grinev.pool.BufferArena;
+import su.grinev.pool.Pool;
+import su.grinev.dto.BlockingsInfoCacheableDto;
+import su.grinev.dto.GetBlockingsInfoResultCacheableDto;
+import su.grinev.pool.DynamicByteBuffer;
+import su.grinev.pool.PoolExhaustedException;
+import su.grinev.pool.PoolFactory;
+import su.grinev.pool.PoolMetrics;
+import su.grinev.pool.ScratchBuffers;
+import su.grinev.pool.SegmentedByteBuffer;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoolTests {
+
+    /** Factory whose pools start empty; tests add the options they exercise. */
+    private static PoolFactory.Builder pools(int maxPoolSize, int timeoutMs, boolean blocking) {
+        return PoolFactory.Builder.builder()
+                .setMinPoolSize(0)
+                .setMaxPoolSize(maxPoolSize)
+                .setOutOfPoolTimeout(timeoutMs)
+                .setBlocking(blocking);
+    }
+
+    @Test
+    void threadCacheReusesObjectsAndKeepsLimit() throws InterruptedException {
+        PoolFactory poolFactory = pools(2, 1000, false).setThreadCacheSize(4).build();
+        Pool<Object> pool = poolFactory.getPool("thread-cache-test", Object::new);
+
+        Object first = pool.get();
+        pool.release(first);
+        assertSame(first, pool.get());
+        pool.release(first);
+
+        // Another thread fills its own cache up to the limit and keeps it
+        List<Object> taken = new ArrayList<>();
+        Thread other = new Thread(() -> {
+            taken.add(pool.get());
+            taken.add(pool.get());
+            taken.forEach(pool::release);
+        });
+        other.start();
+        other.join();
+
+        // Both slots are reclaimed from the other thread's cache instead of overflowing
+        Object a = pool.get();
+        Object b = pool.get();
+        assertNotSame(a, b);
+        assertThrows(IllegalStateException.class, pool::get);
+        assertEquals(2, pool.getCurrentPoolSize().get());
+
+        // Counts kept in each thread's cache, the dead thread's included, add up on read
+        assertEquals(7, pool.getGetCount());
+        assertEquals(4, pool.getReleaseCount());
+    }
+
+    @Test
+    void singleSlotThreadCacheKeepsEveryRelease() {
+        Pool<Object> pool = pools(2, 0, false).setThreadCacheSize(1).build().getPool("single-slot-cache-test", Object::new);
+
+        // The second release finds the cache full and has to spill the cached object first
+        for (int i = 0; i < 10; i++) {
+            Object a = pool.get();
+            Object b = pool.get();
+            assertNotSame(a, b);
+            pool.release(a);
+            pool.release(b);
+        }
+        assertEquals(1, pool.metrics().inUse());
+    }
+
+    @Test
+    void releaseHandsOffToWaiterInsteadOfThreadCache() throws Exception {
+        Pool<Object> pool = pools(1, 5000, true).setThreadCacheSize(4).build().getPool("cache-handoff-test", Object::new);
+
+        Object held = pool.get();
+        Object[] received = new Object[1];
+        Thread waiter = Thread.ofVirtual().start(() -> received[0] = pool.get());
+        // A virtual thread in a timed park reports WAITING
+        while (waiter.getState() != Thread.State.WAITING && waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        long start = System.nanoTime();
+        pool.release(held);
+        waiter.join();
+        assertSame(held, received[0]);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+        assertEquals(0, pool.getTimeoutCount());
+    }
+
+    @Test
+    void virtualThreadsShareScratchBuffers() throws Exception {
+        // A write takes up to three contexts one after another while holding a buffer. Pools
+        // smaller than that times the tasks in flight can leave every context with a task
+        // that waits for another one until the timeout.
+        PoolFactory poolFactory = pools(Math.max(16, Runtime.getRuntime().availableProcessors() * 4), 1000, true)
+                .setThreadCacheSize(4)
+                .setVirtualThreads(true)
+                .build();
+        assertNotSame(ScratchBuffers.threadLocal(), poolFactory.getScratchBuffers());
+
+        Codec codec = Codec.messagePack(poolFactory, 4096, Binder.ClassNameMode.FULL_NAME, Codec.BindingMode.DIRECT);
+        String longName = "a customer name long enough to skip the string cache";
+
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                String customer = longName + i;
+                results.add(executor.submit(() -> {
+                    GetBlockingsInfoResultCacheableDto dto = new GetBlockingsInfoResultCacheableDto(customer, "account",
+                            List.of(new BlockingsInfoCacheableDto(1, "2024-01-01", "authority", "reason", 100L, "type")));
+                    DynamicByteBuffer buf = codec.serialize(dto);
+                    try {
+                        return codec.deserialize(buf.getBuffer(), GetBlockingsInfoResultCacheableDto.class).getCustomerId();
+                    } finally {
+                        buf.dispose();
+                    }
+                }));
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(longName + i, results.get(i).get());
+        }
+    }
+
+    @Test
+    void blockingGetTimesOutAndHandsOffInOrder() throws Exception {
+        PoolFactory poolFactory = pools(1, 50, true).build();
+        Pool<Object> pool = poolFactory.getPool("timeout-test", Object::new);
+
+        Object only = pool.get();
+        long start = System.nanoTime();
+        PoolExhaustedException e = assertThrows(PoolExhaustedException.class, pool::get);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals("timeout-test", e.getPoolName());
+        assertEquals(1, pool.getTimeoutCount());
+
+        // Waiters are served in arrival order, each gets the object the previous one released
+        Pool<Object> slow = pools(1, 0, true).build().getPool("handoff-test", Object::new);
+        Object held = slow.get();
+        List<Integer> order = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int id = i;
+            Thread t = Thread.ofVirtual().start(() -> {
+                Object o = slow.get();
+                synchronized (order) {
+                    order.add(id);
+                }
+                slow.release(o);
+            });
+            threads.add(t);
+            while (t.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+        }
+        slow.release(held);
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(List.of(0, 1, 2), order);
+        assertEquals(3, slow.getWaitCount());
+        assertTrue(slow.getWaitNanos() > 0);
+        pool.release(only);
+    }
+
+    @Test
+    void blockedGetReclaimsObjectsCachedByOtherThreads() throws Exception {
+        // No timeout: a waiter that never looks into the other threads' caches parks for good
+        Pool<Object> pool = pools(2, 0, true).setThreadCacheSize(4).build().getPool("cache-reclaim-test", Object::new);
+        ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        pool.release(pool.get());
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, pool.getTimeoutCount());
+    }
+
+    @Test
+    void metricsCountReuseWaitsAndPeak() throws Exception {
+        PoolFactory poolFactory = pools(2, 20, true).setJmxEnabled(true).build();
+        Pool<Object> pool = poolFactory.getPool("metrics-test", Object::new);
+
+        Object a = pool.get();
+        Object b = pool.get();
+        assertThrows(PoolExhaustedException.class, pool::get);
+        pool.release(a);
+        pool.release(b);
+        pool.release(b);
+        pool.release(pool.get());
+
+        PoolMetrics metrics = poolFactory.getMetrics().get("metrics-test");
+        assertEquals(4, metrics.gets());
+        assertEquals(4, metrics.releases());
+        assertEquals(2, metrics.allocations());
+        assertEquals(2, metrics.maxInUse());
+        assertEquals(0, metrics.inUse());
+        assertEquals(1, metrics.waits());
+        assertEquals(1, metrics.timeouts());
+        assertTrue(metrics.waitNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(1, metrics.discards());
+
+        ObjectName objectName = new ObjectName("su.grinev.pool:type=Pool,name=" + ObjectName.quote("metrics-test"));
+        assertEquals(4L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Gets"));
+        assertEquals(2, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "MaxInUse"));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Discards"));
+        assertEquals(2, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "Limit"));
+    }
+
+    @Test
+    void bufferArenaRecyclesGrownBuffers() {
+        BufferArena arena = new BufferArena(64 * 1024, 1024 * 1024);
+        DynamicByteBuffer buffer = new DynamicByteBuffer(1000, arena);
+        buffer.setOnDispose(() -> {});
+        assertEquals(4096, buffer.capacity());
+        ByteBuffer first = buffer.getBuffer();
+
+        buffer.ensureCapacity(5000);
+        buffer.put(new byte[5000]);
+        assertEquals(8192, buffer.capacity());
+        // The outgrown buffer went back to its size class and is the next one handed out
+        assertSame(first, arena.allocate(4096));
+
+        buffer.ensureCapacity(100_000);
+        assertEquals(105_000, buffer.capacity());
+        assertEquals(5000, buffer.position());
+
+        // Past the largest class the buffer shrinks back on dispose, below it keeps its capacity
+        buffer.dispose();
+        assertEquals(4096, buffer.capacity());
+        buffer.ensureCapacity(10_000);
+        buffer.dispose();
+        assertEquals(16384, buffer.capacity());
+
+        PoolFactory poolFactory = pools(4, 0, false).setBufferArena(arena).build();
+        Codec codec = Codec.bson(poolFactory, 4096, () -> ByteBuffer.allocateDirect(4096));
+        List<BlockingsInfoCacheableDto> blockings = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            blockings.add(new BlockingsInfoCacheableDto(i, "2024-01-01", "authority", "reason", (long) i, "type"));
+        }
+        GetBlockingsInfoResultCacheableDto dto = new GetBlockingsInfoResultCacheableDto("customer", "account", blockings);
+        DynamicByteBuffer out = codec.serialize(dto);
+        try {
+            assertTrue(out.getBuffer().isDirect());
+            assertEquals(40, codec.deserialize(out.getBuffer(), GetBlockingsInfoResultCacheableDto.class).getBlockingsInfo().size());
+        } finally {
+            out.dispose();
+        }
+    }
+
+    @Test
+    void segmentedBufferPatchesAcrossSegmentsAndGathers() throws Exception {
+        BufferArena arena = new BufferArena(64 * 1024, 1024 * 1024);
+        SegmentedByteBuffer segmented = new SegmentedByteBuffer(arena, 4096);
+        segmented.initBuffer();
+        segmented.position(4094);
+        segmented.putLong(0x0102030405060708L);
+        segmented.putInt(4094, 0x0A0B0C0D);
+        segmented.flip();
+        assertEquals(4102, segmented.length());
+        assertEquals(2, segmented.segments().length);
+        ByteBuffer joined = segmented.getBuffer();
+        assertEquals(0x0A0B0C0D, joined.getInt(4094));
+        assertEquals(0x01020304, joined.getInt(4098));
+        // Joined once, then handed back to the arena on dispose
+        assertSame(joined, segmented.getBuffer());
+        segmented.setOnDispose(() -> {});
+        segmented.dispose();
+        assertSame(joined, arena.allocate(4102));
+
+        List<BlockingsInfoCacheableDto> blockings = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            blockings.add(new BlockingsInfoCacheableDto(i, "2024-01-01", "authority", "reason", (long) i, "type"));
+        }
+        GetBlockingsInfoResultCacheableDto dto = new GetBlockingsInfoResultCacheableDto("customer", "account", blockings);
+
+        for (Codec.BindingMode mode : Codec.BindingMode.values()) {
+            Codec plain = Codec.bson(pools(4, 0, false).build(), 64 * 1024,
+                    () -> ByteBuffer.allocateDirect(64 * 1024), true, Binder.ClassNameMode.FULL_NAME, mode);
+            Codec chained = Codec.bson(pools(4, 0, false).setBufferArena(arena).setSegmentSize(4096).build(), 64 * 1024,
+                    () -> ByteBuffer.allocateDirect(64 * 1024), true, Binder.ClassNameMode.FULL_NAME, mode);
+
+            DynamicByteBuffer expected = plain.serialize(dto);
+            byte[] expectedBytes = new byte[expected.getBuffer().remaining()];
+            expected.getBuffer().get(expectedBytes);
+            expected.dispose();
+
+            Path file = Files.createTempFile("segmented", ".bson");
+            try {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    chained.serialize(dto, channel);
+                }
+                assertArrayEquals(expectedBytes, Files.readAllBytes(file));
+            } finally {
+                Files.delete(file);
+            }
+
+            DynamicByteBuffer out = chained.serialize(dto);
+            try {
+                assertTrue(((SegmentedByteBuffer) out).segments().length > 1);
+                ByteBuffer read = out.getBuffer().order(ByteOrder.LITTLE_ENDIAN);
+                assertEquals(200, chained.deserialize(read, GetBlockingsInfoResultCacheableDto.class).getBlockingsInfo().size());
+            } finally {
+                out.dispose();
+            }
+        }
+    }
+}